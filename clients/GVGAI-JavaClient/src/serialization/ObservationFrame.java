@@ -0,0 +1,122 @@
+package serialization;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Copy of the sprites of the game kept by the client when it asks for incremental
+ * observations (Types.LEARNING_SSO_TYPE.DELTA): each observation received is applied to it
+ * with update(), and it keeps the sprites by id and by cell of the grid of the level.
+ */
+public class ObservationFrame {
+
+    /**
+     * Number of the last frame applied, -1 if none.
+     */
+    private int frame = -1;
+
+    /**
+     * Sprites of the game, by id.
+     */
+    private final HashMap<Integer, Observation> sprites = new HashMap<>();
+
+    /**
+     * Sprites in each block of the level, as grid[x][y], and cells changed by the last frame
+     * (y * width + x).
+     */
+    private ArrayList<Observation>[][] grid;
+    private int width, height, blockSize;
+    private int[] changedCells = new int[0];
+
+    /**
+     * Applies the sprites of an observation to this frame. If the observation is relative to
+     * a frame that was not applied here, nothing is changed: the client must then reply with
+     * an empty action, so the server doesn't take it as acknowledged and sends a keyframe.
+     * @param sso observation received, with the DELTA type.
+     * @return true if it was applied.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean update(SerializableStateObservation sso) {
+        if (sso.spritesAdded == null)
+            return false;
+        if (sso.deltaBase < 0) {
+            blockSize = sso.blockSize;
+            width = (int) sso.worldDimension[0] / blockSize;
+            height = (int) sso.worldDimension[1] / blockSize;
+            grid = new ArrayList[width][height];
+            for (int x = 0; x < width; x++)
+                for (int y = 0; y < height; y++)
+                    grid[x][y] = new ArrayList<>();
+            sprites.clear();
+        } else if (sso.deltaBase != frame) {
+            return false;
+        }
+
+        for (int id : sso.spritesRemoved) {
+            Observation obs = sprites.remove(id);
+            if (obs != null)
+                cell(obs).remove(obs);
+        }
+        int[] added = sso.spritesAdded;
+        for (int i = 0; i < added.length; i += 5) {
+            Observation obs = new Observation();
+            obs.obsID = added[i];
+            obs.itype = added[i + 1];
+            obs.category = added[i + 2];
+            obs.position = new Vector2d(added[i + 3], added[i + 4]);
+            sprites.put(obs.obsID, obs);
+            cell(obs).add(obs);
+        }
+        int[] moved = sso.spritesMoved;
+        for (int i = 0; i < moved.length; i += 3) {
+            Observation obs = sprites.get(moved[i]);
+            if (obs == null)
+                continue;
+            cell(obs).remove(obs);
+            obs.position = new Vector2d(moved[i + 1], moved[i + 2]);
+            cell(obs).add(obs);
+        }
+        changedCells = sso.changedCells;
+        frame = sso.deltaFrame;
+        return true;
+    }
+
+    /**
+     * Gets the sprites in the block of a sprite (a list out of the grid if it is out of the
+     * level).
+     */
+    private ArrayList<Observation> cell(Observation obs) {
+        int x = (int) Math.floor(obs.position.x / blockSize), y = (int) Math.floor(obs.position.y / blockSize);
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return new ArrayList<>();
+        return grid[x][y];
+    }
+
+    /**
+     * @return all the sprites of the game.
+     */
+    public Collection<Observation> getSprites() { return sprites.values(); }
+
+    /**
+     * @param id id of a sprite.
+     * @return the sprite, or null if it is not in the game.
+     */
+    public Observation getSprite(int id) { return sprites.get(id); }
+
+    /**
+     * @return sprites in each block of the level, as grid[x][y].
+     */
+    public ArrayList<Observation>[][] getGrid() { return grid; }
+
+    /**
+     * @return cells changed by the last frame applied, as y * width + x (none after a
+     * keyframe, that changes the whole grid).
+     */
+    public int[] getChangedCells() { return changedCells; }
+
+    /**
+     * @return number of the last frame applied, -1 if none.
+     */
+    public int getFrame() { return frame; }
+}
@@ -5,7 +5,9 @@ import utils.CompetitionParameters;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
@@ -27,6 +29,29 @@ public class SerializableStateObservation {
      */
     public byte[] imageArray;
 
+    /**
+     * Symbolic tensor of the game (TENSOR and TENSOR_CATEGORY types), as Base64 of a byte
+     * per cell: the number of sprites of the channel in the block, channel by channel and
+     * row by row (see getTensor()).
+     */
+    public String tensor;
+    public boolean tensorShared;
+    public boolean tensorByCategory;
+    public int tensorChannels, tensorHeight, tensorWidth;
+
+    /**
+     * Cells of the tensor read in place from the communication channel, when it is shared
+     * apart from the message (tensorShared), valid until the client replies.
+     */
+    public transient ByteBuffer tensorView;
+
+    /**
+     * Incremental observation of the game (DELTA type): number of this frame and of the frame
+     * it is relative to (-1 for keyframes), and the changes since then (see ObservationFrame).
+     */
+    public int deltaFrame, deltaBase;
+    public int[] spritesAdded, spritesRemoved, spritesMoved, changedCells;
+
     /**
      * Indicates the state of the protocol
      */
@@ -456,5 +481,29 @@ public class SerializableStateObservation {
                 ", fromAvatarSpritesPositions=" + java.util.Arrays.toString(fromAvatarSpritesPositions) +
                 "}\n" + observation;
     }
-}
 
+    /**
+     * Decodes the symbolic tensor of the game. The cell of block x, y in channel c is at
+     * index (c * tensorHeight + y) * tensorWidth + x.
+     * @return the tensor, or null if it was not requested.
+     */
+    public byte[] getTensor() {
+        if (tensorView != null) {
+            byte[] cells = new byte[tensorView.remaining()];
+            tensorView.duplicate().get(cells);
+            return cells;
+        }
+        return tensor == null ? null : Base64.getDecoder().decode(tensor);
+    }
+
+    /**
+     * Gets the symbolic tensor of the game without copying it when it is shared apart from
+     * the message (see getTensor() for the layout).
+     * @return the cells of the tensor, or null if it was not requested.
+     */
+    public ByteBuffer getTensorBuffer() {
+        if (tensorView != null)
+            return tensorView.duplicate();
+        return tensor == null ? null : ByteBuffer.wrap(Base64.getDecoder().decode(tensor));
+    }
+}
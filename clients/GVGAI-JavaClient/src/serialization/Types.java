@@ -41,6 +41,9 @@ public class Types {
     public static enum LEARNING_SSO_TYPE {
         IMAGE,
         JSON,
-        BOTH
+        BOTH,
+        TENSOR,          // JSON and a symbolic tensor with a channel per sprite type
+        TENSOR_CATEGORY, // JSON and a symbolic tensor with a channel per sprite category
+        DELTA            // JSON and the sprites changed since the last frame (see ObservationFrame)
     }
 }
@@ -9,6 +9,12 @@ import serialization.Types;
 public abstract class AbstractPlayer {
     protected Types.LEARNING_SSO_TYPE lastSsoType = Types.LEARNING_SSO_TYPE.JSON;
 
+    /**
+     * Command for the next game of a learning session (server started with -session), sent
+     * instead of the level returned by result(). See load() and endSession().
+     */
+    protected String sessionCommand;
+
     /**
      * Public method to be called at the start of every level of a game.
      * Perform any level-entry initialization here.
@@ -44,4 +50,21 @@ public abstract class AbstractPlayer {
      * chosen will be ignored, and the game will play a sampleRandom one instead.
      */
     public abstract int result(SerializableStateObservation sso, ElapsedCpuTimer elapsedTimer);
+
+    /**
+     * In a learning session, asks the server to play a level of a game next. Call it from result().
+     * @param game name of a game of the examples (e.g. "aliens"), or its description file.
+     * @param level index of the level of the game.
+     * @param seed seed for the random generator of the game.
+     */
+    public void load(String game, int level, int seed) {
+        sessionCommand = "LOAD " + game + " " + level + " " + seed;
+    }
+
+    /**
+     * In a learning session, asks the server to end it. Call it from result().
+     */
+    public void endSession() {
+        sessionCommand = "END_SESSION";
+    }
 }
@@ -67,7 +67,10 @@ public class ClientComm {
      */
     public ClientComm(String agentName) {
 
-        io = CompetitionParameters.USE_SOCKETS ? new IOSocket(CompetitionParameters.SOCKET_PORT) : new IOPipe();
+        if (CompetitionParameters.SHARED_MEMORY_FILE != null)
+            io = new IOSharedMemory(CompetitionParameters.SHARED_MEMORY_FILE);
+        else
+            io = CompetitionParameters.USE_SOCKETS ? new IOSocket(CompetitionParameters.SOCKET_PORT) : new IOPipe();
         sso = new SerializableStateObservation();
         this.agentName = agentName;
     }
@@ -178,6 +181,10 @@ public class ClientComm {
             // Else, deserialize the json using GSon
             this.sso = gson.fromJson(json, SerializableStateObservation.class);
 
+            // The tensor may be shared apart from the message, to read in place
+            if (sso.tensorShared && io instanceof IOSharedMemory)
+                sso.tensorView = ((IOSharedMemory) io).getTensor();
+
             // If expect image
             if (lastSsoType == LEARNING_SSO_TYPE.IMAGE || lastSsoType == LEARNING_SSO_TYPE.BOTH) {
                 if ((sso.phase != SerializableStateObservation.Phase.INIT
@@ -317,6 +324,10 @@ public class ClientComm {
         {
             io.writeToServer(lastMessageId, "END_OVERSPENT", LOG);
 
+        }else if(player.sessionCommand != null) {
+            io.writeToServer(lastMessageId, player.sessionCommand + TOKEN_SEP + player.lastSsoType, LOG);
+            player.sessionCommand = null;
+
         }else {
 
             if(global_ect.exceededMaxTime())
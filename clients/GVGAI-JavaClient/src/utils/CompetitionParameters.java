@@ -59,5 +59,11 @@ public class CompetitionParameters
      */
     public static final int SOCKET_PORT = 8080;//3000;
 
+    /**
+     * If set, the client communicates with the server through this memory-mapped file
+     * instead of sockets (see IOSharedMemory). It must be the one set in the server.
+     */
+    public static String SHARED_MEMORY_FILE = null;
+
     public static String SCREENSHOT_FILENAME = "gameStateByBytes.png";
 }
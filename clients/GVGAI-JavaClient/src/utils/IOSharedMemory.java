@@ -0,0 +1,158 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Communication with a server in the same machine through the memory-mapped file it creates
+ * (tracks.singleLearning.utils.SharedMemoryComm on the server, where the layout of the file is
+ * described): messages are read from and written to ring buffers in the file, and symbolic
+ * tensors are read in place, with getTensor().
+ */
+public class IOSharedMemory extends IO {
+
+    private static final int MAGIC = 0x53475647;
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int RING_BASE = 128;
+    private static final int OFFSET_CLOSED = 16;
+    private static final int OFFSET_READ = 64;
+    private static final int SPINS = 2000;
+    private static final long MAX_PARK_NANOS = 1000000;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final String file;
+    private MappedByteBuffer buffer;
+    private int ringCapacity, fromServer, toServer, tensorBase;
+
+    public IOSharedMemory(String file)
+    {
+        super();
+        this.file = file;
+    }
+
+    /**
+     * Maps the file, waiting until the server has created it.
+     */
+    @Override
+    public void initBuffers() {
+        while (buffer == null) {
+            if (new File(file).length() > HEADER) try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                // A file left by a finished server is not the one to use.
+                if ((int) INT.getAcquire(map, 0) == MAGIC && map.getInt(4) == VERSION
+                        && (int) INT.getAcquire(map, OFFSET_CLOSED) == 0) {
+                    buffer = map;
+                    ringCapacity = buffer.getInt(8);
+                    fromServer = HEADER;
+                    toServer = fromServer + RING_BASE + ringCapacity;
+                    tensorBase = toServer + RING_BASE + ringCapacity;
+                    System.out.println("Client connected to server [OK]");
+                }
+            } catch (IOException e) {
+                // Not created yet.
+            }
+            if (buffer == null)
+                LockSupport.parkNanos(10 * MAX_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Writes a line to the server.
+     * @param messageId the server is expecting.
+     * @param line to write
+     * @param log if true, write to file as well.
+     */
+    @Override
+    public void writeToServer(long messageId, String line, boolean log)
+    {
+        String msg = messageId + ClientComm.TOKEN_SEP + line;
+        this.writeToServer(msg);
+        if(log) this.writeToFile(msg);
+    }
+
+    /**
+     * Writes a line to the server, waiting while its ring is full.
+     * @param line to write
+     */
+    @Override
+    protected void writeToServer(String line)
+    {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        long write = (long) LONG.getOpaque(buffer, toServer);
+        await(toServer + OFFSET_READ, write + 4 + bytes.length - ringCapacity);
+        byte[] length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array();
+        write = put(toServer, write, length);
+        write = put(toServer, write, bytes);
+        LONG.setRelease(buffer, toServer, write);
+    }
+
+    /**
+     * Reads the next line from the server, waiting until there is one.
+     */
+    @Override
+    public String readLine() throws IOException {
+        long read = (long) LONG.getOpaque(buffer, fromServer + OFFSET_READ);
+        await(fromServer, read + 1);
+        byte[] length = new byte[4];
+        read = get(fromServer, read, length);
+        byte[] bytes = new byte[ByteBuffer.wrap(length).order(ByteOrder.LITTLE_ENDIAN).getInt()];
+        read = get(fromServer, read, bytes);
+        LONG.setRelease(buffer, fromServer + OFFSET_READ, read);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the symbolic tensor shared with the last line read, without copying it: a byte per
+     * cell, valid until the client replies to that line.
+     * @return read-only view of the cells of the tensor.
+     */
+    public ByteBuffer getTensor() {
+        int size = buffer.getInt(tensorBase);
+        return buffer.slice(tensorBase + 64, size).asReadOnlyBuffer();
+    }
+
+    /**
+     * Waits until a position of a ring reaches a value, spinning for a while and then parking
+     * for growing periods.
+     */
+    private void await(int offset, long value) {
+        long park = 1000;
+        for (int i = 0; (long) LONG.getAcquire(buffer, offset) < value; i++) {
+            if (i < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(park);
+                park = Math.min(park * 2, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    private long put(int ring, long position, byte[] bytes) {
+        int at = (int) (position % ringCapacity);
+        int first = Math.min(bytes.length, ringCapacity - at);
+        buffer.put(ring + RING_BASE + at, bytes, 0, first);
+        buffer.put(ring + RING_BASE, bytes, first, bytes.length - first);
+        return position + bytes.length;
+    }
+
+    private long get(int ring, long position, byte[] bytes) {
+        int at = (int) (position % ringCapacity);
+        int first = Math.min(bytes.length, ringCapacity - at);
+        buffer.get(ring + RING_BASE + at, bytes, 0, first);
+        buffer.get(ring + RING_BASE, bytes, first, bytes.length - first);
+        return position + bytes.length;
+    }
+}
@@ -3,6 +3,7 @@ from Types import LEARNING_SSO_TYPE
 class AbstractPlayer:
     def __init__(self):
         self.lastSsoType = LEARNING_SSO_TYPE.JSON
+        self.sessionCommand = None
 
     def init(self, sso, timer):
         """
@@ -41,3 +42,21 @@ class AbstractPlayer:
         * chosen will be ignored, and the game will play a random one instead.
         """
         pass
+
+    def load(self, game, level=0, seed=None):
+        """
+        * In a learning session (server started with -session), asks the server to play a level
+        * of a game next, instead of the level returned by result(). Call it from result().
+        * @param game name of a game of the examples (e.g. "aliens"), or its description file.
+        * @param level index of the level of the game.
+        * @param seed seed for the random generator of the game (random if None).
+        """
+        self.sessionCommand = "LOAD " + str(game) + " " + str(level)
+        if seed is not None:
+            self.sessionCommand += " " + str(seed)
+
+    def endSession(self):
+        """
+        * In a learning session, asks the server to end it. Call it from result().
+        """
+        self.sessionCommand = "END_SESSION"
@@ -13,6 +13,7 @@ sys.path.append('../sampleRandom')
 from CompetitionParameters import CompetitionParameters
 from ElapsedCpuTimer import ElapsedCpuTimer
 from IOSocket import IOSocket
+from IOSharedMemory import IOSharedMemory
 from Types import LEARNING_SSO_TYPE
 
 
@@ -23,7 +24,10 @@ class ClientComm:
 
     def __init__(self, agentName):
         self.TOKEN_SEP = '#'
-        self.io = IOSocket(CompetitionParameters.SOCKET_PORT)
+        if CompetitionParameters.SHARED_MEMORY_FILE is not None:
+            self.io = IOSharedMemory(CompetitionParameters.SHARED_MEMORY_FILE)
+        else:
+            self.io = IOSocket(CompetitionParameters.SOCKET_PORT)
         self.sso = SerializableStateObservation()
         self.agentName = agentName
         self.lastMessageId = 0
@@ -200,6 +204,9 @@ class ClientComm:
             else:
                 js.replace('"', '')
                 self.parse_json(js)
+                # The tensor may be shared apart from the message, to read in place
+                if self.sso.tensorShared and isinstance(self.io, IOSharedMemory):
+                    self.sso.tensorView = self.io.getTensor()
                 # self.sso = json.loads(js, object_hook=self.as_sso)
 
             if self.sso.phase == "ACT":
@@ -308,6 +315,10 @@ class ClientComm:
         self.lastSsoType = self.player.lastSsoType
         if ect.exceededMaxTime():
             self.io.writeToServer(self.lastMessageId, "END_OVERSPENT", self.LOG)
+        elif getattr(self.player, 'sessionCommand', None) is not None:
+            # Agents that don't call AbstractPlayer.__init__ have no session commands.
+            self.io.writeToServer(self.lastMessageId, self.player.sessionCommand + "#" + self.lastSsoType, self.LOG)
+            self.player.sessionCommand = None
         else:
 
             if self.global_ect.exceededMaxTime():
@@ -23,4 +23,5 @@ class CompetitionParameters:
     TOTAL_LEARNING_TIME = 5*MILLIS_IN_MIN
     EXTRA_LEARNING_TIME = 1000
     SOCKET_PORT = 8080
+    SHARED_MEMORY_FILE = None  # if set, communicate through this memory-mapped file (see IOSharedMemory)
     SCREENSHOT_FILENAME = "gameStateByBytes.png"
\ No newline at end of file
@@ -0,0 +1,118 @@
+import mmap
+import os
+import struct
+import sys
+import time
+
+
+class IOSharedMemory:
+    """
+     * Communication through the memory-mapped file created by the server, corresponding to the Java Client code:
+     * GVGAI-JavaClient.src.utils.IOSharedMemory (the layout of the file is described in the server code,
+     * tracks.singleLearning.utils.SharedMemoryComm). Symbolic tensors are read in place with getTensor().
+     * Positions are read and written as aligned 8-byte values, without explicit memory barriers.
+    """
+
+    MAGIC = 0x53475647
+    VERSION = 1
+    HEADER = 64
+    RING_BASE = 128
+    OFFSET_CLOSED = 16
+    OFFSET_READ = 64
+    SPINS = 2000
+    MAX_SLEEP = 0.001
+
+    def __init__(self, file):
+        self.TOKEN_SEP = '#'
+        self.file = file
+        self.logfilename = "./logs/clientLog.txt"
+        self.logfile = open(self.logfilename, "a")
+        self.map = None
+        self.ringCapacity = 0
+        self.fromServer = 0
+        self.toServer = 0
+        self.tensorBase = 0
+
+    def initBuffers(self):
+        print ("Mapping file " + str(self.file) + " ...")
+        while self.map is None:
+            try:
+                if os.path.getsize(self.file) > self.HEADER:
+                    with open(self.file, "r+b") as f:
+                        m = mmap.mmap(f.fileno(), 0)
+                    magic, version, capacity, tensorCapacity, closed = struct.unpack_from("<iiiii", m, 0)
+                    # A file left by a finished server is not the one to use.
+                    if magic == self.MAGIC and version == self.VERSION and closed == 0:
+                        self.map = m
+                        self.ringCapacity = capacity
+                        self.fromServer = self.HEADER
+                        self.toServer = self.fromServer + self.RING_BASE + capacity
+                        self.tensorBase = self.toServer + self.RING_BASE + capacity
+                        print ("Client connected to server [OK]")
+                    else:
+                        m.close()
+            except OSError:
+                pass
+            if self.map is None:
+                time.sleep(0.01)
+
+    def writeToFile(self, line):
+        sys.stdout.write(line + os.linesep)
+        self.logfile.write(line + os.linesep)
+        sys.stdout.flush()
+        self.logfile.flush()
+
+    def writeToServer(self, messageId, line, log):
+        msg = str(messageId) + self.TOKEN_SEP + line
+        data = msg.encode('utf8')
+        write = self._position(self.toServer)
+        self._await(self.toServer + self.OFFSET_READ, write + 4 + len(data) - self.ringCapacity)
+        write = self._put(self.toServer, write, struct.pack("<i", len(data)))
+        write = self._put(self.toServer, write, data)
+        struct.pack_into("<q", self.map, self.toServer, write)
+        if log:
+            self.writeToFile(msg)
+
+    def readLine(self):
+        read = self._position(self.fromServer + self.OFFSET_READ)
+        self._await(self.fromServer, read + 1)
+        length, read = self._get(self.fromServer, read, 4)
+        data, read = self._get(self.fromServer, read, struct.unpack("<i", length)[0])
+        struct.pack_into("<q", self.map, self.fromServer + self.OFFSET_READ, read)
+        return data.decode('utf8')
+
+    def getTensor(self):
+        """
+         * Gets the symbolic tensor shared with the last line read, without copying it (a byte per cell,
+         * valid until the client replies to that line): e.g. numpy.frombuffer(io.getTensor(), numpy.uint8).
+        """
+        size = struct.unpack_from("<i", self.map, self.tensorBase)[0]
+        start = self.tensorBase + 64
+        return memoryview(self.map)[start:start + size]
+
+    def _position(self, offset):
+        return struct.unpack_from("<q", self.map, offset)[0]
+
+    def _await(self, offset, value):
+        i = 0
+        sleep = 0.000001
+        while self._position(offset) < value:
+            i += 1
+            if i > self.SPINS:
+                time.sleep(sleep)
+                sleep = min(sleep * 2, self.MAX_SLEEP)
+
+    def _put(self, ring, position, data):
+        at = position % self.ringCapacity
+        first = min(len(data), self.ringCapacity - at)
+        base = ring + self.RING_BASE
+        self.map[base + at:base + at + first] = data[:first]
+        self.map[base:base + len(data) - first] = data[first:]
+        return position + len(data)
+
+    def _get(self, ring, position, length):
+        at = position % self.ringCapacity
+        first = min(length, self.ringCapacity - at)
+        base = ring + self.RING_BASE
+        data = self.map[base + at:base + at + first] + self.map[base:base + length - first]
+        return data, position + length
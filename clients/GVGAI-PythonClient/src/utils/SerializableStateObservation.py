@@ -5,6 +5,7 @@ from Types import ACTIONS as ACTIONS
 from CompetitionParameters import CompetitionParameters as CompetitionParameters
 from PIL import Image
 import io
+import base64
 
 
 class SerializableStateObservation:
@@ -14,7 +15,22 @@ class SerializableStateObservation:
     """
     def __init__(self):
         self.imageArray = bytearray([])
-        
+
+        self.tensor = None
+        self.tensorShared = False
+        self.tensorView = None
+        self.tensorByCategory = False
+        self.tensorChannels = 0
+        self.tensorHeight = 0
+        self.tensorWidth = 0
+
+        self.deltaFrame = 0
+        self.deltaBase = -1
+        self.spritesAdded = None
+        self.spritesRemoved = []
+        self.spritesMoved = []
+        self.changedCells = []
+
         self.phase = Phase()
         self.isValidation = True
 
@@ -59,6 +75,79 @@ class SerializableStateObservation:
         image = Image.open(io.BytesIO(bytearray(pixels)))
         image.save(CompetitionParameters.SCREENSHOT_FILENAME)
 
+    def getTensor(self):
+        """
+         * Decodes the symbolic tensor (TENSOR and TENSOR_CATEGORY types): a byte per cell, with the
+         * cell of block x, y in channel c at index (c * tensorHeight + y) * tensorWidth + x. When it is shared
+         * apart from the message (tensorShared), tensorView reads it in place instead.
+        """
+        if self.tensorView is not None:
+            return bytearray(self.tensorView)
+        if self.tensor is None:
+            return None
+        return bytearray(base64.b64decode(self.tensor))
+
+
+class ObservationFrame:
+    """
+     * Copy of the sprites of the game kept by the client for incremental observations (DELTA type),
+     * corresponding to the Java Client code: GVGAI-JavaClient.src.serialization.ObservationFrame
+    """
+    def __init__(self):
+        self.frame = -1
+        self.sprites = {}
+        self.grid = []
+        self.width = 0
+        self.height = 0
+        self.blockSize = 1
+        self.changedCells = []
+
+    def update(self, sso):
+        """
+         * Applies the sprites of an observation, and returns True if it was applied. If it is relative to
+         * a frame not applied here, the client must reply with an empty action to get a keyframe.
+        """
+        if sso.spritesAdded is None:
+            return False
+        if sso.deltaBase < 0:
+            self.blockSize = sso.blockSize
+            self.width = int(sso.worldDimension[0]) // self.blockSize
+            self.height = int(sso.worldDimension[1]) // self.blockSize
+            self.grid = [[[] for y in range(self.height)] for x in range(self.width)]
+            self.sprites = {}
+        elif sso.deltaBase != self.frame:
+            return False
+
+        for obsID in sso.spritesRemoved:
+            obs = self.sprites.pop(obsID, None)
+            if obs is not None:
+                self._cell(obs).remove(obs)
+        added = sso.spritesAdded
+        for i in range(0, len(added), 5):
+            obs = Observation()
+            obs.obsID, obs.itype, obs.category = added[i], added[i + 1], added[i + 2]
+            obs.position.x, obs.position.y = added[i + 3], added[i + 4]
+            self.sprites[obs.obsID] = obs
+            self._cell(obs).append(obs)
+        moved = sso.spritesMoved
+        for i in range(0, len(moved), 3):
+            obs = self.sprites.get(moved[i])
+            if obs is None:
+                continue
+            self._cell(obs).remove(obs)
+            obs.position.x, obs.position.y = moved[i + 1], moved[i + 2]
+            self._cell(obs).append(obs)
+        self.changedCells = sso.changedCells
+        self.frame = sso.deltaFrame
+        return True
+
+    def _cell(self, obs):
+        x = int(obs.position.x // self.blockSize)
+        y = int(obs.position.y // self.blockSize)
+        if x < 0 or x >= self.width or y < 0 or y >= self.height:
+            return []
+        return self.grid[x][y]
+
 
 class Phase:
     """
@@ -36,4 +36,7 @@ class LEARNING_SSO_TYPE():
 
     IMAGE = "IMAGE"
     JSON = "JSON"
-    BOTH = "BOTH"
\ No newline at end of file
+    BOTH = "BOTH"
+    TENSOR = "TENSOR"
+    TENSOR_CATEGORY = "TENSOR_CATEGORY"
+    DELTA = "DELTA"
\ No newline at end of file
@@ -70,6 +70,52 @@ public class CompetitionParameters
      */
     public static final boolean OS_WIN = System.getProperty("os.name").contains("Windows");
 
+    /**
+     * Ways of measuring the time used by the controllers (see TIMER_TYPE).
+     */
+    public static final int TIMER_CPU = 0;
+    public static final int TIMER_WALL = 1;
+
+    /**
+     * How time limits are measured. TIMER_CPU charges the CPU time of the thread that
+     * calls the controller plus the CPU time of all threads in its pool (Player.getThreadPool()).
+     * TIMER_WALL uses wall time. Wall time is always used on Windows.
+     */
+    public static int TIMER_TYPE = TIMER_CPU;
+
+    /**
+     * Maximum number of worker threads in the pool of each controller.
+     */
+    public static int AGENT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * In games with more than one player, if true, the controllers of all players are asked
+     * for their actions at the same time, each in its own thread and with its own time budget,
+     * and then the actions are applied in player order. Players see the same states as when
+     * they act one after another, and the simulations of each player are kept apart from those
+     * of the others, so the outcome doesn't depend on how the threads are scheduled.
+     */
+    public static boolean SIMULTANEOUS_ACT = false;
+
+    /**
+     * If true, controllers that implement AbstractPlayer.ponder() keep searching in a
+     * background thread while the game runs, between their calls to act(). Not for
+     * competitions: this time is not charged to the controllers.
+     */
+    public static boolean PONDER = false;
+
+    /**
+     * Share of one CPU core that the background search of each controller may use when
+     * PONDER is set (see core.player.Pondering), from 0 to 1.
+     */
+    public static double PONDER_CPU_SHARE = 0.5;
+
+    /**
+     * Maximum time to wait for the background search of a controller to return when the
+     * game needs the controller again, in milliseconds (see core.player.Pondering).
+     */
+    public static long PONDER_STOP_TIME = 50;
+
     /**
      * Use sockets for Learning track connection?
      * (NOTE: Client code should also be configured to use sockets - or not).
@@ -81,6 +127,24 @@ public class CompetitionParameters
      */
     public static final int SOCKET_PORT = 8080;
 
+    /**
+     * If set, the learning track communicates with the client through this memory-mapped
+     * file instead of sockets (see tracks.singleLearning.utils.SharedMemoryComm).
+     */
+    public static String SHARED_MEMORY_FILE = null;
+
+    /**
+     * Bytes of each ring of messages, and of the region of symbolic tensors, of SHARED_MEMORY_FILE.
+     */
+    public static int SHARED_MEMORY_RING_SIZE = 1 << 23;
+    public static int SHARED_MEMORY_TENSOR_SIZE = 1 << 20;
+
+    /**
+     * Frames between keyframes of the incremental observations sent to learning clients
+     * (Types.LEARNING_SSO_TYPE.DELTA, see core.game.ObservationDelta).
+     */
+    public static int DELTA_KEYFRAME_INTERVAL = 100;
+
     /**
      * Indicates if the overspend should be taken into account or not.
      *  Time limits are WALL TIME on Windows, because CPU TIME is not accurate enough
@@ -103,6 +167,34 @@ public class CompetitionParameters
      */
     public static String IMG_PATH = "sprites/";
 
+    /**
+     * Headless asset mode. If true, sprite images are never read from disk or decoded
+     * (sprites are drawn with their colour). Useful for batch runs without visuals:
+     * ArcadeMachine.runOneGame() without visuals and ArcadeMachine.runGames() turn it on
+     * while they play.
+     */
+    public static boolean HEADLESS = false;
+
+    /**
+     * Collects the time spent in each phase of the game cycle and forward model steps
+     * (see core.game.EngineMetrics), printed with the result of each game.
+     */
+    public static boolean ENGINE_METRICS = false;
+
+    /**
+     * File the engine metrics of each game played by ArcadeMachine are appended to, in CSV
+     * format (see EngineMetrics.appendCSV()), when ENGINE_METRICS is true. If null, they
+     * are only printed with the result.
+     */
+    public static String ENGINE_METRICS_FILE = "engine_metrics.csv";
+
+    /**
+     * Counts the calls to advance() and copy() of all forward models (see
+     * ForwardModel.getAdvanceCount() and ForwardModel.getCopyCount()), for throughput
+     * benchmarks.
+     */
+    public static boolean COUNT_FORWARD_MODEL = false;
+
 
     /**
      * Path to the temporary game screenshot.
@@ -141,12 +233,45 @@ public class CompetitionParameters
     public static boolean killWindowOnEnd = true;
 
     /**
-     * Java Warm-up time before starting the game.
+     * Java Warm-up time before starting the game (maximum time, see tracks.WarmUpManager).
      */
     public static final long WARMUP_TIME = 5000;
     public static final long WARMUP_CP = 100;
     public static final long WARMUP_ADV = 1000;
 
+    /**
+     * Warm up before the first game of each game description (true), or only before the
+     * first game played in the JVM (false).
+     */
+    public static boolean WARMUP_PER_GAME = true;
+
+    /**
+     * Adaptive evaluation (see tools.EarlyStopping): when true, ArcadeMachine.runGames() and
+     * GVGExecutor stop repeating a level once its results are decided, so the number of
+     * repetitions given to them becomes a maximum.
+     */
+    public static boolean ADAPTIVE_RUNS = false;
+
+    /**
+     * Minimum repetitions of a level before it can be decided, and normal quantile of the
+     * confidence intervals (1.96 for 95%).
+     */
+    public static int ADAPTIVE_MIN_RUNS = 5;
+    public static double ADAPTIVE_Z = 1.96;
+
+    /**
+     * Target widths of the confidence intervals of the win rate and of the score (relative
+     * to the mean score).
+     */
+    public static double ADAPTIVE_WIN_WIDTH = 0.3;
+    public static double ADAPTIVE_SCORE_WIDTH = 0.3;
+
+    /**
+     * Baseline win rate: a level is also decided when the win rate is clearly above or
+     * below it. Negative to disable.
+     */
+    public static double ADAPTIVE_BASELINE_WIN = -1;
+
     /**
      * Key input type. We set the default here, but this will be set by the game in VGDL.
      */
@@ -154,6 +279,18 @@ public class CompetitionParameters
     public static final int KEY_PULSE = 1;
     public static int KEY_HANDLER = KEY_INPUT;
 
+    /**
+     * Random number generator used by games and forward models. RNG_JAVA is java.util.Random,
+     * the generator existing action files were recorded with. RNG_FAST is a non-synchronized
+     * xoroshiro128++ generator (tools.FastRandom), where forward model copies get streams split
+     * from the state they are copied from: each copy samples a different future, and seeded runs
+     * that make the same copies replay identically. Games played with RNG_FAST can only be
+     * replayed with RNG_FAST.
+     */
+    public static final int RNG_JAVA = 0;
+    public static final int RNG_FAST = 1;
+    public static int RANDOM_GENERATOR = RNG_JAVA;
+
     public static double MAX_WINDOW_SIZE = 800.0;
     public static int LEARNING_BLOCK_SIZE = 10;
     public static boolean IS_LEARNING = false;
@@ -0,0 +1,316 @@
+package core.competition;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a distributed evaluation. It takes the same parameters as GVGExecutor
+ * (games, levels, agent, seeds, repetitions, results and journal files), splits the
+ * evaluation into jobs (one game played in a level, with its seed) and hands them over TCP
+ * to worker JVMs (GVGWorker), on this host or on others. Each worker plays one job at a
+ * time, in its own JVM, so the engine singletons are not shared between games played at
+ * the same time.
+ *
+ * If a worker disconnects (or takes longer than -jobTimeout to answer), its job is given
+ * to another worker. Results are appended to the results files of GVGExecutor and to the
+ * journal (if any) as they arrive, in the order jobs finish, so a coordinator started again
+ * with -resume 1 only dispatches the jobs not finished. Adaptive stopping (-adapt) is not
+ * available, as all the jobs of a level are dispatched at once.
+ *
+ * Messages are JSON lines: the coordinator sends a Job, the worker answers with a Result,
+ * and a Job with stop set tells the worker there is no more work.
+ *
+ * Usage: java core.competition.GVGCoordinator [GVGExecutor parameters] [-port n] [-workers n]
+ *        [-jobTimeout ms]
+ * Workers: java core.competition.GVGWorker -host <coordinator host> -port n
+ */
+public class GVGCoordinator {
+
+    /**
+     * Port the coordinator listens on, number of local worker processes it starts (other
+     * workers can connect at any time), and maximum time to wait for the result of a job
+     * (0 for no limit).
+     */
+    public static int port = 8090;
+    public static int localWorkers = 0;
+    public static int jobTimeout = 0;
+
+    /**
+     * A game to play, sent to a worker.
+     */
+    public static class Job {
+        public int id;
+        public int game;
+        public String gameFile;
+        public String levelFile;
+        public int repetition;
+        public String agent;
+        public int seed;
+        public String actionFile;
+        public boolean stop;
+    }
+
+    /**
+     * Result of a job, sent back by the worker.
+     */
+    public static class Result {
+        public int id;
+        public double[] result;
+        public String line;
+        public long timeMs;
+    }
+
+    private final Gson gson = new Gson();
+    private final ArrayList<Job> jobs = new ArrayList<>();
+    private final ArrayDeque<Job> pending = new ArrayDeque<>();
+    private Result[] results;
+    private int completed;
+    private ResultsJournal journal;
+    private BufferedWriter[] resultWriters;
+    private ServerSocket serverSocket;
+    private final ArrayList<Process> processes = new ArrayList<>();
+    private int restarts;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        ArrayList<String> executorArgs = new ArrayList<>();
+        for(int i = 0; i + 1 < args.length; i += 2)
+        {
+            if(args[i].equalsIgnoreCase("-port"))
+                port = Integer.parseInt(args[i+1]);
+            else if(args[i].equalsIgnoreCase("-workers"))
+                localWorkers = Integer.parseInt(args[i+1]);
+            else if(args[i].equalsIgnoreCase("-jobTimeout"))
+                jobTimeout = Integer.parseInt(args[i+1]);
+            else {
+                executorArgs.add(args[i]);
+                executorArgs.add(args[i+1]);
+            }
+        }
+        if(!GVGExecutor.setUp(executorArgs.toArray(new String[0])))
+        {
+            System.out.println("\t-port Port to listen for workers on. [Default: 8090]");
+            System.out.println("\t-workers Number of local worker processes to start. [Default: 0]");
+            System.out.println("\t-jobTimeout Maximum time for a worker to play a game, in ms. [Default: 0, no limit]");
+            return;
+        }
+
+        new GVGCoordinator().run();
+    }
+
+    /**
+     * Creates the jobs, and serves them to the workers until all are completed.
+     */
+    public void run() throws IOException, InterruptedException
+    {
+        if(GVGExecutor.journalFile != null)
+            journal = new ResultsJournal(GVGExecutor.journalFile, GVGExecutor.resume);
+        createJobs();
+        results = new Result[jobs.size()];
+        resultWriters = new BufferedWriter[GVGExecutor.resultFiles.length];
+        for(int i = 0; i < resultWriters.length; ++i)
+            resultWriters[i] = new BufferedWriter(new FileWriter(GVGExecutor.resultFiles[i], GVGExecutor.resume));
+        System.out.println("Coordinator: " + pending.size() + " jobs to play, listening on port " + port);
+
+        serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptWorkers, "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for(int i = 0; i < localWorkers; ++i)
+            startLocalWorker(i);
+
+        synchronized (this) {
+            while(completed < jobs.size())
+                wait();
+        }
+
+        serverSocket.close();
+        for(Process p : processes)
+            if(!p.waitFor(10, TimeUnit.SECONDS))
+                p.destroy();
+        if(journal != null)
+            journal.close();
+        for(BufferedWriter writer : resultWriters)
+            writer.close();
+        System.out.println("Coordinator: results written to " + String.join(", ", GVGExecutor.resultFiles));
+    }
+
+    /**
+     * Creates a job for each repetition of each level, fixing its seed now so a job played
+     * again (by another worker) is the same game. Jobs already in the journal are skipped.
+     */
+    private void createJobs()
+    {
+        String agent = GVGExecutor.agent;
+        for(int i = 0; i < GVGExecutor.gameFiles.length; ++i)
+        {
+            for(int j = 0; j < GVGExecutor.levelFiles[i].size(); ++j)
+            {
+                for(int k = 0; k < GVGExecutor.repetitions; ++k)
+                {
+                    Job job = new Job();
+                    job.id = jobs.size();
+                    job.game = i;
+                    job.gameFile = GVGExecutor.gameFiles[i];
+                    job.levelFile = GVGExecutor.levelFiles[i].get(j);
+                    job.repetition = k;
+                    job.agent = agent;
+                    job.seed = GVGExecutor.seeds[i] == -1 ? new Random().nextInt() : GVGExecutor.seeds[i];
+                    if(GVGExecutor.saveActions)
+                        job.actionFile = "actions_game_" + i + "_level_" + j + "_" + k + ".txt";
+                    jobs.add(job);
+
+                    if(journal != null && journal.isDone(job.gameFile, job.levelFile, k, agent))
+                        completed++;
+                    else
+                        pending.add(job);
+                }
+            }
+        }
+    }
+
+    private void acceptWorkers()
+    {
+        int workerId = 0;
+        while(!serverSocket.isClosed())
+        {
+            try {
+                Socket socket = serverSocket.accept();
+                int id = workerId++;
+                Thread handler = new Thread(() -> serveWorker(socket, id), "coordinator-worker-" + id);
+                handler.setDaemon(true);
+                handler.start();
+            } catch(SocketException e) {
+                // Closed: all jobs completed.
+            } catch(IOException e) {
+                System.out.println("Coordinator: " + e);
+            }
+        }
+    }
+
+    /**
+     * Hands jobs to a worker, one at a time, until there are no jobs left or the worker is lost.
+     */
+    private void serveWorker(Socket socket, int workerId)
+    {
+        String name = "worker " + workerId + " (" + socket.getRemoteSocketAddress() + ")";
+        System.out.println("Coordinator: " + name + " connected");
+        Job job = null;
+        try {
+            socket.setSoTimeout(jobTimeout);
+            PrintStream out = new PrintStream(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            while((job = nextJob()) != null)
+            {
+                out.println(gson.toJson(job));
+                String line = in.readLine();
+                if(line == null)
+                    throw new IOException("connection closed");
+                complete(job, gson.fromJson(line, Result.class));
+                job = null;
+            }
+            Job stop = new Job();
+            stop.stop = true;
+            out.println(gson.toJson(stop));
+        } catch(Exception e) {
+            if(job != null)
+            {
+                System.out.println("Coordinator: lost " + name + " (" + e + "), re-dispatching job " + job.id);
+                requeue(job);
+            }
+        } finally {
+            try { socket.close(); } catch(IOException ignored) {}
+        }
+    }
+
+    /**
+     * Takes a pending job, waiting while other workers are still playing the last ones
+     * (they could be lost and their jobs re-dispatched).
+     * @return the job, or null if all jobs are completed.
+     */
+    private synchronized Job nextJob() throws InterruptedException
+    {
+        while(completed < jobs.size())
+        {
+            Job job = pending.poll();
+            if(job != null)
+                return job;
+            wait();
+        }
+        return null;
+    }
+
+    private synchronized void requeue(Job job)
+    {
+        if(results[job.id] == null)
+            pending.addFirst(job);
+        notifyAll();
+    }
+
+    private synchronized void complete(Job job, Result result)
+    {
+        if(results[job.id] != null)
+            return;
+        results[job.id] = result;
+        completed++;
+        if(journal != null)
+            journal.write(ResultsJournal.record(job.gameFile, job.levelFile, job.repetition, job.agent, job.seed,
+                    result.result, result.timeMs));
+        try {
+            BufferedWriter writer = resultWriters[resultWriters.length == 1 ? 0 : job.game];
+            writer.write(result.line + "\n");
+            writer.flush();
+        } catch(IOException e) {
+            System.out.println("Coordinator: can't write the result of job " + job.id + " (" + e + ")");
+        }
+        System.out.println("[" + completed + "/" + jobs.size() + "] " + result.line);
+        notifyAll();
+    }
+
+    /**
+     * Starts a worker JVM on this host, with the class path of the coordinator. Its output
+     * goes to logs/worker<n>.log. If it dies before all jobs are completed, it is started
+     * again (at most localWorkers times in total).
+     */
+    private void startLocalWorker(int n) throws IOException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                GVGWorker.class.getName(), "-host", "localhost", "-port", "" + port);
+        File log = new File("logs/worker" + n + ".log");
+        log.getParentFile().mkdirs();
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(log));
+        Process p = pb.start();
+        synchronized (this) {
+            processes.add(p);
+        }
+        p.onExit().thenRun(() -> {
+            synchronized (GVGCoordinator.this) {
+                if(completed >= jobs.size() || restarts >= localWorkers)
+                    return;
+                restarts++;
+            }
+            System.out.println("Coordinator: local worker " + n + " exited (" + p.exitValue() + "), restarting it");
+            try {
+                startLocalWorker(n);
+            } catch(IOException e) {
+                System.out.println("Coordinator: " + e);
+            }
+        });
+    }
+}
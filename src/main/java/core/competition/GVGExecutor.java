@@ -1,5 +1,7 @@
 package core.competition;
 
+import core.player.ActTelemetry;
+import tools.EarlyStopping;
 import tracks.ArcadeMachine;
 
 import java.io.BufferedWriter;
@@ -20,6 +22,8 @@ public class GVGExecutor {
     public static int[] seeds;
     public static boolean visibility;
     public static int repetitions;
+    public static String journalFile;
+    public static boolean resume;
 
     public static void printHelp()
     {
@@ -52,7 +56,18 @@ public class GVGExecutor {
         System.out.println("\t-rep Repetitions per level\n" +
                 "\t\t[Optional]\n" +
                 "\t\t[Default: 1 repetition.]\n" +
-                "\t\t[Ex: -rep 5]\n");
+                "\t\t[Ex: -rep 5]");
+        System.out.println("\t-adapt Stop repeating a level once its results are decided (see tools.EarlyStopping)\n" +
+                "\t\t[Optional]\n" +
+                "\t\t[Default: off. When on, -rep is the maximum number of repetitions.]\n" +
+                "\t\t[Ex: -adapt 1]");
+        System.out.println("\t-journal Journal file, where the result of each game is appended as soon as it finishes (JSON lines)\n" +
+                "\t\t[Optional]\n" +
+                "\t\t[Ex: -journal sweep.jsonl]");
+        System.out.println("\t-resume Resume from the journal, skipping the games already recorded in it\n" +
+                "\t\t[Optional]\n" +
+                "\t\t[Default: off. Requires -journal.]\n" +
+                "\t\t[Ex: -resume 1]\n");
         System.out.print("\tComplete example:\n" +
                 "\t\tjava GVGExecutor -g examples/gridphysics/aliens.txt:examples/gridphysics/sokoban.txt -l examples/gridphysics/aliens_lvl0.txt;examples/gridphysics/aliens_lvl1.txt:examples/gridphysics/sokoban_lvl0.txt;examples/gridphysics/sokoban_lvl1.txt;examples/gridphysics/sokoban_lvl2.txt -ag tracks.singlePlayer.deprecated.sampleMCTS.Agent -res output_game1.txt:output_game2.txt -seed 1342:3513 -vis 1 -rep 5");
 
@@ -100,14 +115,25 @@ public class GVGExecutor {
             visibility = Integer.parseInt(arg2) != 0;
         else if(arg1.equalsIgnoreCase("-rep"))
             repetitions = Integer.parseInt(arg2);
+        else if(arg1.equalsIgnoreCase("-adapt"))
+            CompetitionParameters.ADAPTIVE_RUNS = Integer.parseInt(arg2) != 0;
+        else if(arg1.equalsIgnoreCase("-journal"))
+            journalFile = arg2;
+        else if(arg1.equalsIgnoreCase("-resume"))
+            resume = Integer.parseInt(arg2) != 0;
     }
 
-    public static void main(String[] args)
+    /**
+     * Sets the parameters of the execution from the command line arguments, and checks them.
+     * @param args command line arguments.
+     * @return false if the arguments are not valid (and the help has been printed).
+     */
+    public static boolean setUp(String[] args)
     {
         if(args.length < 6 || (args.length % 2 != 0))
         {
             printHelp();
-            return;
+            return false;
         }
 
         //Some default values
@@ -137,8 +163,37 @@ public class GVGExecutor {
             resultFiles = new String[]{"output.txt"};
         }
 
+        if(resume && journalFile == null)
+            throw new RuntimeException("-resume requires a journal file (-journal).");
+        return true;
+    }
+
+    /**
+     * Formats the result of a game as a line of the results file: game, level, seed, the
+     * results returned by ArcadeMachine.runOneGame() and the act() latency of each player
+     * in that game (as key=value fields).
+     */
+    public static String resultLine(String game, String level, int seed, double[] result)
+    {
+        String line = game + " " + level + " " + seed + " ";
+        for (double d : result)
+            line += (d + " ");
+        if (ArcadeMachine.actTelemetry != null)
+            for (int p = 0; p < ArcadeMachine.actTelemetry.length; ++p)
+                if (ArcadeMachine.actTelemetry[p] != null)
+                    line += "player" + p + " " + ArcadeMachine.actTelemetry[p].toFields() + " ";
+        return line;
+    }
+
+    public static void main(String[] args)
+    {
+        if(!setUp(args))
+            return;
+        int num_games = gameFiles.length;
+
         try {
 
+            ResultsJournal journal = journalFile == null ? null : new ResultsJournal(journalFile, resume);
             BufferedWriter writer = null;
             //For each game:
             for (int i = 0; i < num_games; ++i) {
@@ -146,46 +201,74 @@ public class GVGExecutor {
                 String outputFile = resultFiles.length==1? resultFiles[0] : resultFiles[i];
 
                 if(resultFiles.length==1 && writer==null)
-                    writer = new BufferedWriter(new FileWriter(outputFile));
+                    writer = new BufferedWriter(new FileWriter(outputFile, resume));
                 else if(resultFiles.length > 1)
                 {
                     if(writer != null)
                         writer.close();
-                    writer = new BufferedWriter(new FileWriter(outputFile));
+                    writer = new BufferedWriter(new FileWriter(outputFile, resume));
                 }
 
 
                 String game = gameFiles[i];
                 int num_levels = levelFiles[i].size();
                 String[] levels = new String[num_levels];
+                ActTelemetry gameAct = new ActTelemetry();
+                int totalRuns = 0;
 
                 //For each level:
                 for (int j = 0; j < num_levels; ++j) {
                     levels[j] = levelFiles[i].get(j);
+                    EarlyStopping stopping = new EarlyStopping(agent.split(" ").length, repetitions);
 
-                    //For each repetition:
-                    for (int k = 0; k < repetitions; ++k) {
+                    //For each repetition (until decided, in adaptive mode):
+                    for (int k = 0; k < repetitions && !stopping.isDecided(); ++k) {
                         String actionFile = "actions_game_" + i + "_level_" + j + "_" + k + ".txt";
 
+                        //Skip the games already in the journal.
+                        ResultsJournal.Record done = journal == null ? null : journal.get(game, levels[j], k, agent);
+                        if(done != null)
+                        {
+                            stopping.add(done.toResult());
+                            continue;
+                        }
+
                         int seed = seeds[i];
                         if(seed == -1)
                             seed = new Random().nextInt();
 
                         //Play!
+                        long start = System.currentTimeMillis();
                         double[] result = ArcadeMachine.runOneGame(game, levels[j], visibility, agent,
                                 saveActions ? actionFile : null, seed, 0);
+                        if(journal != null)
+                            journal.write(ResultsJournal.record(game, levels[j], k, agent, seed, result,
+                                    System.currentTimeMillis() - start));
 
-                        String line = game + " " + levels[j] + " " + seed + " ";
-                        for (double d : result)
-                            line += (d + " ");
+                        String line = resultLine(game, levels[j], seed, result);
+                        if (ArcadeMachine.actTelemetry != null)
+                            for (ActTelemetry act : ArcadeMachine.actTelemetry)
+                                if (act != null)
+                                    gameAct.add(act);
                         writer.write(line + "\n");
+                        writer.flush();
                         System.out.println(line);
+                        stopping.add(result);
 
                     }
+                    totalRuns += stopping.runs();
+                    if (CompetitionParameters.ADAPTIVE_RUNS)
+                        System.out.println(stopping.report(levels[j]));
                 }
+                System.out.println("Agent " + agent + " in game " + game + ", " + gameAct);
+                if (CompetitionParameters.ADAPTIVE_RUNS)
+                    System.out.println("[EARLY STOP] " + game + ": played " + totalRuns + " of "
+                            + num_levels * repetitions + " runs");
             }
 
             writer.close();
+            if(journal != null)
+                journal.close();
 
         }catch(Exception e)
         {
@@ -0,0 +1,81 @@
+package core.competition;
+
+import com.google.gson.Gson;
+import tracks.ArcadeMachine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.Socket;
+
+/**
+ * Worker of a distributed evaluation (see GVGCoordinator). It connects to the coordinator,
+ * plays the jobs it is given one at a time, headless, and sends their results back, until
+ * the coordinator has no more work or closes the connection.
+ *
+ * Usage: java core.competition.GVGWorker [-host name] [-port n]
+ */
+public class GVGWorker {
+
+    /**
+     * Time to keep trying to connect while the coordinator is not listening yet, in ms.
+     */
+    private static final int CONNECT_TIMEOUT = 30000;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        String host = "localhost";
+        int port = GVGCoordinator.port;
+        for(int i = 0; i + 1 < args.length; i += 2)
+        {
+            if(args[i].equalsIgnoreCase("-host"))
+                host = args[i+1];
+            else if(args[i].equalsIgnoreCase("-port"))
+                port = Integer.parseInt(args[i+1]);
+        }
+
+        CompetitionParameters.HEADLESS = true;
+        Gson gson = new Gson();
+        try (Socket socket = connect(host, port)) {
+            PrintStream out = new PrintStream(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            String line;
+            while((line = in.readLine()) != null)
+            {
+                GVGCoordinator.Job job = gson.fromJson(line, GVGCoordinator.Job.class);
+                if(job.stop)
+                    break;
+
+                long start = System.currentTimeMillis();
+                double[] result = ArcadeMachine.runOneGame(job.gameFile, job.levelFile, false, job.agent,
+                        job.actionFile, job.seed, 0);
+
+                GVGCoordinator.Result res = new GVGCoordinator.Result();
+                res.id = job.id;
+                res.result = result;
+                res.timeMs = System.currentTimeMillis() - start;
+                res.line = GVGExecutor.resultLine(job.gameFile, job.levelFile, job.seed, result);
+                out.println(gson.toJson(res));
+                if(out.checkError())
+                    throw new IOException("Lost connection to the coordinator");
+            }
+        }
+    }
+
+    private static Socket connect(String host, int port) throws IOException, InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+        while(true)
+        {
+            try {
+                return new Socket(host, port);
+            } catch(ConnectException e) {
+                if(System.currentTimeMillis() > deadline)
+                    throw e;
+                Thread.sleep(500);
+            }
+        }
+    }
+}
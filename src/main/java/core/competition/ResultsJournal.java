@@ -0,0 +1,199 @@
+package core.competition;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import ontology.Types;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Append-only journal of the results of an evaluation, in JSON lines: one record per game,
+ * level and repetition, written and flushed as soon as the game finishes, so a long sweep
+ * that crashes loses at most the game being played. Used by ArcadeMachine.runGames() and
+ * GVGExecutor (-journal).
+ *
+ * When opened to resume, the records already in the file are loaded, and the sweep skips
+ * the games that have a record (see isDone()). A line left incomplete by a crash is ignored,
+ * so its game is played again. Workers running parts of a sweep in parallel should each
+ * write their own journal (shard), as records are not synchronized across processes.
+ *
+ * The first line of a journal holds a base seed, from which seed() derives the seed of each
+ * game, so a resumed sweep plays its remaining games with the seeds of the first run.
+ */
+public class ResultsJournal {
+
+    /**
+     * Result of a game in the journal.
+     */
+    public static class Record {
+        public String game;
+        public String level;
+        public int repetition;
+        public String agent;
+        public int seed;
+        /**
+         * Per player: victory (1 win, 0 loss), score and whether it was disqualified.
+         */
+        public double[] win;
+        public double[] score;
+        public boolean[] disqualified;
+        public int ticks;
+        public long timeMs;
+
+        /**
+         * Results in the format returned by ArcadeMachine.runOneGame(): victory, score and
+         * ticks of each player (victory as Types.WINNER keys).
+         */
+        public double[] toResult() {
+            double[] result = new double[win.length * 3];
+            for (int i = 0; i < win.length; i++) {
+                result[i * 3] = disqualified[i] ? Types.WINNER.PLAYER_DISQ.key() : win[i];
+                result[i * 3 + 1] = score[i];
+                result[i * 3 + 2] = ticks;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * First line of a journal.
+     */
+    private static class Header {
+        Long baseSeed;
+    }
+
+    private final Gson gson = new Gson();
+    private final HashMap<String, Record> done = new HashMap<>();
+    private final PrintWriter writer;
+    private Long baseSeed;
+
+    /**
+     * Opens a journal.
+     * @param filename journal file.
+     * @param resume true to load the records already in the file and append to it, false to
+     *               start a new journal (overwriting the file).
+     */
+    public ResultsJournal(String filename, boolean resume) throws IOException {
+        File file = new File(filename);
+        if (resume && file.exists()) {
+            try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isEmpty())
+                        continue;
+                    try {
+                        if (baseSeed == null && line.contains("\"baseSeed\"")) {
+                            baseSeed = gson.fromJson(line, Header.class).baseSeed;
+                            continue;
+                        }
+                        Record r = gson.fromJson(line, Record.class);
+                        if (r != null && r.win != null)
+                            done.put(key(r.game, r.level, r.repetition, r.agent), r);
+                    } catch (JsonParseException e) {
+                        // Incomplete record (the sweep crashed while writing it).
+                    }
+                }
+            }
+            System.out.println("Resuming from " + filename + ": " + done.size() + " games already played.");
+        }
+        writer = new PrintWriter(new FileWriter(file, resume));
+
+        // Terminate an incomplete last line, so the next record starts on its own line.
+        if (resume && file.length() > 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(file.length() - 1);
+                if (raf.read() != '\n') {
+                    writer.println();
+                    writer.flush();
+                }
+            }
+        }
+
+        // Journals written before base seeds were recorded get one now.
+        if (baseSeed == null) {
+            Header header = new Header();
+            header.baseSeed = new Random().nextLong();
+            writer.println(gson.toJson(header));
+            writer.flush();
+            baseSeed = header.baseSeed;
+        }
+    }
+
+    private static String key(String game, String level, int repetition, String agent) {
+        return game + "|" + level + "|" + repetition + "|" + agent;
+    }
+
+    /**
+     * Checks if a game has already been played (resuming).
+     */
+    public boolean isDone(String game, String level, int repetition, String agent) {
+        return done.containsKey(key(game, level, repetition, agent));
+    }
+
+    /**
+     * Returns the record of a game already played, or null.
+     */
+    public Record get(String game, String level, int repetition, String agent) {
+        return done.get(key(game, level, repetition, agent));
+    }
+
+    /**
+     * Returns the seed to play a game with: the one it was played with if it is in the
+     * journal, or else one derived from the base seed of the journal.
+     */
+    public int seed(String game, String level, int repetition, String agent) {
+        String key = key(game, level, repetition, agent);
+        Record r = done.get(key);
+        if (r != null)
+            return r.seed;
+        return new Random(baseSeed ^ key.hashCode()).nextInt();
+    }
+
+    /**
+     * Creates the record of a game from its results.
+     * @param result victory (as Types.WINNER keys), score and ticks of each player, as
+     *               returned by ArcadeMachine.runOneGame().
+     */
+    public static Record record(String game, String level, int repetition, String agent, int seed,
+                                double[] result, long timeMs) {
+        Record r = new Record();
+        r.game = game;
+        r.level = level;
+        r.repetition = repetition;
+        r.agent = agent;
+        r.seed = seed;
+        int players = result.length / 3;
+        r.win = new double[players];
+        r.score = new double[players];
+        r.disqualified = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            r.disqualified[i] = result[i * 3] == Types.WINNER.PLAYER_DISQ.key();
+            r.win[i] = result[i * 3] == Types.WINNER.PLAYER_WINS.key() ? 1 : 0;
+            r.score[i] = result[i * 3 + 1];
+        }
+        r.ticks = players > 0 ? (int) result[2] : 0;
+        r.timeMs = timeMs;
+        return r;
+    }
+
+    /**
+     * Appends a record to the journal, and flushes it to the file.
+     */
+    public synchronized void write(Record r) {
+        writer.println(gson.toJson(r));
+        writer.flush();
+        done.put(key(r.game, r.level, r.repetition, r.agent), r);
+    }
+
+    public synchronized void close() {
+        writer.close();
+    }
+}
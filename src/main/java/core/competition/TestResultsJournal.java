@@ -0,0 +1,93 @@
+package core.competition;
+
+import ontology.Types;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks that a journal written by a sweep is read back when the sweep is resumed.
+ */
+public class TestResultsJournal {
+
+    public static void main(String[] args) throws IOException {
+        recordsSurviveResume(tempFile());
+        incompleteLineIsPlayedAgain(tempFile());
+        resumedSweepKeepsItsSeeds(tempFile());
+        report("TestResultsJournal");
+    }
+
+    /**
+     * Creates an empty file for a journal, deleted when the test ends.
+     */
+    private static File tempFile() throws IOException {
+        File f = File.createTempFile("journal", ".jsonl");
+        f.deleteOnExit();
+        return f;
+    }
+
+    private static double[] result(double win0, double score0, double win1, double score1, int ticks) {
+        return new double[]{win0, score0, ticks, win1, score1, ticks};
+    }
+
+    private static void recordsSurviveResume(File file) throws IOException {
+        double[] first = result(Types.WINNER.PLAYER_WINS.key(), 12, Types.WINNER.PLAYER_DISQ.key(), -1000, 300);
+        double[] second = result(Types.WINNER.PLAYER_LOSES.key(), 3, Types.WINNER.PLAYER_WINS.key(), 7, 120);
+
+        ResultsJournal journal = new ResultsJournal(file.getPath(), false);
+        journal.write(ResultsJournal.record("g", "l0", 0, "a b", 11, first, 5));
+        journal.write(ResultsJournal.record("g", "l0", 1, "a b", 22, second, 6));
+        journal.close();
+
+        ResultsJournal resumed = new ResultsJournal(file.getPath(), true);
+        check("repetition 0 done", resumed.isDone("g", "l0", 0, "a b"));
+        check("repetition 1 done", resumed.isDone("g", "l0", 1, "a b"));
+        check("repetition 2 not done", !resumed.isDone("g", "l0", 2, "a b"));
+        check("level 1 not done", !resumed.isDone("g", "l1", 0, "a b"));
+
+        ResultsJournal.Record r = resumed.get("g", "l0", 0, "a b");
+        checkEquals("seed", 11, r.seed);
+        checkEquals("ticks", 300, r.ticks);
+        checkEquals("disqualified", new boolean[]{false, true}, r.disqualified);
+        checkEquals("first result", first, r.toResult());
+        checkEquals("second result", second, resumed.get("g", "l0", 1, "a b").toResult());
+        resumed.close();
+    }
+
+    private static void incompleteLineIsPlayedAgain(File file) throws IOException {
+        ResultsJournal journal = new ResultsJournal(file.getPath(), false);
+        journal.write(ResultsJournal.record("g", "l0", 0, "a", 1, result(1, 1, 0, 0, 10), 1));
+        journal.close();
+        try (FileWriter w = new FileWriter(file, true)) {
+            w.write("{\"game\":\"g\",\"level\":\"l0\",\"repetition\":1,\"ag");
+        }
+
+        ResultsJournal resumed = new ResultsJournal(file.getPath(), true);
+        check("complete line done", resumed.isDone("g", "l0", 0, "a"));
+        check("incomplete line not read", resumed.get("g", "l0", 1, "a") == null);
+        resumed.write(ResultsJournal.record("g", "l0", 1, "a", 2, result(0, 4, 0, 0, 20), 1));
+        resumed.close();
+
+        ResultsJournal again = new ResultsJournal(file.getPath(), true);
+        checkEquals("ticks played again", 20, again.get("g", "l0", 1, "a").ticks);
+        again.close();
+    }
+
+    private static void resumedSweepKeepsItsSeeds(File file) throws IOException {
+        ResultsJournal journal = new ResultsJournal(file.getPath(), false);
+        int played = journal.seed("g", "l0", 0, "a");
+        int pending = journal.seed("g", "l0", 1, "a");
+        journal.write(ResultsJournal.record("g", "l0", 0, "a", played, result(1, 1, 0, 0, 10), 1));
+        journal.close();
+
+        ResultsJournal resumed = new ResultsJournal(file.getPath(), true);
+        checkEquals("seed of a played game", played, resumed.seed("g", "l0", 0, "a"));
+        checkEquals("seed of a pending game", pending, resumed.seed("g", "l0", 1, "a"));
+        resumed.close();
+    }
+}
@@ -8,6 +8,7 @@ import core.vgdl.VGDLFactory;
 import core.vgdl.VGDLRegistry;
 import core.vgdl.VGDLSprite;
 import tools.IO;
+import tools.Utils;
 import tools.Vector2d;
 import tools.pathfinder.PathFinder;
 
@@ -168,13 +169,13 @@ public class BasicGame extends Game {
 						if (s.autotiling) {
 
 							ArrayList<Image> images = s.images.get("NONE");
-							if(!images.isEmpty())
+							if(images != null && !images.isEmpty())
 								s.image = images.get(similarTiles);
 						}
 						if (s.randomtiling >= 0) {
-							Random random = new Random(randomSeed);
+							Random random = Utils.createRandom(randomSeed);
 							ArrayList<Image> allImages = s.images.get("NONE");
-							if (random.nextDouble() > s.randomtiling && !allImages.isEmpty()) {
+							if (random.nextDouble() > s.randomtiling && allImages != null && !allImages.isEmpty()) {
 								s.image = allImages.get(random.nextInt(allImages.size()));
 							}
 						}
@@ -199,6 +200,10 @@ public class BasicGame extends Game {
 		// Nobody has been killed... yet!
 		kill_list = new ArrayList<>();
 
+		// Seed the game so the initial state observation is reproducible.
+		// The generator is created again when the game starts.
+		this.setRandomSeed(randomSeed);
+
 		// Generate the initial state observation.
 		this.createAvatars(-1);
 		this.initForwardModel();
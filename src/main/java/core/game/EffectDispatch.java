@@ -0,0 +1,196 @@
+package core.game;
+
+import ontology.effects.Effect;
+import tools.Pair;
+
+import java.util.ArrayList;
+
+/**
+ * Flat, precompiled form of the interaction set of a game. The editable structures
+ * of Game (definedEffects, collisionEffects, eosEffects, iSubTypes) remain the source
+ * of truth; this class compiles them into int and object arrays so that event handling
+ * iterates without allocating iterators, boxing sprite types or building Pair objects
+ * for shield look-ups.
+ *
+ * A dispatch object is shared between a game and all forward models created from it.
+ * The table is compiled once the game is parsed (see Game.compileEffectDispatch()), and
+ * must be invalidated whenever the interaction set or the sprite hierarchy changes; it is
+ * then compiled again on its next access.
+ */
+final class EffectDispatch {
+
+    /**
+     * Current compiled table, or null if it must be (re)compiled.
+     */
+    private volatile Table table;
+
+    /**
+     * Returns the compiled table for the game, compiling it if necessary.
+     *
+     * @param game game whose interaction set is compiled.
+     * @return the compiled table.
+     */
+    Table get(Game game) {
+        Table t = table;
+        if (t == null) {
+            t = new Table(game);
+            table = t;
+        }
+        return t;
+    }
+
+    /**
+     * Discards the compiled table. It will be rebuilt on the next access.
+     */
+    void invalidate() {
+        table = null;
+    }
+
+    /**
+     * Immutable snapshot of the interaction set of a game.
+     */
+    static final class Table {
+
+        /**
+         * For each sprite type, all the types in its hierarchy (itself and subtypes).
+         */
+        final int[][] subTypes;
+
+        /**
+         * Collision entries, in the same order as definedEffects x collisionEffects.
+         * Entry k applies effects[k] to sprites of type first[k] colliding with second[k].
+         */
+        final int[] first;
+        final int[] second;
+        final Effect[] effects;
+
+        /**
+         * Bit index, within the shield bitset of type first[k], that shields entry k.
+         */
+        final int[] shieldBit;
+
+        /**
+         * For each sprite type, the (second type, effect hash) keys that can be shielded.
+         * The position of a key in these arrays is its bit in the shield bitset.
+         */
+        final int[][] shieldKeyType;
+        final long[][] shieldKeyHash;
+
+        /**
+         * EOS entries, in the same order as definedEOSEffects x eosEffects.
+         */
+        final int[] eosType;
+        final Effect[] eosEffects;
+
+        Table(Game game) {
+            int numTypes = game.iSubTypes.length;
+
+            subTypes = new int[numTypes][];
+            for (int i = 0; i < numTypes; ++i) {
+                ArrayList<Integer> types = game.iSubTypes[i];
+                subTypes[i] = new int[types.size()];
+                for (int j = 0; j < subTypes[i].length; ++j)
+                    subTypes[i][j] = types.get(j);
+            }
+
+            // Collision entries and their shield keys.
+            ArrayList<Pair<Integer, Integer>> defined = game.definedEffects;
+            int numEntries = 0;
+            for (Pair<Integer, Integer> p : defined)
+                numEntries += game.collisionEffects[p.first][p.second].size();
+
+            first = new int[numEntries];
+            second = new int[numEntries];
+            effects = new Effect[numEntries];
+            shieldBit = new int[numEntries];
+
+            ArrayList<ArrayList<Integer>> keyTypes = new ArrayList<>(numTypes);
+            ArrayList<ArrayList<Long>> keyHashes = new ArrayList<>(numTypes);
+            for (int i = 0; i < numTypes; ++i) {
+                keyTypes.add(new ArrayList<>());
+                keyHashes.add(new ArrayList<>());
+            }
+            int k = 0;
+            for (Pair<Integer, Integer> p : defined) {
+                int t1 = p.first;
+                int t2 = p.second;
+                for (Effect ef : game.collisionEffects[t1][t2]) {
+                    first[k] = t1;
+                    second[k] = t2;
+                    effects[k] = ef;
+
+                    ArrayList<Integer> types = keyTypes.get(t1);
+                    ArrayList<Long> hashes = keyHashes.get(t1);
+                    int bit = -1;
+                    for (int b = 0; b < types.size(); ++b) {
+                        if (types.get(b) == t2 && hashes.get(b) == ef.hashCode) {
+                            bit = b;
+                            break;
+                        }
+                    }
+                    if (bit == -1) {
+                        bit = types.size();
+                        types.add(t2);
+                        hashes.add(ef.hashCode);
+                    }
+                    shieldBit[k] = bit;
+                    k++;
+                }
+            }
+
+            shieldKeyType = new int[numTypes][];
+            shieldKeyHash = new long[numTypes][];
+            for (int i = 0; i < numTypes; ++i) {
+                int n = keyTypes.get(i).size();
+                shieldKeyType[i] = new int[n];
+                shieldKeyHash[i] = new long[n];
+                for (int b = 0; b < n; ++b) {
+                    shieldKeyType[i][b] = keyTypes.get(i).get(b);
+                    shieldKeyHash[i][b] = keyHashes.get(i).get(b);
+                }
+            }
+
+            // EOS entries.
+            int numEos = 0;
+            for (Integer intId : game.definedEOSEffects)
+                numEos += game.eosEffects[intId].size();
+            eosType = new int[numEos];
+            eosEffects = new Effect[numEos];
+            k = 0;
+            for (Integer intId : game.definedEOSEffects) {
+                for (Effect ef : game.eosEffects[intId]) {
+                    eosType[k] = intId;
+                    eosEffects[k] = ef;
+                    k++;
+                }
+            }
+        }
+
+        /**
+         * Creates an empty shield state for this table: one bitset per sprite type,
+         * with one bit per shieldable (second type, effect) key of that type.
+         *
+         * @return the empty shield state.
+         */
+        long[][] newShieldState() {
+            long[][] shields = new long[shieldKeyType.length][];
+            for (int i = 0; i < shields.length; ++i)
+                shields[i] = new long[(shieldKeyType[i].length + 63) >>> 6];
+            return shields;
+        }
+
+        /**
+         * Returns the bit that shields sprites of type1 from the effect (type2, hash),
+         * or -1 if no such effect is defined.
+         */
+        int shieldBitOf(int type1, int type2, long hash) {
+            int[] types = shieldKeyType[type1];
+            long[] hashes = shieldKeyHash[type1];
+            for (int b = 0; b < types.length; ++b) {
+                if (types[b] == type2 && hashes[b] == hash)
+                    return b;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package core.game;
+
+import core.vgdl.VGDLRegistry;
+import ontology.effects.Effect;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time spent by a game in each phase of its cycle, collected when
+ * CompetitionParameters.ENGINE_METRICS is true. A game and all its forward models
+ * share the same metrics, but phases of the real game and of the forward models are
+ * counted separately. Event handling is also broken down per effect class (time
+ * executing effects) and per collision pair (time checking collisions between two
+ * sprite types, including the time of their effects).
+ *
+ * When metrics are disabled the engine doesn't create this object, and each phase
+ * only reads the flag. All times are in nanoseconds.
+ */
+public class EngineMetrics {
+
+    /**
+     * Sources of the measures: the real game or its forward models.
+     */
+    public static final int GAME = 0;
+    public static final int FORWARD_MODEL = 1;
+    private static final String[] SOURCE_NAMES = {"game", "forwardModel"};
+
+    /**
+     * Phases of a game cycle (see Game.gameCycle() and ForwardModel.advance()).
+     * TERMINATION includes the time out check, and OBSERVATIONS the update of the
+     * forward model (in the real game) or of the observations (in forward models).
+     * The TICK of the real game includes the time the controllers take to act.
+     */
+    public static final int TICK = 0;
+    public static final int EVENTS = 1;
+    public static final int CLEAR = 2;
+    public static final int TERMINATION = 3;
+    public static final int OBSERVATIONS = 4;
+    private static final String[] PHASE_NAMES = {"tick", "eventHandling", "clearAll", "terminationHandling",
+            "updateObservations"};
+
+    private final long[][] calls = new long[SOURCE_NAMES.length][PHASE_NAMES.length];
+    private final long[][] nanos = new long[SOURCE_NAMES.length][PHASE_NAMES.length];
+
+    /**
+     * Executions and time of effects, by effect class.
+     */
+    private final IdentityHashMap<Class<?>, long[]> effects = new IdentityHashMap<>();
+
+    /**
+     * Collision checks, by effect of the interaction set.
+     */
+    private final IdentityHashMap<Effect, Pair> pairs = new IdentityHashMap<>();
+
+    /**
+     * Statistics of the collision checks of one entry of the interaction set.
+     */
+    private static class Pair {
+        final String name;
+        long calls, checks, nanos;
+
+        Pair(int first, int second, Effect ef) {
+            VGDLRegistry registry = VGDLRegistry.GetInstance();
+            name = registry.getRegisteredSpriteKey(first) + " " + registry.getRegisteredSpriteKey(second)
+                    + " > " + ef.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Records the end of a phase.
+     *
+     * @param source GAME or FORWARD_MODEL.
+     * @param phase  phase that ended.
+     * @param start  value of System.nanoTime() when the phase started.
+     * @return value of System.nanoTime() now, to use as start of the next phase.
+     */
+    public long phase(int source, int phase, long start) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            calls[source][phase]++;
+            nanos[source][phase] += now - start;
+        }
+        return now;
+    }
+
+    /**
+     * Records the execution of an effect.
+     *
+     * @param ef         effect executed.
+     * @param executions number of times it was applied.
+     * @param time       time taken.
+     */
+    synchronized void effect(Effect ef, int executions, long time) {
+        long[] stats = effects.computeIfAbsent(ef.getClass(), k -> new long[2]);
+        stats[0] += executions;
+        stats[1] += time;
+    }
+
+    /**
+     * Records the collision checks of an entry of the interaction set.
+     *
+     * @param ef     effect of the entry.
+     * @param first  first sprite type.
+     * @param second second sprite type.
+     * @param checks number of sprite pairs checked.
+     * @param time   time taken, including the effects executed.
+     */
+    synchronized void pair(Effect ef, int first, int second, int checks, long time) {
+        Pair p = pairs.get(ef);
+        if (p == null) {
+            p = new Pair(first, second, ef);
+            pairs.put(ef, p);
+        }
+        p.calls++;
+        p.checks += checks;
+        p.nanos += time;
+    }
+
+    public synchronized long getCalls(int source, int phase) {
+        return calls[source][phase];
+    }
+
+    public synchronized long getNanos(int source, int phase) {
+        return nanos[source][phase];
+    }
+
+    /**
+     * Returns all the measures in CSV format, one per line, with the columns
+     * kind (phase, effect or pair), source, name, calls, nanos and checks.
+     *
+     * @return the measures.
+     */
+    public synchronized String toCSV() {
+        StringBuilder sb = new StringBuilder("kind,source,name,calls,nanos,checks\n");
+        for (int s = 0; s < SOURCE_NAMES.length; s++)
+            for (int p = 0; p < PHASE_NAMES.length; p++)
+                sb.append("phase,").append(SOURCE_NAMES[s]).append(',').append(PHASE_NAMES[p]).append(',')
+                        .append(calls[s][p]).append(',').append(nanos[s][p]).append(",\n");
+        for (Map.Entry<Class<?>, long[]> e : effects.entrySet())
+            sb.append("effect,,").append(e.getKey().getSimpleName()).append(',')
+                    .append(e.getValue()[0]).append(',').append(e.getValue()[1]).append(",\n");
+        for (Pair p : sortedPairs())
+            sb.append("pair,,").append(p.name).append(',').append(p.calls).append(',')
+                    .append(p.nanos).append(',').append(p.checks).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Appends the measures to a CSV file (see toCSV()), with a first column naming the
+     * game they belong to. The header is written only if the file is empty.
+     *
+     * @param filename file to append to.
+     * @param game     name of the game (and level) measured.
+     * @throws IOException if the file can't be written.
+     */
+    public synchronized void appendCSV(String filename, String game) throws IOException {
+        boolean header = new File(filename).length() == 0;
+        String[] lines = toCSV().split("\n");
+        try (Writer w = new FileWriter(filename, true)) {
+            if (header)
+                w.write("game," + lines[0] + "\n");
+            for (int i = 1; i < lines.length; i++)
+                w.write(game + "," + lines[i] + "\n");
+        }
+    }
+
+    private ArrayList<Pair> sortedPairs() {
+        ArrayList<Pair> sorted = new ArrayList<>(pairs.values());
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        return sorted;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Engine metrics (calls, ms):\n");
+        for (int s = 0; s < SOURCE_NAMES.length; s++) {
+            sb.append(String.format(Locale.US, "  %-13s", SOURCE_NAMES[s]));
+            for (int p = 0; p < PHASE_NAMES.length; p++)
+                sb.append(String.format(Locale.US, " %s: %d, %.2f;", PHASE_NAMES[p], calls[s][p], nanos[s][p] / 1e6));
+            sb.append('\n');
+        }
+
+        ArrayList<Map.Entry<Class<?>, long[]>> sortedEffects = new ArrayList<>(effects.entrySet());
+        sortedEffects.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        for (Map.Entry<Class<?>, long[]> e : sortedEffects)
+            sb.append(String.format(Locale.US, "  effect %-30s %10d, %10.2f\n", e.getKey().getSimpleName(),
+                    e.getValue()[0], e.getValue()[1] / 1e6));
+        for (Pair p : sortedPairs())
+            sb.append(String.format(Locale.US, "  pair   %-50s %10d, %10.2f (%d checks)\n", p.name, p.calls,
+                    p.nanos / 1e6, p.checks));
+        return sb.toString();
+    }
+}
@@ -1,16 +1,20 @@
 package core.game;
 
+import core.competition.CompetitionParameters;
 import core.vgdl.SpriteGroup;
 import core.vgdl.VGDLSprite;
 import ontology.Types;
 import ontology.avatar.MovingAvatar;
+import ontology.effects.Effect;
 import ontology.effects.TimeEffect;
 import tools.KeyHandler;
-import tools.Pair;
+import tools.KeyInput;
+import tools.Utils;
 import tools.Vector2d;
 
 import java.awt.*;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Created with IntelliJ IDEA.
@@ -27,6 +31,13 @@ public class ForwardModel extends Game {
     int playerID;
 
 
+    /**
+     * Number of calls to advance() (on a state not ended) and copy() on all forward
+     * models, for throughput statistics (if CompetitionParameters.COUNT_FORWARD_MODEL).
+     */
+    private static final LongAdder advanceCount = new LongAdder();
+    private static final LongAdder copyCount = new LongAdder();
+
     /**
      * Private sampleRandom generator. Rolling the state forward from this state
      * observation will use this sampleRandom generator, different from the one
@@ -111,7 +122,7 @@ public class ForwardModel extends Game {
         initNonVolatile(a_gameState);
 
         //Init those variables that take a determined value at the beginning of a game.
-        init();
+        init(a_gameState.getRandomGenerator());
     }
 
 
@@ -127,7 +138,6 @@ public class ForwardModel extends Game {
         kill_list = new ArrayList<>();
         bucketList = new Bucket[numSpriteTypes];
         historicEvents = new TreeSet<>();
-        shieldedEffects = new ArrayList[numSpriteTypes];
 
         //Copy of sprites from the game.
         spriteGroups = new SpriteGroup[numSpriteTypes];
@@ -165,11 +175,17 @@ public class ForwardModel extends Game {
 
             int nSprites = spriteGroups[i].numSprites();
             num_sprites += nSprites;
+        }
 
-            //copy the shields
-            shieldedEffects[i] = new ArrayList<>();
-            for (Pair p : a_gameState.shieldedEffects[i])
-                shieldedEffects[i].add(p.copy());
+        //copy the shields
+        shieldTable = a_gameState.shieldTable;
+        anyShield = a_gameState.anyShield;
+        if (a_gameState.shieldedEffects == null) {
+            shieldedEffects = null;
+        } else {
+            shieldedEffects = new long[numSpriteTypes][];
+            for (int i = 0; i < numSpriteTypes; ++i)
+                shieldedEffects[i] = a_gameState.shieldedEffects[i].clone();
         }
 
         //events:
@@ -417,13 +433,57 @@ public class ForwardModel extends Game {
     /**
      * Initializes the variables of this game that have always a determined value at the beginning
      * of any game.
+     *
+     * @param parentRandom random generator of the game this is a copy of (may be null).
      */
-    private void init() {
-        this.randomObs = new Random();
+    private void init(Random parentRandom) {
+        this.randomObs = Utils.splitRandom(parentRandom);
         this.gameTick = 0;
         this.isEnded = false;
     }
 
+    /**
+     * Stops sharing with the game this model was created from the objects that change when
+     * a game is advanced: the effects, which change while executed (see Effect.copyForGame()),
+     * and the key handlers of the avatars, where the actions to
+     * apply are set. Models copied from this one share the new ones, but can be advanced in a
+     * different thread than the game and the models copied from it.
+     */
+    @SuppressWarnings("unchecked")
+    void detach() {
+        int numTypes = collisionEffects.length;
+        IdentityHashMap<Effect, Effect> effectCopies = new IdentityHashMap<>();
+        ArrayList<Effect>[][] collisions = (ArrayList<Effect>[][]) new ArrayList<?>[numTypes][numTypes];
+        ArrayList<Effect>[] eos = (ArrayList<Effect>[]) new ArrayList<?>[eosEffects.length];
+        for (int j = 0; j < numTypes; ++j) {
+            for (int k = 0; k < numTypes; ++k) {
+                collisions[j][k] = new ArrayList<>(collisionEffects[j][k].size());
+                for (Effect ef : collisionEffects[j][k])
+                    collisions[j][k].add(effectCopies.computeIfAbsent(ef, Effect::copyForGame));
+            }
+        }
+        for (int j = 0; j < eos.length; ++j) {
+            eos[j] = new ArrayList<>(eosEffects[j].size());
+            for (Effect ef : eosEffects[j])
+                eos[j].add(effectCopies.computeIfAbsent(ef, Effect::copyForGame));
+        }
+        collisionEffects = collisions;
+        eosEffects = eos;
+
+        // Time effects are copied with the model, but not the effects they execute.
+        for (TimeEffect tef : timeEffects)
+            if (tef.delegate != null)
+                tef.delegate = effectCopies.computeIfAbsent(tef.delegate, Effect::copyForGame);
+
+        // The dispatch table refers to the effects: compile a new one.
+        effectDispatch = new EffectDispatch();
+        compileEffectDispatch();
+
+        for (MovingAvatar avatar : avatars)
+            if (avatar != null)
+                avatar.setKeyHandler(new KeyInput());
+    }
+
     /**
      * Initializes the non volatile elements of a game (constructors, termination conditions,
      * effects, etc). 'this' takes these from a_gameState,
@@ -443,6 +503,8 @@ public class ForwardModel extends Game {
         this.eosEffects = a_gameState.eosEffects;
         this.definedEOSEffects = a_gameState.definedEOSEffects;
         this.iSubTypes = a_gameState.iSubTypes;
+        this.effectDispatch = a_gameState.effectDispatch;
+        this.metrics = CompetitionParameters.ENGINE_METRICS ? a_gameState.getMetrics() : a_gameState.metrics;
         this.charMapping = a_gameState.charMapping;
         this.terminations = a_gameState.terminations;
         this.resources_limits = a_gameState.resources_limits;
@@ -501,7 +563,26 @@ public class ForwardModel extends Game {
      * @param seed the new seed.
      */
     public void setNewSeed(int seed) {
-        randomObs = new Random(seed);
+        randomObs = Utils.createRandom(seed);
+    }
+
+    /**
+     * Returns a copy of the random generator of this forward model, in its current state.
+     *
+     * @return the copy.
+     */
+    public Random copyRandomGenerator() {
+        return Utils.copyRandom(randomObs);
+    }
+
+    /**
+     * Sets the state of the random generator of this forward model (a copy of the one given
+     * is used, so it can be set again later).
+     *
+     * @param random generator to take the state from, as returned by copyRandomGenerator().
+     */
+    public void setRandomGenerator(Random random) {
+        randomObs = Utils.copyRandom(random);
     }
 
 
@@ -565,12 +646,16 @@ public class ForwardModel extends Game {
      */
     final public void advance(Types.ACTIONS action) {
         if (!isEnded) {
+            if (CompetitionParameters.COUNT_FORWARD_MODEL) advanceCount.increment();
+            EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? getMetrics() : null;
+            long t = (m == null) ? 0 : System.nanoTime();
             //apply player action
             updateAvatars(action, 0);
             //update all the other sprites
             tick();
+            if (m != null) t = m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.TICK, t);
             //update game state
-            advance_aux();
+            advance_aux(m, t);
         }
     }
 
@@ -583,6 +668,9 @@ public class ForwardModel extends Game {
     final public void advance(Types.ACTIONS[] actions) {
 
         if (!isEnded) {
+            if (CompetitionParameters.COUNT_FORWARD_MODEL) advanceCount.increment();
+            EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? getMetrics() : null;
+            long t = (m == null) ? 0 : System.nanoTime();
             //apply actions of all players
             for (int i = 0; i < actions.length; i++) {
                 Types.ACTIONS a = actions[i]; // action
@@ -590,21 +678,29 @@ public class ForwardModel extends Game {
             }
             //update all other sprites in the game
             tick();
+            if (m != null) t = m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.TICK, t);
             //update game state
-            advance_aux();
+            advance_aux(m, t);
         }
         //System.out.println(isMultiGameOver());
     }
 
     /**
      * Auxiliary method for advance methods, to avoid code duplication.
+     *
+     * @param m metrics to record the time of each phase in (null if disabled).
+     * @param t value of System.nanoTime() at the end of the previous phase.
      */
-    private void advance_aux() {
+    private void advance_aux(EngineMetrics m, long t) {
         eventHandling();
+        if (m != null) t = m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.EVENTS, t);
         clearAll(this);
+        if (m != null) t = m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.CLEAR, t);
         terminationHandling();
         checkTimeOut();
+        if (m != null) t = m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.TERMINATION, t);
         updateAllObservations();
+        if (m != null) m.phase(EngineMetrics.FORWARD_MODEL, EngineMetrics.OBSERVATIONS, t);
         gameTick++;
     }
 
@@ -632,11 +728,32 @@ public class ForwardModel extends Game {
      * @return the copy of this forward model.
      */
     final public ForwardModel copy() {
+        if (CompetitionParameters.COUNT_FORWARD_MODEL) copyCount.increment();
         ForwardModel copyObs = new ForwardModel(this, this.playerID);
         copyObs.update(this);
         return copyObs;
     }
 
+    /**
+     * Returns the number of steps advanced by all forward models since the program started,
+     * while CompetitionParameters.COUNT_FORWARD_MODEL was true.
+     *
+     * @return number of calls to advance() on states that were not ended.
+     */
+    public static long getAdvanceCount() {
+        return advanceCount.sum();
+    }
+
+    /**
+     * Returns the number of forward models copied since the program started, while
+     * CompetitionParameters.COUNT_FORWARD_MODEL was true.
+     *
+     * @return number of calls to copy().
+     */
+    public static long getCopyCount() {
+        return copyCount.sum();
+    }
+
     /**
      * Gets the game score of this state.
      *
@@ -977,15 +1094,12 @@ public class ForwardModel extends Game {
      */
     @SuppressWarnings("unchecked")
     private ArrayList<Observation>[] getPositionsFrom(boolean[] groupArray, Vector2d refPosition) {
+        checkUnknownTypes();
+
         //First, get how many types we have. Need to consider hidden sprites out.
         int numDiffTypes = 0;
-        for (int i = 0; i < groupArray.length; ++i) {
-            //There is a sprite type we don't know anything about. Need to check.
-            if (!unknownList[i] && spriteGroups[i].getFirstSprite() != null)
-                checkSpriteFeatures(spriteGroups[i].getFirstSprite(), i);
-
+        for (int i = 0; i < groupArray.length; ++i)
             if (groupArray[i] && visibleList[playerID][i]) numDiffTypes++;
-        }
 
         if (numDiffTypes == 0)
             return null; //Wait, no types? no sprites of this group then.
@@ -1022,6 +1136,200 @@ public class ForwardModel extends Game {
         return observations;
     }
 
+    /**
+     * Categorizes the sprite types that have sprites but we don't know anything about yet.
+     */
+    private void checkUnknownTypes() {
+        for (int i = 0; i < spriteGroups.length; ++i)
+            if (!unknownList[i] && spriteGroups[i].getFirstSprite() != null)
+                checkSpriteFeatures(spriteGroups[i].getFirstSprite(), i);
+    }
+
+    /**
+     * Returns the boolean map of the sprite types of a category.
+     *
+     * @param category one of the Types.TYPE_* categories.
+     * @return the map, indexed by sprite type.
+     */
+    private boolean[] getCategoryTypes(int category) {
+        return switch (category) {
+            case Types.TYPE_AVATAR -> playerList;
+            case Types.TYPE_RESOURCE -> resList;
+            case Types.TYPE_PORTAL -> portalList;
+            case Types.TYPE_NPC -> npcList;
+            case Types.TYPE_STATIC -> immList;
+            case Types.TYPE_FROMAVATAR -> fromAvatar;
+            case Types.TYPE_MOVABLE -> movList;
+            default -> throw new IllegalArgumentException("Unknown sprite category " + category);
+        };
+    }
+
+    /**
+     * Returns the number of sprites of a category (hidden sprites are not counted).
+     *
+     * @param category one of the Types.TYPE_* categories.
+     * @return the number of sprites.
+     */
+    public int getNumCategorySprites(int category) {
+        checkUnknownTypes();
+        boolean[] types = getCategoryTypes(category);
+        int n = 0;
+        for (int i = 0; i < types.length; ++i)
+            if (types[i] && visibleList[playerID][i])
+                n += spriteGroups[i].numSprites();
+        return n;
+    }
+
+    /**
+     * Finds the observations of a category closest to a position, searching the observation
+     * grid in rings of cells around it, so only the cells that can hold closer sprites than the
+     * ones already found are visited. Hidden sprites and sprites out of the level are not found.
+     * The reference and sqDist fields of the observations found are set.
+     *
+     * @param category  one of the Types.TYPE_* categories.
+     * @param reference position to measure distances from.
+     * @param result    buffer where the observations found are placed, in ascending order of
+     *                  distance. Its length is the number of observations to find.
+     * @return the number of observations found (less than result.length if there are not enough).
+     */
+    public int getNearest(int category, Vector2d reference, Observation[] result) {
+        return nearest(getCategoryTypes(category), -1, reference, result, getNumCategorySprites(category));
+    }
+
+    /**
+     * Finds the observations of a sprite type closest to a position (see getNearest()).
+     *
+     * @param itype     sprite type.
+     * @param reference position to measure distances from.
+     * @param result    buffer where the observations found are placed, in ascending order of distance.
+     * @return the number of observations found.
+     */
+    public int getNearestOfType(int itype, Vector2d reference, Observation[] result) {
+        checkUnknownTypes();
+        int total = visibleList[playerID][itype] ? spriteGroups[itype].numSprites() : 0;
+        return nearest(null, itype, reference, result, total);
+    }
+
+    /**
+     * Finds all the observations of a category within a distance of a position, visiting only
+     * the cells of the observation grid that overlap the circle. Hidden sprites and sprites
+     * out of the level are not found. The reference and sqDist fields of the observations found
+     * are set.
+     *
+     * @param category  one of the Types.TYPE_* categories.
+     * @param reference centre of the circle.
+     * @param radius    radius of the circle, in pixels.
+     * @param result    list where the observations found are placed (cleared first), in no
+     *                  particular order.
+     * @return the number of observations found.
+     */
+    public int getWithinRadius(int category, Vector2d reference, double radius, ArrayList<Observation> result) {
+        checkUnknownTypes();
+        boolean[] types = getCategoryTypes(category);
+        result.clear();
+        int w = observationGrid.length, h = observationGrid[0].length;
+        int x0 = Math.max(0, (int) Math.floor((reference.x - radius) / block_size));
+        int x1 = Math.min(w - 1, (int) Math.floor((reference.x + radius) / block_size));
+        int y0 = Math.max(0, (int) Math.floor((reference.y - radius) / block_size));
+        int y1 = Math.min(h - 1, (int) Math.floor((reference.y + radius) / block_size));
+        double sqRadius = radius * radius;
+
+        for (int x = x0; x <= x1; ++x)
+            for (int y = y0; y <= y1; ++y)
+                for (Observation obs : observationGrid[x][y]) {
+                    if (!isAnchoredAt(obs, x, y) || !matches(obs, types, -1))
+                        continue;
+                    double sqDist = obs.position.sqDist(reference);
+                    if (sqDist <= sqRadius) {
+                        obs.reference = reference;
+                        obs.sqDist = sqDist;
+                        result.add(obs);
+                    }
+                }
+        return result.size();
+    }
+
+    /**
+     * k-nearest search for getNearest() and getNearestOfType(): observations of the types
+     * in the map (if not null) or of the given sprite type. The search ends early when the
+     * total number of sprites that can match has been found.
+     */
+    private int nearest(boolean[] types, int itype, Vector2d reference, Observation[] result, int total) {
+        int k = result.length;
+        if (k == 0 || total == 0)
+            return 0;
+        int w = observationGrid.length, h = observationGrid[0].length;
+        int cx = Math.max(0, Math.min(w - 1, (int) Math.floor(reference.x / block_size)));
+        int cy = Math.max(0, Math.min(h - 1, (int) Math.floor(reference.y / block_size)));
+
+        //Distance from the reference to the cell the search starts from (not 0 if it is out of the level).
+        double ox = Math.max(0, Math.max(cx * block_size - reference.x, reference.x - (cx + 1) * block_size));
+        double oy = Math.max(0, Math.max(cy * block_size - reference.y, reference.y - (cy + 1) * block_size));
+        double offset = Math.sqrt(ox * ox + oy * oy);
+
+        int found = 0;
+        int maxRing = Math.max(Math.max(cx, w - 1 - cx), Math.max(cy, h - 1 - cy));
+        for (int r = 0; r <= maxRing; ++r) {
+            //Sprites in ring r are at least r-1 cells away from the starting cell (r-2, as sprites
+            //slightly out of the level, at negative coordinates, are in the cells of the border).
+            if (found == total)
+                break;
+            if (found == k) {
+                double bound = (r - 2) * block_size - offset;
+                if (bound > 0 && bound * bound >= result[k - 1].sqDist)
+                    break;
+            }
+            for (int x = Math.max(0, cx - r); x <= Math.min(w - 1, cx + r); ++x) {
+                boolean side = x == cx - r || x == cx + r;
+                int step = side ? 1 : 2 * r;
+                for (int y = cy - r; y <= cy + r; y += step)
+                    if (y >= 0 && y < h)
+                        found = collectNearest(observationGrid[x][y], x, y, types, itype, reference, result, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inserts the matching observations of a cell in the (sorted) result buffer of a k-nearest search.
+     *
+     * @return the number of observations in the buffer.
+     */
+    private int collectNearest(ArrayList<Observation> cell, int x, int y, boolean[] types, int itype,
+                               Vector2d reference, Observation[] result, int found) {
+        int k = result.length;
+        for (Observation obs : cell) {
+            if (!isAnchoredAt(obs, x, y) || !matches(obs, types, itype))
+                continue;
+            double sqDist = obs.position.sqDist(reference);
+            if (found == k && sqDist >= result[k - 1].sqDist)
+                continue;
+            obs.reference = reference;
+            obs.sqDist = sqDist;
+            int i = found < k ? found++ : k - 1;
+            while (i > 0 && result[i - 1].sqDist > sqDist) {
+                result[i] = result[i - 1];
+                i--;
+            }
+            result[i] = obs;
+        }
+        return found;
+    }
+
+    /**
+     * Checks if a cell of the observation grid is the one an observation was added to by its
+     * position (it is also in the cells it overlaps), so each one is considered only once.
+     */
+    private boolean isAnchoredAt(Observation obs, int x, int y) {
+        return (int) obs.position.x / block_size == x && (int) obs.position.y / block_size == y;
+    }
+
+    private boolean matches(Observation obs, boolean[] types, int itype) {
+        if (!visibleList[playerID][obs.itype])
+            return false;
+        return types != null ? types[obs.itype] : obs.itype == itype;
+    }
+
     /**
      * Returns a grid with all observations in the level.
      *
@@ -1031,6 +1339,54 @@ public class ForwardModel extends Game {
         return observationGrid;
     }
 
+    /**
+     * Counts the sprites visible to the player in a symbolic tensor (see ObservationTensor),
+     * reading them straight from the sprite groups. Each sprite adds one to the cell of the
+     * block its top-left corner is in, in the channel of its type or of its category.
+     * Sprites out of the level are not counted.
+     *
+     * @param data       tensor, channel by channel and row by row, cleared by the caller.
+     * @param byCategory true for a channel per category (Types.TYPE_*), false for one per type.
+     * @param width      width of the tensor, in blocks.
+     * @param height     height of the tensor, in blocks.
+     */
+    void countSprites(int[] data, boolean byCategory, int width, int height) {
+        checkUnknownTypes();
+        int plane = width * height;
+        for (int itype = 0; itype < spriteGroups.length; ++itype) {
+            if (!visibleList[playerID][itype])
+                continue;
+            Iterator<VGDLSprite> spriteIt = spriteGroups[itype].getSpriteIterator();
+            if (spriteIt != null) while (spriteIt.hasNext()) {
+                VGDLSprite sp = spriteIt.next();
+                int x = Math.floorDiv(sp.rect.x, block_size), y = Math.floorDiv(sp.rect.y, block_size);
+                if (x < 0 || x >= width || y < 0 || y >= height)
+                    continue;
+                int channel = byCategory ? getSpriteCategory(sp) : itype;
+                data[channel * plane + y * width + x]++;
+            }
+        }
+    }
+
+    /**
+     * Lists the sprites visible to the player in the frame being made by an incremental
+     * observation (see ObservationDelta), reading them straight from the sprite groups.
+     *
+     * @param delta incremental observation making the frame.
+     */
+    void listSprites(ObservationDelta delta) {
+        checkUnknownTypes();
+        for (int itype = 0; itype < spriteGroups.length; ++itype) {
+            if (!visibleList[playerID][itype])
+                continue;
+            Iterator<VGDLSprite> spriteIt = spriteGroups[itype].getSpriteIterator();
+            if (spriteIt != null) while (spriteIt.hasNext()) {
+                VGDLSprite sp = spriteIt.next();
+                delta.addSprite(sp.spriteID, itype, getSpriteCategory(sp), sp.rect.x, sp.rect.y);
+            }
+        }
+    }
+
     /**
      * Returns the list of historic events happened in this game so far.
      *
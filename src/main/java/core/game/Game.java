@@ -25,6 +25,11 @@ import tools.pathfinder.PathFinder;
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created with IntelliJ IDEA. User: Diego Date: 17/10/13 Time: 13:42 This is a
@@ -114,10 +119,45 @@ public abstract class Game {
 	protected ArrayList<Integer>[] iSubTypes;
 
 	/**
-	 * For each entry, int identifier of sprite type, a list with all the itypes
-	 * this sprite belongs to.
+	 * For each entry, int identifier of sprite type, a bitset with the effects
+	 * this sprite type is shielded from in the current step. Bits are indexed
+	 * as in the compiled effect dispatch table (see shieldTable).
+	 */
+	protected long[][] shieldedEffects;
+
+	/**
+	 * Dispatch table the current shield bitsets were created for.
+	 */
+	protected EffectDispatch.Table shieldTable;
+
+	/**
+	 * Indicates if any shield has been raised since the last reset.
 	 */
-	protected ArrayList<Pair<Integer, Long>>[] shieldedEffects;
+	protected boolean anyShield;
+
+	/**
+	 * Compiled interaction set, shared with all forward models of this game.
+	 */
+	protected EffectDispatch effectDispatch;
+
+	/**
+	 * Time spent in each phase of the game (only when
+	 * CompetitionParameters.ENGINE_METRICS is true), shared with all forward
+	 * models of this game.
+	 */
+	protected EngineMetrics metrics;
+
+	/**
+	 * Reusable buffers for collision checks in eventHandling().
+	 */
+	private final ArrayList<VGDLSprite> firstBuffer = new ArrayList<>();
+	private final ArrayList<VGDLSprite> secondBuffer = new ArrayList<>();
+	private final ArrayList<VGDLSprite> collidingBuffer = new ArrayList<>();
+
+	/**
+	 * Screen rectangle, used to check for sprites at the edge of the screen.
+	 */
+	private Rectangle screenRect;
 
 	/**
 	 * Arraylist to hold collisions between objects in every frame
@@ -255,6 +295,12 @@ public abstract class Game {
 
 	public static KeyHandler ki;
 
+	/**
+	 * Threads to call the controllers of the players at the same time (see
+	 * actExecutor()).
+	 */
+	private static ExecutorService actExecutor;
+
 	/**
 	 * Default constructor.
 	 */
@@ -266,6 +312,7 @@ public abstract class Game {
 		terminations = new ArrayList<>();
 		historicEvents = new TreeSet<>();
 		timeEffects = new TreeSet<>();
+		effectDispatch = new EffectDispatch();
 
 		// Game attributes:
 		size = new Dimension();
@@ -385,7 +432,6 @@ public abstract class Game {
 		// Structures to hold game sprites, as many as number of sprite types,
 		// so they are accessed by its id:
 		spriteGroups = new SpriteGroup[classConst.length];
-		shieldedEffects = new ArrayList[classConst.length];
 		collisionEffects = new ArrayList[classConst.length][classConst.length];
 		eosEffects = new ArrayList[classConst.length];
 		iSubTypes = new ArrayList[classConst.length];
@@ -397,7 +443,6 @@ public abstract class Game {
 		for (int j = 0; j < spriteGroups.length; ++j) {
 			// Create the space for the sprites and effects of this type.
 			spriteGroups[j] = new SpriteGroup(j);
-			shieldedEffects[j] = new ArrayList<>();
 			eosEffects[j] = new ArrayList<>();
 			timeEffects = new TreeSet<>();
 			bucketList[j] = new Bucket();
@@ -420,6 +465,11 @@ public abstract class Game {
 		if (!iSubTypes[avatarId].contains(avatarId))
 			iSubTypes[avatarId].add(avatarId);
 
+		// New structures: the compiled interaction set is no longer valid.
+		shieldedEffects = null;
+		shieldTable = null;
+		invalidateEffectDispatch();
+
 		// Resources: use the list of resources created before to store limit
 		// and color of each resource.
 		for (Resource r : resources) {
@@ -428,6 +478,75 @@ public abstract class Game {
 		}
 	}
 
+	/**
+	 * Copies the game definition (sprite set, interaction set, terminations
+	 * and level mapping) of an already parsed game into this one, instead of
+	 * parsing the game description again. This game must have been created
+	 * from the same game content. Contents and terminations are shared with
+	 * the template (as they are with forward models), while the containers
+	 * that hold them are copied, so the definition of this game can still be
+	 * modified without affecting the template. Effects change while executed,
+	 * so they are copied (see Effect.copyForGame()).
+	 *
+	 * @param template
+	 *            parsed game to copy the definition from. It must not be played.
+	 */
+	@SuppressWarnings("unchecked")
+	public void initFromTemplate(Game template) {
+		avatarId = template.avatarId;
+		wallId = template.wallId;
+		spriteOrder = template.spriteOrder.clone();
+		singletons = template.singletons.clone();
+		classConst = template.classConst.clone();
+		templateSprites = new VGDLSprite[classConst.length];
+
+		int numTypes = classConst.length;
+		spriteGroups = new SpriteGroup[numTypes];
+		bucketList = new Bucket[numTypes];
+		collisionEffects = (ArrayList<Effect>[][]) new ArrayList<?>[numTypes][numTypes];
+		eosEffects = (ArrayList<Effect>[]) new ArrayList<?>[numTypes];
+		iSubTypes = (ArrayList<Integer>[]) new ArrayList<?>[numTypes];
+		// The same effect can appear in several lists: keep one copy per effect.
+		IdentityHashMap<Effect, Effect> effectCopies = new IdentityHashMap<>();
+		for (int j = 0; j < numTypes; ++j) {
+			spriteGroups[j] = new SpriteGroup(j);
+			bucketList[j] = new Bucket();
+			eosEffects[j] = new ArrayList<>(template.eosEffects[j].size());
+			for (Effect ef : template.eosEffects[j])
+				eosEffects[j].add(effectCopies.computeIfAbsent(ef, Effect::copyForGame));
+			iSubTypes[j] = new ArrayList<>(template.iSubTypes[j]);
+			for (int k = 0; k < numTypes; ++k) {
+				ArrayList<Effect> templateEffects = template.collisionEffects[j][k];
+				collisionEffects[j][k] = new ArrayList<>(templateEffects.size());
+				for (Effect ef : templateEffects)
+					collisionEffects[j][k].add(effectCopies.computeIfAbsent(ef, Effect::copyForGame));
+			}
+		}
+		definedEffects = new ArrayList<>(template.definedEffects);
+		definedEOSEffects = new ArrayList<>(template.definedEOSEffects);
+		resources_limits = template.resources_limits.clone();
+		resources_colors = template.resources_colors.clone();
+
+		// Time effects change during the game: each game needs its own copies.
+		timeEffects = new TreeSet<>();
+		Iterator<TimeEffect> itTimeEffects = template.timeEffects.descendingIterator();
+		while (itTimeEffects.hasNext())
+			timeEffects.add(itTimeEffects.next().copy());
+
+		charMapping = new HashMap<>();
+		for (Map.Entry<Character, ArrayList<String>> entry : template.charMapping.entrySet())
+			charMapping.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		terminations = new ArrayList<>(template.terminations);
+		parameters = template.parameters;
+		is_stochastic = template.is_stochastic;
+
+		// The effects are new copies: compile the interaction set of this game.
+		shieldedEffects = null;
+		shieldTable = null;
+		invalidateEffectDispatch();
+		compileEffectDispatch();
+	}
+
 	/**
 	 * Check if the current itype has no children nodes
 	 *
@@ -739,6 +858,7 @@ public abstract class Game {
 		Arrays.fill(templateSprites, null);
 
 		historicEvents.clear();
+		metrics = null;
 
 		resetShieldEffects();
 	}
@@ -807,7 +927,7 @@ public abstract class Game {
 	 */
 	public int getNumSprites(int itype) {
 		int acum = 0;
-		for (Integer subtype : this.iSubTypes[itype]) {
+		for (int subtype : effectDispatch.get(this).subTypes[itype]) {
 			acum += spriteGroups[subtype].numSprites();
 		}
 		return acum;
@@ -833,7 +953,7 @@ public abstract class Game {
 	 */
 	public int getNumDisabledSprites(int itype) {
 		int acum = 0;
-		for (Integer subtype : this.iSubTypes[itype]) {
+		for (int subtype : effectDispatch.get(this).subTypes[itype]) {
 			acum += spriteGroups[subtype].numDisabledSprites();
 		}
 		return acum;
@@ -1058,7 +1178,7 @@ public abstract class Game {
 		gameTick = -1;
 
 		// Create the sampleRandom generator.
-		random = new Random(randomSeed);
+		setRandomSeed(randomSeed);
 
 		// Assigns the player to the avatar of the game.
 		createAvatars(humanID);
@@ -1075,19 +1195,26 @@ public abstract class Game {
 	 */
 	private void gameCycle() {
 		gameTick++; // next game tick.
+		EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? getMetrics() : null;
+		long t = (m == null) ? 0 : System.nanoTime();
 
 		// Update our state observation (forward model) with the information of
 		// the current game state.
 		fwdModel.update(this);
 		// System.out.println(avatars[0].rect);
+		if (m != null) t = m.phase(EngineMetrics.GAME, EngineMetrics.OBSERVATIONS, t);
 
 		// Execute a game cycle:
 		this.tick(); // update for all entities.
+		if (m != null) t = m.phase(EngineMetrics.GAME, EngineMetrics.TICK, t);
 		this.eventHandling(); // handle events such collisions.
+		if (m != null) t = m.phase(EngineMetrics.GAME, EngineMetrics.EVENTS, t);
 		this.clearAll(fwdModel); // clear all additional data, including dead
 		// sprites.
+		if (m != null) t = m.phase(EngineMetrics.GAME, EngineMetrics.CLEAR, t);
 		this.terminationHandling(); // check for game termination.
 		this.checkTimeOut(); // Check for end of game by time steps.
+		if (m != null) m.phase(EngineMetrics.GAME, EngineMetrics.TERMINATION, t);
 
 		// if(gameTick == 0 || isEnded)
 		// fwdModel.printObservationGrid(); //uncomment this to show the
@@ -1166,6 +1293,21 @@ public abstract class Game {
 		System.out.println("Result (1->win; 0->lose): " + sb1 + sb2 + "timesteps:" + this.getGameTick());
 		// System.out.println("Result (1->win; 0->lose):"+ winner.key() + ",
 		// Score:" + score + ", timesteps:" + this.getGameTick());
+		if (CompetitionParameters.ENGINE_METRICS && metrics != null)
+			System.out.print(metrics);
+	}
+
+	/**
+	 * Returns the time spent in each phase of this game and its forward models,
+	 * creating the metrics if they don't exist yet. They are only collected when
+	 * CompetitionParameters.ENGINE_METRICS is true.
+	 *
+	 * @return the metrics of this game.
+	 */
+	public EngineMetrics getMetrics() {
+		if (metrics == null)
+			metrics = new EngineMetrics();
+		return metrics;
 	}
 
 	/**
@@ -1340,6 +1482,9 @@ public abstract class Game {
 	 * Avatar is always updated first. Doesn't update disabled sprites.
 	 */
 	protected void tick() {
+		if (CompetitionParameters.SIMULTANEOUS_ACT && no_players > 1)
+			decideSimultaneously();
+
 		// Now, do all of the avatars.
 		for (int i = 0; i < no_players; i++) {
 			if (avatars[i] != null && !avatars[i].is_disabled()) {
@@ -1349,6 +1494,9 @@ public abstract class Game {
 				System.out.println(gameTick + ": Something went wrong, no avatar, ID = " + i);
 			}
 		}
+		for (MovingAvatar avatar : avatars)
+			if (avatar != null)
+				avatar.clearDecision();
 		// random = new Random(this.gameTick * 100); //uncomment this for
 		// testing a new rnd generator after avatar's move
 
@@ -1368,13 +1516,83 @@ public abstract class Game {
 	}
 
 	/**
-	 * Handles collisions and triggers events.
+	 * Asks the controllers of all active players for their actions at the same
+	 * time, one thread per player (the last one in the calling thread), and
+	 * waits for all of them. The observations are created first, in player
+	 * order, so they are the same as when players act one after another. Each
+	 * observation is detached from the game (see ForwardModel.detach()), so the
+	 * simulations of one player can't change what happens in those of the other
+	 * (or in the game). The actions are applied by the
+	 * avatars when updated in tick(). Human players are left to act in turn, as
+	 * they read the keyboard.
+	 */
+	private void decideSimultaneously() {
+		ArrayList<Callable<ArrayList<Message>>> decisions = new ArrayList<>();
+		for (int i = 0; i < no_players; i++) {
+			MovingAvatar avatar = avatars[i];
+			if (avatar != null && !avatar.is_disabled() && avatar.player != null && !avatar.player.isHuman()) {
+				StateObservationMulti obs = getObservationMulti(i);
+				obs.model.detach();
+				// Each player counts only its own warnings, then they're logged in player order.
+				decisions.add(() -> Logger.getInstance().runApart(() -> avatar.decide(obs)));
+			}
+		}
+		if (decisions.isEmpty())
+			return;
+
+		ArrayList<Future<ArrayList<Message>>> running = new ArrayList<>();
+		for (int i = 0; i < decisions.size() - 1; i++)
+			running.add(actExecutor().submit(decisions.get(i)));
+		ArrayList<Message> lastLogged;
+		try {
+			lastLogged = decisions.get(decisions.size() - 1).call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+
+		for (Future<ArrayList<Message>> f : running) {
+			try {
+				Logger.getInstance().addMessages(f.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error)
+					throw (Error) e.getCause();
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		Logger.getInstance().addMessages(lastLogged);
+	}
+
+	/**
+	 * Threads that call the controllers when CompetitionParameters.SIMULTANEOUS_ACT
+	 * is set, shared by all games. Created when first needed.
+	 */
+	private static synchronized ExecutorService actExecutor() {
+		if (actExecutor == null) {
+			actExecutor = Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "player-act");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return actExecutor;
+	}
+
+	/**
+	 * Handles collisions and triggers events. Effects are dispatched from the
+	 * compiled interaction table (see EffectDispatch), in the same order as
+	 * they are defined in the game.
 	 */
-	@SuppressWarnings("unchecked")
 	protected void eventHandling() {
-		// Array to indicate that the sprite type has no representative in
-		// collisions.
-		boolean[] noSprites = new boolean[spriteGroups.length];
+		EffectDispatch.Table table = dispatchTable();
+		int[][] subTypes = table.subTypes;
+		EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? metrics : null;
 
 		// First, check the effects that are triggered in a timely manner.
 		while (!timeEffects.isEmpty() && timeEffects.first().nextExecution <= gameTick) {
@@ -1399,8 +1617,7 @@ public abstract class Game {
 
 				} else {
 
-					ArrayList<Integer> allTypes = iSubTypes[intId];
-					for (Integer itype : allTypes) {
+					for (int itype : subTypes[intId]) {
 						// Find all sprites of this subtype.
 						Collection<VGDLSprite> sprites = this.getSprites(itype);
 						for (VGDLSprite sp : sprites) {
@@ -1426,96 +1643,140 @@ public abstract class Game {
 		}
 
 		// Secondly, we handle single sprite events (EOS). Take each sprite
-		// itype that has
-		// a EOS effect defined.
-		for (Integer intId : definedEOSEffects) {
-			// For each effect that this sprite has assigned.
-			for (Effect ef : eosEffects[intId]) {
+		// itype that has a EOS effect defined, and each effect that this
+		// sprite has assigned.
+		int[] eosTypes = table.eosType;
+		Effect[] eosEffects = table.eosEffects;
+		for (int e = 0; e < eosEffects.length; e++) {
+			Effect ef = eosEffects[e];
+			if (ef.enabled)
 				// Take all the subtypes in the hierarchy of this sprite.
-				ArrayList<Integer> allTypes = iSubTypes[intId];
-				if (ef.enabled)
-					for (Integer itype : allTypes) {
-						// Add all sprites of this subtype to the list of
-						// sprites.
-						// These are sprites that could potentially collide with
-						// EOS
-						Collection<VGDLSprite> sprites = this.getSprites(itype);
-						try{
-							for (VGDLSprite sp : sprites) {
-								// Check if they are at the edge to trigger the
-								// effect. Also check that they
-								// are not dead (could happen in this same cycle).
-								if (isAtEdge(sp.rect) && !kill_list.contains(sp) && !sp.is_disabled()) {
-									executeEffect(ef, sp, null);
-								}
+				for (int itype : subTypes[eosTypes[e]]) {
+					// These are sprites that could potentially collide with
+					// EOS
+					Collection<VGDLSprite> sprites = this.getSprites(itype);
+					try{
+						for (VGDLSprite sp : sprites) {
+							// Check if they are at the edge to trigger the
+							// effect. Also check that they
+							// are not dead (could happen in this same cycle).
+							if (isAtEdge(sp.rect) && !kill_list.contains(sp) && !sp.is_disabled()) {
+								executeEffect(ef, sp, null);
 							}
 						}
-						catch(ConcurrentModificationException e){
-							Logger.getInstance().addMessage(new Message(Message.WARNING, "you can't spawn sprites outside of the screen."));
-						}
 					}
-			}
-
+					catch(ConcurrentModificationException ex){
+						Logger.getInstance().addMessage(new Message(Message.WARNING, "you can't spawn sprites outside of the screen."));
+					}
+				}
 		}
 
 		// Now, we handle events between pairs of sprites, for each pair of
-		// sprites that
-		// has a paired effect defined:
-		for (Pair<Integer, Integer> p : definedEffects) {
-			// We iterate over the (potential) multiple effects that these
-			// two sprites could have defined between them.
-			for (Effect ef : collisionEffects[p.first][p.second]) {
-				if (ef.enabled) {
-
-					if (!shieldedEffects[p.first].isEmpty()) {
-						if (shieldedEffects[p.first].contains(new Pair(p.second, ef.hashCode)))
-							continue;
-					}
-
-					ArrayList<VGDLSprite> firstx = new ArrayList<>();
-					ArrayList<VGDLSprite> secondx = new ArrayList<>();
+		// sprites that has a paired effect defined, and each of the
+		// (potential) multiple effects that these two sprites could have
+		// defined between them.
+		int[] firstTypes = table.first;
+		int[] secondTypes = table.second;
+		int[] shieldBits = table.shieldBit;
+		Effect[] effects = table.effects;
+		ArrayList<VGDLSprite> firstx = firstBuffer;
+		ArrayList<VGDLSprite> secondx = secondBuffer;
+		ArrayList<VGDLSprite> new_secondx = collidingBuffer;
+		for (int e = 0; e < effects.length; e++) {
+			Effect ef = effects[e];
+			if (ef.enabled) {
+				int first = firstTypes[e];
 
-					ArrayList<Integer> allTypes1 = iSubTypes[p.first];
-					for (int i : allTypes1) {
-						firstx.addAll(getSprites(i));
-					}
-					ArrayList<Integer> allTypes2 = iSubTypes[p.second];
-					for (int j : allTypes2) {
-						secondx.addAll(getSprites(j));
-					}
+				if (anyShield) {
+					int bit = shieldBits[e];
+					if ((shieldedEffects[first][bit >>> 6] & (1L << bit)) != 0)
+						continue;
+				}
+				long t = (m == null) ? 0 : System.nanoTime();
 
-					ArrayList<VGDLSprite> new_secondx = new ArrayList<>();
+				firstx.clear();
+				secondx.clear();
+				for (int i : subTypes[first]) {
+					firstx.addAll(getSprites(i));
+				}
+				for (int j : subTypes[secondTypes[e]]) {
+					secondx.addAll(getSprites(j));
+				}
 
-					for (VGDLSprite s1 : firstx) {
-						new_secondx = new ArrayList<>();
+				int numFirst = firstx.size();
+				int numSecond = secondx.size();
+				for (int i = 0; i < numFirst; i++) {
+					VGDLSprite s1 = firstx.get(i);
+					new_secondx.clear();
 
-						for (VGDLSprite s2 : secondx) {
-							if ((s1 != s2 && s1.intersects(s2))) {
-								new_secondx.add(s2);
-							}
+					for (int j = 0; j < numSecond; j++) {
+						VGDLSprite s2 = secondx.get(j);
+						if ((s1 != s2 && s1.intersects(s2))) {
+							new_secondx.add(s2);
 						}
+					}
 
-						if(!new_secondx.isEmpty()) {
-							if (ef.inBatch) {
-								executeEffectBatch(ef, s1, new_secondx);
-							} else {
+					if(!new_secondx.isEmpty()) {
+						if (ef.inBatch) {
+							executeEffectBatch(ef, s1, new_secondx);
+						} else {
 
-								for (VGDLSprite newSecondx : new_secondx) {
-									if (!kill_list.contains(s1) && s1 != newSecondx && s1.intersects(newSecondx)) {
-										executeEffect(ef, s1, newSecondx);
-									}
+							for (int j = 0; j < new_secondx.size(); j++) {
+								VGDLSprite newSecondx = new_secondx.get(j);
+								if (!kill_list.contains(s1) && s1 != newSecondx && s1.intersects(newSecondx)) {
+									executeEffect(ef, s1, newSecondx);
 								}
 							}
 						}
 					}
 				}
+				if (m != null)
+					m.pair(ef, first, secondTypes[e], numFirst * numSecond, System.nanoTime() - t);
 			}
 		}
 
+		firstx.clear();
+		secondx.clear();
+		new_secondx.clear();
+	}
+
+	/**
+	 * Returns the compiled interaction set of this game, making sure that the
+	 * shield bitsets match it.
+	 *
+	 * @return the compiled dispatch table.
+	 */
+	private EffectDispatch.Table dispatchTable() {
+		EffectDispatch.Table table = effectDispatch.get(this);
+		if (shieldTable != table) {
+			shieldedEffects = table.newShieldState();
+			shieldTable = table;
+			anyShield = false;
+		}
+		return table;
+	}
+
+	/**
+	 * Compiles the interaction set of this game, so the first step played
+	 * doesn't have to. Called once the game is parsed or copied.
+	 */
+	public void compileEffectDispatch() {
+		if (iSubTypes != null)
+			dispatchTable();
 	}
 
+	/**
+	 * Discards the compiled interaction set. Must be called every time the
+	 * effects, EOS effects or sprite hierarchy of the game are modified.
+	 */
+	public void invalidateEffectDispatch() {
+		effectDispatch.invalidate();
+	}
 
 	private void executeEffectBatch(Effect ef, VGDLSprite s1, ArrayList<VGDLSprite> s2list) {
+		EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? metrics : null;
+		long t = (m == null) ? 0 : System.nanoTime();
+
 		// There is a collision. Apply the effect.
 		int batchCount = ef.executeBatch(s1, s2list, this);
 		if(batchCount == -1)
@@ -1551,9 +1812,21 @@ public abstract class Game {
 				this.counter[i] += multElseCounter;
 			}
 		}
+
+		if (m != null)
+			m.effect(ef, batchCount, System.nanoTime() - t);
 	}
 
+	/**
+	 * Executes an effect and applies its score and counter changes. Some effects
+	 * decide while executing whether they change the score (applyScore, count),
+	 * so models advanced in other threads use their own copies of the effects
+	 * (see ForwardModel.detach()).
+	 */
 	private void executeEffect(Effect ef, VGDLSprite s1, VGDLSprite s2) {
+		EngineMetrics m = CompetitionParameters.ENGINE_METRICS ? metrics : null;
+		long t = (m == null) ? 0 : System.nanoTime();
+
 		// There is a collision. Apply the effect.
 		ef.execute(s1, s2, this);
 
@@ -1608,7 +1881,11 @@ public abstract class Game {
 	 * @return true if rect is at the edge of the screen.
 	 */
 	private boolean isAtEdge(Rectangle rect) {
-		Rectangle r = new Rectangle(screenSize);
+		Rectangle r = screenRect;
+		if (r == null || r.width != screenSize.width || r.height != screenSize.height) {
+			r = new Rectangle(screenSize);
+			screenRect = r;
+		}
 		return !r.contains(rect);
 	}
 
@@ -1675,7 +1952,10 @@ public abstract class Game {
 	 * Cleans the array of shielded effects.
 	 */
 	private void resetShieldEffects() {
-		for (ArrayList<Pair<Integer, Long>> shieldedEffect : shieldedEffects) shieldedEffect.clear();
+		if (anyShield) {
+			for (long[] shieldedEffect : shieldedEffects) Arrays.fill(shieldedEffect, 0L);
+			anyShield = false;
+		}
 	}
 
 	/**
@@ -1688,10 +1968,15 @@ public abstract class Game {
 	 * @param functHash
 	 *            Hash of the effect name to shield.
 	 */
-	@SuppressWarnings("unchecked")
 	public void addShield(int type1, int type2, long functHash) {
-		Pair newShield = new Pair(type2, functHash);
-		shieldedEffects[type1].add(newShield);
+		EffectDispatch.Table table = dispatchTable();
+		int bit = table.shieldBitOf(type1, type2, functHash);
+
+		// Shielding from an effect that is not defined has no consequences.
+		if (bit != -1) {
+			shieldedEffects[type1][bit >>> 6] |= 1L << bit;
+			anyShield = true;
+		}
 	}
 
 	/**
@@ -2110,6 +2395,7 @@ public abstract class Game {
 		}
 
 		this.timeEffects.clear();
+		invalidateEffectDispatch();
 	}
 
 	/**
@@ -2139,6 +2425,17 @@ public abstract class Game {
 		return random;
 	}
 
+	/**
+	 * Creates a new random generator for this game, with the seed given. The
+	 * type of generator is determined by CompetitionParameters.RANDOM_GENERATOR.
+	 *
+	 * @param randomSeed
+	 *            seed for the new generator.
+	 */
+	protected void setRandomSeed(int randomSeed) {
+		random = Utils.createRandom(randomSeed);
+	}
+
 	/**
 	 * Returns the current game tick of this game.
 	 *
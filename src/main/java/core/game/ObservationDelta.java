@@ -0,0 +1,247 @@
+package core.game;
+
+import core.competition.CompetitionParameters;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Incremental observation of the sprites of a game, for clients that keep their own copy of
+ * the level. Each frame lists the sprites added, removed and moved since the base frame (the
+ * last one acknowledged by the client, see acknowledge()), and the grid cells whose sprites
+ * changed. Keyframes, instead, list all the sprites as added: the first frame of a game, the
+ * frame after one that was not acknowledged, and one every
+ * CompetitionParameters.DELTA_KEYFRAME_INTERVAL frames.
+ *
+ * The records are flat arrays of ints, with positions in pixels as in Observation:
+ * added sprites are (id, itype, category, x, y), moved sprites are (id, x, y), removed sprites
+ * are their ids, and cells are y * width + x, in blocks. A client applies the removed, the
+ * added and then the moved records: a sprite that changes its type is removed and added again.
+ */
+public class ObservationDelta {
+
+    /**
+     * Number of ints of each added and moved record.
+     */
+    public static final int ADDED_RECORD = 5, MOVED_RECORD = 3;
+
+    /**
+     * Number of the last frame made (-1 if none), of the base frame (-1 if the next frame
+     * must be a keyframe), and frames since the last keyframe.
+     */
+    private int frame = -1, base = -1, sinceKeyframe;
+
+    /**
+     * True if the last frame made was a keyframe.
+     */
+    private boolean keyframe;
+
+    /**
+     * Size of the level, in blocks, at the base frame.
+     */
+    private int width, height;
+
+    /**
+     * Sprites of the last frame made and of the base frame, as added records, and the index
+     * of each base sprite by id.
+     */
+    private IntList sprites = new IntList(), baseSprites = new IntList();
+    private final HashMap<Integer, Integer> baseIndex = new HashMap<>();
+
+    /**
+     * Records of the last frame made.
+     */
+    private final IntList added = new IntList(), removed = new IntList(), moved = new IntList(),
+            cells = new IntList();
+
+    /**
+     * Marks of the base sprites seen in the last frame and of the changed cells, with the
+     * stamp of the frame that set them.
+     */
+    private int[] seen = new int[0], cellMarks = new int[0];
+    private int stamp;
+
+    /**
+     * Makes the next frame, from the sprites of a state that are visible to its player.
+     * @param so state to observe.
+     */
+    public void next(StateObservation so) {
+        ForwardModel model = so.model;
+        Dimension size = model.getWorldDimension();
+        int blockSize = model.getBlockSize();
+        int w = size.width / blockSize, h = size.height / blockSize;
+
+        sprites.clear();
+        model.listSprites(this);
+        added.clear();
+        removed.clear();
+        moved.clear();
+        cells.clear();
+        frame++;
+
+        keyframe = base < 0 || w != width || h != height
+                || sinceKeyframe >= CompetitionParameters.DELTA_KEYFRAME_INTERVAL;
+        if (keyframe) {
+            width = w;
+            height = h;
+            sinceKeyframe = 0;
+            added.addAll(sprites);
+            return;
+        }
+        sinceKeyframe++;
+
+        if (++stamp == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(cellMarks, 0);
+            stamp = 1;
+        }
+        if (seen.length < baseSprites.size / ADDED_RECORD)
+            seen = new int[baseSprites.size / ADDED_RECORD];
+        if (cellMarks.length != w * h)
+            cellMarks = new int[w * h];
+
+        int[] cur = sprites.data, old = baseSprites.data;
+        for (int i = 0; i < sprites.size; i += ADDED_RECORD) {
+            Integer index = baseIndex.get(cur[i]);
+            if (index == null) {
+                added.add(cur, i, ADDED_RECORD);
+                markCell(cur[i + 3], cur[i + 4], blockSize);
+                continue;
+            }
+            int j = index * ADDED_RECORD;
+            seen[index] = stamp;
+            if (old[j + 1] != cur[i + 1]) {
+                // Same id and a new type: the client replaces the sprite.
+                removed.add(cur[i]);
+                added.add(cur, i, ADDED_RECORD);
+            } else if (old[j + 3] != cur[i + 3] || old[j + 4] != cur[i + 4]) {
+                moved.add(cur[i]);
+                moved.add(cur[i + 3]);
+                moved.add(cur[i + 4]);
+            } else {
+                continue;
+            }
+            markCell(old[j + 3], old[j + 4], blockSize);
+            markCell(cur[i + 3], cur[i + 4], blockSize);
+        }
+        for (int j = 0; j < baseSprites.size; j += ADDED_RECORD) {
+            if (seen[j / ADDED_RECORD] != stamp) {
+                removed.add(old[j]);
+                markCell(old[j + 3], old[j + 4], blockSize);
+            }
+        }
+    }
+
+    /**
+     * Takes the last frame made as the base of the next one, once the client replied to it.
+     */
+    public void acknowledge() {
+        IntList previous = baseSprites;
+        baseSprites = sprites;
+        sprites = previous;
+        baseIndex.clear();
+        for (int i = 0; i < baseSprites.size; i += ADDED_RECORD)
+            baseIndex.put(baseSprites.data[i], i / ADDED_RECORD);
+        base = frame;
+    }
+
+    /**
+     * Forgets the base frame, so the next one is a keyframe. Called when a game starts, and
+     * when the client didn't acknowledge the last frame.
+     */
+    public void reset() {
+        base = -1;
+        baseSprites.clear();
+        baseIndex.clear();
+    }
+
+    /**
+     * Adds a sprite to the frame being made (see ForwardModel.listSprites()).
+     */
+    void addSprite(int id, int itype, int category, int x, int y) {
+        sprites.add(id);
+        sprites.add(itype);
+        sprites.add(category);
+        sprites.add(x);
+        sprites.add(y);
+    }
+
+    private void markCell(int px, int py, int blockSize) {
+        int x = Math.floorDiv(px, blockSize), y = Math.floorDiv(py, blockSize);
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        int cell = y * width + x;
+        if (cellMarks[cell] != stamp) {
+            cellMarks[cell] = stamp;
+            cells.add(cell);
+        }
+    }
+
+    /**
+     * @return number of the last frame made.
+     */
+    public int getFrame() { return frame; }
+
+    /**
+     * @return number of the frame the last one is relative to, or -1 if it is a keyframe.
+     */
+    public int getBase() { return keyframe ? -1 : base; }
+
+    /**
+     * @return true if the last frame made is a keyframe.
+     */
+    public boolean isKeyframe() { return keyframe; }
+
+    /**
+     * @return records of the sprites added in the last frame (all of them in a keyframe).
+     */
+    public int[] getAdded() { return added.toArray(); }
+
+    /**
+     * @return ids of the sprites removed in the last frame.
+     */
+    public int[] getRemoved() { return removed.toArray(); }
+
+    /**
+     * @return records of the sprites moved in the last frame.
+     */
+    public int[] getMoved() { return moved.toArray(); }
+
+    /**
+     * @return cells whose sprites changed in the last frame (none in a keyframe, where
+     * all of them must be rebuilt).
+     */
+    public int[] getChangedCells() { return cells.toArray(); }
+
+    /**
+     * Growable array of ints, reused from frame to frame.
+     */
+    private static class IntList {
+        int[] data = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        void add(int[] values, int from, int length) {
+            for (int i = 0; i < length; i++)
+                add(values[from + i]);
+        }
+
+        void addAll(IntList other) {
+            add(other.data, 0, other.size);
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package core.game;
+
+import ontology.Types;
+
+import java.awt.Dimension;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Symbolic observation of a state as a tensor of channels x height x width, with a cell per
+ * block of the level: the value of a cell is the number of sprites in the block, of the type
+ * (one channel per sprite type, as numbered by VGDLRegistry) or of the category (one channel
+ * per Types.TYPE_* category) of its channel. It is filled straight from the sprites of the
+ * state, without building observation lists, and its arrays are reused from fill to fill
+ * while the shape doesn't change.
+ *
+ * The values are stored channel by channel and row by row: the cell of block x, y in channel c
+ * is at index (c * height + y) * width + x.
+ */
+public class ObservationTensor {
+
+    /**
+     * Number of channels when there is one per category.
+     */
+    public static final int NUM_CATEGORIES = Types.TYPE_MOVABLE + 1;
+
+    /**
+     * True for a channel per category, false for one per sprite type.
+     */
+    private final boolean byCategory;
+
+    /**
+     * Shape of the tensor.
+     */
+    private int channels, height, width;
+
+    /**
+     * Sprite counts of the cells.
+     */
+    private int[] data = new int[0];
+
+    /**
+     * Cells as bytes (see getBytes()).
+     */
+    private byte[] bytes = new byte[0];
+
+    /**
+     * Creates an empty tensor.
+     * @param byCategory true for a channel per category, false for one per sprite type.
+     */
+    public ObservationTensor(boolean byCategory) {
+        this.byCategory = byCategory;
+    }
+
+    /**
+     * Fills the tensor with the sprites of a state that are visible to its player.
+     * @param so state to observe.
+     * @return the sprite counts of the cells (the array returned by getData()).
+     */
+    public int[] fill(StateObservation so) {
+        ForwardModel model = so.model;
+        Dimension size = model.getWorldDimension();
+        int blockSize = model.getBlockSize();
+        int c = byCategory ? NUM_CATEGORIES : model.spriteGroups.length;
+        int h = size.height / blockSize, w = size.width / blockSize;
+        if (c != channels || h != height || w != width) {
+            channels = c;
+            height = h;
+            width = w;
+            data = new int[c * h * w];
+        } else {
+            Arrays.fill(data, 0);
+        }
+        model.countSprites(data, byCategory, width, height);
+        return data;
+    }
+
+    /**
+     * Copies the tensor to an array of floats.
+     * @param out array to copy to, or null. A new one is created if it is too small.
+     * @return the array with the values, in the first size() positions.
+     */
+    public float[] toFloats(float[] out) {
+        if (out == null || out.length < data.length)
+            out = new float[data.length];
+        for (int i = 0; i < data.length; i++)
+            out[i] = data[i];
+        return out;
+    }
+
+    /**
+     * Copies the tensor to a byte buffer, a byte per cell (counts over 255 are written as 255),
+     * from its position.
+     * @param out buffer to copy to, or null. A new direct buffer is created if it has not
+     *            enough space remaining.
+     * @return the buffer with the values, positioned after them.
+     */
+    public ByteBuffer toBytes(ByteBuffer out) {
+        if (out == null || out.remaining() < data.length)
+            out = ByteBuffer.allocateDirect(data.length);
+        for (int value : data)
+            out.put((byte) Math.min(value, 255));
+        return out;
+    }
+
+    /**
+     * Gets the tensor as bytes, a byte per cell (counts over 255 are given as 255). The array
+     * is reused while the shape of the tensor doesn't change.
+     * @return the cells of the tensor, as bytes.
+     */
+    public byte[] getBytes() {
+        if (bytes.length != data.length)
+            bytes = new byte[data.length];
+        for (int i = 0; i < data.length; i++)
+            bytes[i] = (byte) Math.min(data[i], 255);
+        return bytes;
+    }
+
+    /**
+     * @return the sprite counts of the cells, as filled by the last call to fill().
+     */
+    public int[] getData() { return data; }
+
+    /**
+     * @return number of cells of the tensor.
+     */
+    public int size() { return data.length; }
+
+    /**
+     * @return true if there is a channel per category, false if one per sprite type.
+     */
+    public boolean isByCategory() { return byCategory; }
+
+    /**
+     * @return number of channels of the tensor.
+     */
+    public int getChannels() { return channels; }
+
+    /**
+     * @return height of the tensor, in blocks.
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * @return width of the tensor, in blocks.
+     */
+    public int getWidth() { return width; }
+}
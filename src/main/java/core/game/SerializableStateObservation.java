@@ -12,6 +12,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 
 /**
@@ -72,6 +73,23 @@ public class SerializableStateObservation {
     public int fromAvatarSpritesPositionsNum;
     public int fromAvatarSpritesPositionsMaxRow;
 
+    // Symbolic tensor (see ObservationTensor), a byte per cell encoded in Base64 unless it is
+    // shared apart from the message (see Comm.shareTensor()), and its shape
+    public String tensor;
+    public boolean tensorShared;
+    public boolean tensorByCategory;
+    public int tensorChannels;
+    public int tensorHeight;
+    public int tensorWidth;
+
+    // Incremental observation (see ObservationDelta): frame numbers, and records of the changes
+    public int deltaFrame;
+    public int deltaBase;
+    public int[] spritesAdded;
+    public int[] spritesRemoved;
+    public int[] spritesMoved;
+    public int[] changedCells;
+
     public SerializableStateObservation(StateObservation s, Boolean both){
         try {
             if (!both) {
@@ -111,6 +129,55 @@ public class SerializableStateObservation {
         buildDataArraylists(s);
     }
 
+    /**
+     * Creates an observation with the game data and a symbolic tensor of the state, instead of
+     * the observation arrays.
+     * @param s state to observe.
+     * @param tensor tensor to fill with the state, reused between observations.
+     * @param shared true if the tensor is given to the client apart from this observation,
+     *               false to encode it in it.
+     */
+    public SerializableStateObservation(StateObservation s, ObservationTensor tensor, boolean shared)
+    {
+        // Fill in the persistent variables (Score, tick)
+        buildGameData(s);
+
+        // Fill in the simple data variables
+        buildDataVariables(s);
+
+        tensor.fill(s);
+        tensorShared = shared;
+        if (!shared)
+            this.tensor = Base64.getEncoder().encodeToString(tensor.getBytes());
+        tensorByCategory = tensor.isByCategory();
+        tensorChannels = tensor.getChannels();
+        tensorHeight = tensor.getHeight();
+        tensorWidth = tensor.getWidth();
+    }
+
+    /**
+     * Creates an observation with the game data and the sprites changed since the last frame
+     * acknowledged by the client, instead of the observation arrays.
+     * @param s state to observe.
+     * @param delta incremental observation of the game, that makes the next frame.
+     */
+    public SerializableStateObservation(StateObservation s, ObservationDelta delta)
+    {
+        // Fill in the persistent variables (Score, tick)
+        buildGameData(s);
+
+        // Fill in the simple data variables
+        buildDataVariables(s);
+
+        delta.next(s);
+        deltaFrame = delta.getFrame();
+        deltaBase = delta.getBase();
+        spritesAdded = delta.getAdded();
+        spritesRemoved = delta.getRemoved();
+        spritesMoved = delta.getMoved();
+        changedCells = delta.getChangedCells();
+    }
+
     private void buildGameData(StateObservation s){
         setPhase(s.getGameState());
         availableActions = s.getAvailableActions();
@@ -7,6 +7,7 @@ import tools.Vector2d;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Random;
 import java.util.TreeSet;
 
 /**
@@ -53,6 +54,19 @@ public class StateObservation {
         return new StateObservation(model.copy(), this.playerID);
     }
 
+    /**
+     * Returns a copy of the state observation object that can be advanced in a different
+     * thread while the game it comes from keeps running (see ForwardModel.detach()). Copies
+     * made from it are not detached from it, so they must be advanced in the same thread.
+     *
+     * @return a copy of the state observation, detached from its game.
+     */
+    public StateObservation copyDetached() {
+        ForwardModel copyModel = model.copy();
+        copyModel.detach();
+        return new StateObservation(copyModel, this.playerID);
+    }
+
     /**
      * Advances the state using the action passed as the move of the agent.
      * It updates all entities in the game. It modifies the object 'this' to
@@ -77,6 +91,29 @@ public class StateObservation {
         model.setNewSeed(seed);
     }
 
+    /**
+     * Returns the state of the forward model's random generator. Restoring it with
+     * setRandomState() before calling advance() on a copy of this state with the same
+     * action reproduces the same next state, so a state can be rebuilt from an earlier one
+     * by replaying the actions with the random states saved along the way.
+     *
+     * @return a copy of the random generator.
+     */
+    public Random getRandomState()
+    {
+        return model.copyRandomGenerator();
+    }
+
+    /**
+     * Restores the state of the forward model's random generator.
+     *
+     * @param random state returned by getRandomState() (it is not modified).
+     */
+    public void setRandomState(Random random)
+    {
+        model.setRandomGenerator(random);
+    }
+
     /**
      * Return the current state of the game
      * @return current state of the game as a GAMESTATES type.
@@ -462,6 +499,58 @@ public class StateObservation {
         return model.getFromAvatarSpPositions(reference);
     }
 
+    /**
+     * Returns the number of sprites of a category in the game (hidden sprites are not counted).
+     *
+     * @param category category of the sprites, one of the Types.TYPE_* constants (Types.TYPE_NPC, etc.)
+     * @return number of sprites of the category.
+     */
+    public int getNumCategorySprites(int category) {
+        return model.getNumCategorySprites(category);
+    }
+
+    /**
+     * Finds the k sprites of a category closest to a position, without building and sorting
+     * the lists of all the observations of the category: the search uses the observation grid,
+     * and only visits the cells around the reference that can hold closer sprites. Sprites out
+     * of the level are not found.
+     *
+     * @param category  category of the sprites, one of the Types.TYPE_* constants (Types.TYPE_NPC, etc.)
+     * @param reference position to measure distances from.
+     * @param result    buffer for the observations found, in ascending order of distance (their
+     *                  sqDist field holds the square distance to the reference). Its length is k.
+     * @return number of observations found (less than k if there are not enough sprites).
+     */
+    public int getNearest(int category, Vector2d reference, Observation[] result) {
+        return model.getNearest(category, reference, result);
+    }
+
+    /**
+     * Finds the k sprites of a given type closest to a position. See getNearest().
+     *
+     * @param itype     sprite type.
+     * @param reference position to measure distances from.
+     * @param result    buffer for the observations found, in ascending order of distance.
+     * @return number of observations found.
+     */
+    public int getNearestOfType(int itype, Vector2d reference, Observation[] result) {
+        return model.getNearestOfType(itype, reference, result);
+    }
+
+    /**
+     * Finds all the sprites of a category within a distance of a position, using the
+     * observation grid. Sprites out of the level are not found.
+     *
+     * @param category  category of the sprites, one of the Types.TYPE_* constants (Types.TYPE_NPC, etc.)
+     * @param reference centre of the search.
+     * @param radius    maximum distance, in pixels.
+     * @param result    list for the observations found (it is cleared first), in no particular order.
+     * @return number of observations found.
+     */
+    public int getWithinRadius(int category, Vector2d reference, double radius, ArrayList<Observation> result) {
+        return model.getWithinRadius(category, reference, radius, result);
+    }
+
 
     /**
      * Returns key handler available to the player.
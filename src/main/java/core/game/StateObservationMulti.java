@@ -188,6 +188,12 @@ public class StateObservationMulti extends StateObservation {
         return new StateObservationMulti(model.copy(), this.playerID);
     }
 
+    public StateObservationMulti copyDetached() {
+        ForwardModel copyModel = model.copy();
+        copyModel.detach();
+        return new StateObservationMulti(copyModel, this.playerID);
+    }
+
     /**
      * Method overwritten with multi player optimisations.
      * @param o Object to compare this to.
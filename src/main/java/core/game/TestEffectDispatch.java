@@ -0,0 +1,107 @@
+package core.game;
+
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.effects.Effect;
+import tools.Pair;
+import tools.Utils;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks the compiled interaction set of the example games against the editable
+ * structures of Game, and the shield bitsets against the lists of (type, effect hash)
+ * pairs they replaced. Run from the root of the project.
+ */
+public class TestEffectDispatch {
+
+    public static void main(String[] args) {
+        entriesFollowTheInteractionSet();
+        shieldsMatchPairLists();
+        report("TestEffectDispatch");
+    }
+
+    private static Game parse(String game_file) {
+        VGDLFactory.GetInstance().init();
+        VGDLRegistry.GetInstance().init();
+        return new VGDLParser().parseGame(game_file);
+    }
+
+    private static void entriesFollowTheInteractionSet() {
+        for (String[] g : Utils.readGames("examples/all_games_sp.csv")) {
+            Game game = parse(g[0]);
+            EffectDispatch.Table table = game.effectDispatch.get(game);
+
+            int k = 0;
+            for (Pair<Integer, Integer> p : game.definedEffects) {
+                for (Effect ef : game.collisionEffects[p.first][p.second]) {
+                    checkEquals(g[1], (long) p.first, table.first[k]);
+                    checkEquals(g[1], (long) p.second, table.second[k]);
+                    check(g[1] + " effect " + k, ef == table.effects[k]);
+                    k++;
+                }
+            }
+            checkEquals(g[1], k, table.effects.length);
+
+            k = 0;
+            for (Integer type : game.definedEOSEffects) {
+                for (Effect ef : game.eosEffects[type]) {
+                    checkEquals(g[1], (long) type, table.eosType[k]);
+                    check(g[1] + " EOS effect " + k, ef == table.eosEffects[k]);
+                    k++;
+                }
+            }
+            checkEquals(g[1], k, table.eosEffects.length);
+
+            for (int i = 0; i < game.iSubTypes.length; i++) {
+                checkEquals(g[1], game.iSubTypes[i].size(), table.subTypes[i].length);
+                for (int j = 0; j < table.subTypes[i].length; j++)
+                    checkEquals(g[1], (long) game.iSubTypes[i].get(j), table.subTypes[i][j]);
+            }
+        }
+    }
+
+    private static void shieldsMatchPairLists() {
+        Random random = new Random(7);
+        for (String[] g : Utils.readGames("examples/all_games_sp.csv")) {
+            Game game = parse(g[0]);
+            EffectDispatch.Table table = game.effectDispatch.get(game);
+            int n = table.effects.length;
+            if (n == 0)
+                continue;
+
+            for (int trial = 0; trial < 20; trial++) {
+                game.shieldedEffects = table.newShieldState();
+                game.shieldTable = table;
+                game.anyShield = false;
+
+                // The old shields: a list of (second type, effect hash) pairs per type.
+                ArrayList<ArrayList<Pair<Integer, Long>>> shields = new ArrayList<>();
+                for (int i = 0; i < game.iSubTypes.length; i++)
+                    shields.add(new ArrayList<>());
+                for (int s = random.nextInt(4); s >= 0; s--) {
+                    int e = random.nextInt(n);
+                    int type1 = table.first[e], type2 = table.second[e];
+                    long hash = table.effects[e].hashCode;
+                    if (random.nextInt(4) == 0)
+                        hash++; // Shields from effects that are not defined change nothing.
+                    game.addShield(type1, type2, hash);
+                    shields.get(type1).add(new Pair<>(type2, hash));
+                }
+
+                for (int e = 0; e < n; e++) {
+                    int bit = table.shieldBit[e];
+                    boolean shielded = (game.shieldedEffects[table.first[e]][bit >>> 6] & (1L << bit)) != 0;
+                    boolean old = shields.get(table.first[e]).contains(new Pair<>(table.second[e], table.effects[e].hashCode));
+                    checkEquals(g[1] + " entry " + e, old, shielded);
+                }
+            }
+        }
+    }
+}
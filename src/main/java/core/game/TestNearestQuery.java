@@ -0,0 +1,124 @@
+package core.game;
+
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.Types;
+import tools.Utils;
+import tools.Vector2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks the k-nearest and radius queries of StateObservation against sorting all the
+ * observations of each category, in the first level of every single player game. Run from
+ * the root of the project.
+ */
+public class TestNearestQuery {
+
+    public static void main(String[] args) {
+        queriesMatchSortedLists();
+        report("TestNearestQuery");
+    }
+
+    private static final int[] CATEGORIES = {Types.TYPE_NPC, Types.TYPE_STATIC, Types.TYPE_MOVABLE,
+            Types.TYPE_RESOURCE, Types.TYPE_PORTAL, Types.TYPE_FROMAVATAR};
+
+    private static ArrayList<Observation>[] positions(StateObservation so, int category) {
+        switch (category) {
+            case Types.TYPE_NPC: return so.getNPCPositions();
+            case Types.TYPE_STATIC: return so.getImmovablePositions();
+            case Types.TYPE_MOVABLE: return so.getMovablePositions();
+            case Types.TYPE_RESOURCE: return so.getResourcesPositions();
+            case Types.TYPE_PORTAL: return so.getPortalsPositions();
+            default: return so.getFromAvatarSpritesPositions();
+        }
+    }
+
+    /**
+     * Observations of a category (from the lists of all its observations) that are in the
+     * grid, by observation id, with their square distance to the reference.
+     */
+    private static HashMap<Integer, Double> bruteForce(StateObservation so, int category, Vector2d reference) {
+        HashSet<Integer> inGrid = new HashSet<>();
+        for (ArrayList<Observation>[] column : so.getObservationGrid())
+            for (ArrayList<Observation> cell : column)
+                for (Observation obs : cell)
+                    inGrid.add(obs.obsID);
+
+        HashMap<Integer, Double> found = new HashMap<>();
+        ArrayList<Observation>[] lists = positions(so, category);
+        if (lists != null)
+            for (ArrayList<Observation> list : lists)
+                for (Observation obs : list)
+                    if (inGrid.contains(obs.obsID))
+                        found.put(obs.obsID, obs.position.sqDist(reference));
+        return found;
+    }
+
+    private static void check(String game, StateObservation so, Vector2d reference, Random random) {
+        for (int category : CATEGORIES) {
+            HashMap<Integer, Double> all = bruteForce(so, category, reference);
+            double[] sorted = new double[all.size()];
+            int n = 0;
+            for (double d : all.values())
+                sorted[n++] = d;
+            Arrays.sort(sorted);
+
+            for (int k : new int[]{1, 3, 8}) {
+                Observation[] result = new Observation[k];
+                int found = so.getNearest(category, reference, result);
+                checkEquals(game + " nearest " + k, Math.min(k, sorted.length), found);
+                double[] distances = new double[found];
+                for (int i = 0; i < found; i++) {
+                    checkEquals(game + " category", category, result[i].category);
+                    checkEquals(game + " distance", all.get(result[i].obsID), result[i].sqDist, 0);
+                    distances[i] = result[i].sqDist;
+                }
+                checkEquals(game + " nearest " + k + " distances", Arrays.copyOf(sorted, found), distances);
+            }
+
+            double radius = random.nextDouble() * 8 * so.getBlockSize();
+            HashSet<Integer> expected = new HashSet<>();
+            for (Map.Entry<Integer, Double> e : all.entrySet())
+                if (e.getValue() <= radius * radius)
+                    expected.add(e.getKey());
+            ArrayList<Observation> within = new ArrayList<>();
+            checkEquals(game + " within radius", expected.size(), so.getWithinRadius(category, reference, radius, within));
+            HashSet<Integer> ids = new HashSet<>();
+            for (Observation obs : within)
+                ids.add(obs.obsID);
+            checkEquals(game + " within radius ids", expected, ids);
+        }
+    }
+
+    private static void queriesMatchSortedLists() {
+        Random random = new Random(41);
+        for (String[] g : Utils.readGames("examples/all_games_sp.csv")) {
+            VGDLFactory.GetInstance().init();
+            VGDLRegistry.GetInstance().init();
+            Game game = new VGDLParser().parseGame(g[0]);
+            game.buildLevel(g[0].replace(".txt", "_lvl0.txt"), 41);
+            StateObservation so = game.getObservation();
+
+            for (int t = 0; t < 40 && !so.isGameOver(); t++) {
+                if (t % 10 == 0) {
+                    Vector2d reference = new Vector2d(random.nextDouble() * so.getWorldDimension().width,
+                            random.nextDouble() * so.getWorldDimension().height);
+                    check(g[1], so, reference, random);
+                    check(g[1], so, so.getAvatarPosition(), random);
+                }
+                ArrayList<Types.ACTIONS> actions = so.getAvailableActions();
+                so.advance(actions.get(random.nextInt(actions.size())));
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package core.game;
+
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.Types;
+import tools.Utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks that a client applying the frames of an ObservationDelta, as the clients'
+ * ObservationFrame does, keeps the same sprites as the game, in every single player game.
+ * Run from the root of the project.
+ */
+public class TestObservationDelta {
+
+    public static void main(String[] args) {
+        appliedFramesMatchTheGame();
+        report("TestObservationDelta");
+    }
+
+    private static final HashSet<String> NONE = new HashSet<>();
+
+    /**
+     * Sprites of a frame as the client keeps them: (itype, category, x, y) by id.
+     */
+    private static TreeMap<Integer, String> apply(TreeMap<Integer, String> client, ObservationDelta delta) {
+        if (delta.isKeyframe())
+            client.clear();
+        for (int id : delta.getRemoved())
+            client.remove(id);
+        int[] added = delta.getAdded();
+        for (int i = 0; i < added.length; i += ObservationDelta.ADDED_RECORD)
+            client.put(added[i], added[i + 1] + "," + added[i + 2] + "," + added[i + 3] + "," + added[i + 4]);
+        int[] moved = delta.getMoved();
+        for (int i = 0; i < moved.length; i += ObservationDelta.MOVED_RECORD) {
+            String[] sprite = client.get(moved[i]).split(",");
+            client.put(moved[i], sprite[0] + "," + sprite[1] + "," + moved[i + 1] + "," + moved[i + 2]);
+        }
+        return client;
+    }
+
+    /**
+     * All the visible sprites of a state, from a keyframe.
+     */
+    private static TreeMap<Integer, String> keyframe(StateObservation so) {
+        ObservationDelta full = new ObservationDelta();
+        full.next(so);
+        check("first frame is a keyframe", full.isKeyframe());
+        return apply(new TreeMap<>(), full);
+    }
+
+    /**
+     * Sprites in each cell of the level, for the sprites in it.
+     */
+    private static HashMap<Integer, HashSet<String>> cells(TreeMap<Integer, String> sprites, StateObservation so) {
+        int block = so.getBlockSize();
+        int w = so.getWorldDimension().width / block, h = so.getWorldDimension().height / block;
+        HashMap<Integer, HashSet<String>> cells = new HashMap<>();
+        for (Integer id : sprites.keySet()) {
+            String[] s = sprites.get(id).split(",");
+            int x = Math.floorDiv(Integer.parseInt(s[2]), block), y = Math.floorDiv(Integer.parseInt(s[3]), block);
+            if (x >= 0 && x < w && y >= 0 && y < h)
+                cells.computeIfAbsent(y * w + x, k -> new HashSet<>()).add(id + ":" + sprites.get(id));
+        }
+        return cells;
+    }
+
+    private static void appliedFramesMatchTheGame() {
+        Random random = new Random(48);
+        for (String[] g : Utils.readGames("examples/all_games_sp.csv")) {
+            VGDLFactory.GetInstance().init();
+            VGDLRegistry.GetInstance().init();
+            Game game = new VGDLParser().parseGame(g[0]);
+            game.buildLevel(g[0].replace(".txt", "_lvl0.txt"), 48);
+            StateObservation so = game.getObservation();
+
+            ObservationDelta delta = new ObservationDelta();
+            TreeMap<Integer, String> client = new TreeMap<>();
+            for (int t = 0; t < 120 && !so.isGameOver(); t++) {
+                HashMap<Integer, HashSet<String>> before = cells(client, so);
+                delta.next(so);
+                apply(client, delta);
+                checkEquals(g[1] + " frame " + t, keyframe(so), client);
+
+                if (!delta.isKeyframe()) {
+                    // Every cell whose sprites changed is listed.
+                    HashMap<Integer, HashSet<String>> after = cells(client, so);
+                    HashSet<Integer> changed = new HashSet<>(before.keySet());
+                    changed.addAll(after.keySet());
+                    changed.removeIf(c -> before.getOrDefault(c, NONE).equals(after.getOrDefault(c, NONE)));
+                    HashSet<Integer> listed = new HashSet<>();
+                    for (int c : delta.getChangedCells())
+                        listed.add(c);
+                    check(g[1] + " frame " + t + ": " + changed + " not in " + listed, listed.containsAll(changed));
+                }
+
+                // The client doesn't reply to some frames: the next one is a keyframe.
+                if (random.nextInt(10) == 0) {
+                    delta.reset();
+                    delta.next(so);
+                    checkEquals(g[1] + " base after reset", -1, delta.getBase());
+                    apply(client, delta);
+                }
+                delta.acknowledge();
+
+                ArrayList<Types.ACTIONS> actions = so.getAvailableActions();
+                so.advance(actions.get(random.nextInt(actions.size())));
+            }
+        }
+    }
+}
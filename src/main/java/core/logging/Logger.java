@@ -1,12 +1,18 @@
 package core.logging;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class Logger {
 
+    // Forward models advanced by agents in other threads add messages too, so all
+    // access to the list is synchronized.
     private static final Logger instance = new Logger();
     private ArrayList<Message> messages;
 
+    // Message lists of the tasks run with runApart(), in the threads running them
+    private final ThreadLocal<ArrayList<Message>> apart = new ThreadLocal<>();
+
     /**
      * To disable and enable logger
      */
@@ -34,8 +40,8 @@ public class Logger {
      *
      * @return list of errors and warnings
      */
-    public ArrayList<Message> getMessages(){
-        return this.messages;
+    public synchronized ArrayList<Message> getMessages(){
+        return current();
     }
 
     /**
@@ -43,9 +49,9 @@ public class Logger {
      * 
      * @return list of errors and warnings
      */
-    public ArrayList<Message> getMessages(int type){
+    public synchronized ArrayList<Message> getMessages(int type){
 	ArrayList<Message> result = new ArrayList<>();
-        for (Message message : messages) {
+        for (Message message : current()) {
             if (message.getType() == type) {
                 result.add(message);
             }
@@ -57,9 +63,9 @@ public class Logger {
      * Sends all messages to the console in one batch Flushes the message log
      * after this is done to prepare for a new game
      */
-    public void printMessages() {
+    public synchronized void printMessages() {
         System.out.println("*** Logged Messages ***");
-        for (Message msg : messages) {
+        for (Message msg : current()) {
             System.out.println(msg.toString());
         }
         System.out.println("*** Logged Messages End ***");
@@ -69,8 +75,8 @@ public class Logger {
      * Get the number of error and warning messages combined
      * @return 	number of error and warning messages
      */
-    public int getMessageCount() {
-        return messages.size();
+    public synchronized int getMessageCount() {
+        return current().size();
     }
 
     /**
@@ -78,9 +84,9 @@ public class Logger {
      * @param type 0 warnings, 1 errors
      * @return	number of errors or warnings
      */
-    public int getMessageCount(int type) {
+    public synchronized int getMessageCount(int type) {
         int result = 0;
-        for (Message message : messages) {
+        for (Message message : current()) {
             if (message.getType() == type) {
                 result += 1;
             }
@@ -94,17 +100,55 @@ public class Logger {
      * @param m
      *            the message to be added to messages
      */
-    public void addMessage(Message m) {
+    public synchronized void addMessage(Message m) {
         if(active){
-            messages.add(m);
+            current().add(m);
         }
     }
 
     /**
      * Empties the messages list of all messages
      */
-    public void flushMessages() {
-        messages.clear();
+    public synchronized void flushMessages() {
+        current().clear();
+    }
+
+    /**
+     * Adds messages to the messages list, as the ones returned by runApart()
+     *
+     * @param ms
+     *            the messages to be added to messages
+     */
+    public synchronized void addMessages(List<Message> ms) {
+        if(active){
+            current().addAll(ms);
+        }
+    }
+
+    /**
+     * Runs a task in the calling thread with a messages list of its own, so the messages it
+     * adds and counts are not mixed with those of tasks running at the same time in other
+     * threads (a game ends when too many messages are counted). The list starts empty.
+     *
+     * @param task
+     *            the task to run
+     * @return the messages added by the task
+     */
+    public ArrayList<Message> runApart(Runnable task) {
+        ArrayList<Message> outer = apart.get();
+        ArrayList<Message> own = new ArrayList<>();
+        apart.set(own);
+        try {
+            task.run();
+        } finally {
+            apart.set(outer);
+        }
+        return own;
+    }
+
+    private ArrayList<Message> current() {
+        ArrayList<Message> own = apart.get();
+        return own != null ? own : messages;
     }
 
 }
\ No newline at end of file
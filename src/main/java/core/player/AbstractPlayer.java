@@ -1,5 +1,7 @@
 package core.player;
 
+import core.competition.CompetitionParameters;
+import core.game.StateObservation;
 import core.game.StateObservationMulti;
 import ontology.Types;
 import tools.ElapsedCpuTimer;
@@ -18,8 +20,91 @@ import tools.ElapsedCpuTimer;
  */
 public abstract class AbstractPlayer extends Player {
 
+    /**
+     * Background search between calls to act() (created when first needed).
+     */
+    private Pondering pondering;
+
+    /**
+     * Whether the class of this controller overrides ponder() (null until checked).
+     */
+    private Boolean overridesPonder;
+
     public Types.ACTIONS act(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer) {
         return Types.ACTIONS.ACTION_NIL;
     }
 
-}
\ No newline at end of file
+    /**
+     * Searches in the background while the game runs, between calls to act(). It is only
+     * called if CompetitionParameters.PONDER is set, in a thread of its own, after act()
+     * returns, with the state predicted to follow the action returned. The controller can
+     * keep searching from it, calling pondering.proceed() regularly and returning as soon as
+     * it gives false, and use the results in the next call to act(), once checked against the
+     * real state received there. act() is not called until this method returns (or until
+     * CompetitionParameters.PONDER_STOP_TIME has passed: then the search is interrupted and
+     * dropped, and this method is not called again in the game). As a dropped search may run
+     * alongside act(), it must work on its own objects (tree, random generator...), and hand
+     * them to act() with pondering.publish(). It is not called in games with more than one
+     * player.
+     * Overwrite this method in your controller to ponder; by default it doesn't.
+     * @param predicted state after the last action returned by act(). It can be modified,
+     *                  and must not be used once this method returns.
+     * @param pondering control of the search, telling when to return.
+     */
+    public void ponder(StateObservation predicted, Pondering pondering)
+    {
+    }
+
+    /**
+     * Indicates if this controller ponders between calls to act(): when
+     * CompetitionParameters.PONDER is set and the controller overrides ponder().
+     * @return true if the controller ponders.
+     */
+    public boolean ponders() {
+        if (!CompetitionParameters.PONDER)
+            return false;
+        if (overridesPonder == null) {
+            try {
+                overridesPonder = getClass().getMethod("ponder", StateObservation.class, Pondering.class)
+                        .getDeclaringClass() != AbstractPlayer.class;
+            } catch (NoSuchMethodException e) {
+                overridesPonder = false;
+            }
+        }
+        return overridesPonder;
+    }
+
+    /**
+     * Gets the background search of this controller (see ponder()).
+     * @return the pondering of this controller.
+     */
+    public synchronized Pondering getPondering() {
+        if (pondering == null)
+            pondering = new Pondering(this);
+        return pondering;
+    }
+
+    @Override
+    public void stopPondering() {
+        // Not waiting with the lock of the player: the search may need it to return.
+        Pondering p;
+        synchronized (this) {
+            p = pondering;
+        }
+        if (p != null)
+            p.stop();
+    }
+
+    @Override
+    public void shutdownThreadPool() {
+        Pondering p;
+        synchronized (this) {
+            p = pondering;
+            pondering = null;
+        }
+        if (p != null)
+            p.shutdown();
+        super.shutdownThreadPool();
+    }
+
+}
@@ -0,0 +1,105 @@
+package core.player;
+
+import core.competition.CompetitionParameters;
+import tools.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Durations of the calls to act() of a player during a game, measured as the time limits
+ * are (see CompetitionParameters.TIMER_TYPE). Besides the distribution of durations, it
+ * counts the calls that overspent ACTION_TIME, the ones that were disqualifying
+ * (over ACTION_TIME_DISQ), the near misses (within NEAR_MISS_TIME of ACTION_TIME without
+ * exceeding it), and the calls during which the JVM was collecting garbage.
+ */
+public class ActTelemetry {
+
+    /**
+     * Margin below ACTION_TIME for a call to count as a near miss, in milliseconds.
+     */
+    public static final int NEAR_MISS_TIME = 5;
+
+    private static final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long overspent;
+    private long disqualifying;
+    private long nearMisses;
+    private long gcActs;
+    private long gcMillis;
+
+    /**
+     * Returns the total time spent in garbage collection by the JVM so far. It is read
+     * before and after each call to act() to detect collections during the call.
+     * @return collection time, in milliseconds.
+     */
+    public static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : gcBeans)
+            time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+
+    /**
+     * Records a call to act().
+     * @param nanos duration of the call, in nanoseconds.
+     * @param gcMillis time spent collecting garbage during the call, in milliseconds.
+     */
+    public void record(long nanos, long gcMillis) {
+        histogram.add(nanos);
+        long limit = CompetitionParameters.ACTION_TIME * 1000000L;
+        if (nanos > limit) {
+            overspent++;
+            if (nanos / 1000000 > CompetitionParameters.ACTION_TIME_DISQ)
+                disqualifying++;
+        } else if (nanos > limit - NEAR_MISS_TIME * 1000000L) {
+            nearMisses++;
+        }
+        if (gcMillis > 0) {
+            gcActs++;
+            this.gcMillis += gcMillis;
+        }
+    }
+
+    /**
+     * Adds all the calls recorded by another telemetry to this one.
+     * @param other telemetry to add.
+     */
+    public void add(ActTelemetry other) {
+        histogram.add(other.histogram);
+        overspent += other.overspent;
+        disqualifying += other.disqualifying;
+        nearMisses += other.nearMisses;
+        gcActs += other.gcActs;
+        gcMillis += other.gcMillis;
+    }
+
+    public LatencyHistogram getHistogram() { return histogram; }
+    public long getCount() { return histogram.count(); }
+    public long getOverspent() { return overspent; }
+    public long getDisqualifying() { return disqualifying; }
+    public long getNearMisses() { return nearMisses; }
+    public long getGcActs() { return gcActs; }
+    public long getGcMillis() { return gcMillis; }
+
+    /**
+     * Returns the summary as space separated key=value fields (times in milliseconds),
+     * to append to a results line.
+     * @return the summary.
+     */
+    public String toFields() {
+        return String.format(Locale.US,
+                "acts=%d p50=%.2f p90=%.2f p99=%.2f max=%.2f overspent=%d disq=%d nearMiss=%d gcActs=%d gcMs=%d",
+                histogram.count(), histogram.percentileMillis(50), histogram.percentileMillis(90),
+                histogram.percentileMillis(99), histogram.maxMillis(), overspent, disqualifying, nearMisses,
+                gcActs, gcMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "act() latency (ms): " + toFields();
+    }
+}
@@ -0,0 +1,143 @@
+package core.player;
+
+import core.competition.CompetitionParameters;
+import tools.CpuTimeSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of worker threads of a controller. Controllers that want to use more than one
+ * thread must run their work in this pool (Player.getThreadPool()), so the CPU time of
+ * all their threads is charged against their time budget (see
+ * CompetitionParameters.TIMER_TYPE). Work still running when a call returns is charged
+ * to the next call. Threads are created when first needed, and are stopped when the
+ * game is over.
+ */
+public class AgentThreadPool implements CpuTimeSource {
+    private static final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Executor that runs the tasks of the controller.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Player that owns this pool (used to name the threads).
+     */
+    private final Player owner;
+
+    /**
+     * All threads created by this pool.
+     */
+    private final ArrayList<Thread> threads;
+
+    /**
+     * Last CPU time read from each thread, in nanoseconds. Threads that have finished
+     * keep their last value.
+     */
+    private long[] lastCpuTimes;
+
+    /**
+     * CPU time of all threads already charged to a call of the controller, in nanoseconds.
+     */
+    private long chargedCpuTime;
+
+    /**
+     * Creates a pool for a player.
+     * @param owner player that owns the pool.
+     * @param numThreads maximum number of threads in the pool.
+     */
+    public AgentThreadPool(Player owner, int numThreads) {
+        this.owner = owner;
+        this.threads = new ArrayList<>();
+        this.lastCpuTimes = new long[0];
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), this::newThread);
+    }
+
+    /**
+     * Creates a pool for a player, with CompetitionParameters.AGENT_THREADS threads.
+     * @param owner player that owns the pool.
+     */
+    public AgentThreadPool(Player owner) {
+        this(owner, Math.max(1, CompetitionParameters.AGENT_THREADS));
+    }
+
+    private synchronized Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "agent-" + owner.getPlayerID() + "-worker-" + threads.size());
+        t.setDaemon(true);
+        threads.add(t);
+        long[] times = new long[threads.size()];
+        System.arraycopy(lastCpuTimes, 0, times, 0, lastCpuTimes.length);
+        lastCpuTimes = times;
+        return t;
+    }
+
+    /**
+     * Returns the executor to submit the work of the controller to.
+     * @return the executor.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the maximum number of threads that can run at the same time in this pool.
+     * @return the maximum number of threads.
+     */
+    public int getMaxThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the number of threads started so far.
+     * @return the number of threads.
+     */
+    @Override
+    public synchronized int getNumThreads() {
+        return threads.size();
+    }
+
+    /**
+     * Returns the CPU time used by all the threads of this pool since they were created.
+     * @return CPU time, in nanoseconds.
+     */
+    @Override
+    public synchronized long getCpuTime() {
+        long total = 0;
+        for (int i = 0; i < threads.size(); ++i) {
+            long cpu = bean.getThreadCpuTime(threads.get(i).getId());
+            if (cpu > lastCpuTimes[i])
+                lastCpuTimes[i] = cpu;
+            total += lastCpuTimes[i];
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long getChargedCpuTime() {
+        return chargedCpuTime;
+    }
+
+    /**
+     * Marks the CPU time used by the pool so far as charged. Called once a call of the
+     * controller has been timed: what the threads use from now on counts against the
+     * next call.
+     */
+    public synchronized void markCharged() {
+        chargedCpuTime = getCpuTime();
+    }
+
+    /**
+     * Stops all threads of the pool. Running tasks are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
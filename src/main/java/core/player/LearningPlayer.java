@@ -1,6 +1,8 @@
 package core.player;
 
 import core.competition.CompetitionParameters;
+import core.game.ObservationDelta;
+import core.game.ObservationTensor;
 import core.game.SerializableStateObservation;
 import core.game.StateObservation;
 import core.game.StateObservationMulti;
@@ -8,6 +10,7 @@ import ontology.Types;
 import tools.ElapsedCpuTimer;
 import tracks.singleLearning.utils.Comm;
 import tracks.singleLearning.utils.PipeComm;
+import tracks.singleLearning.utils.SharedMemoryComm;
 import tracks.singleLearning.utils.SocketComm;
 
 import java.io.IOException;
@@ -23,12 +26,27 @@ public class LearningPlayer extends Player {
      */
     private Comm comm;
 
+    /**
+     * Symbolic tensors sent to the client (see Types.LEARNING_SSO_TYPE.TENSOR), created when
+     * first requested and reused from step to step.
+     */
+    private ObservationTensor typeTensor, categoryTensor;
+
+    /**
+     * Incremental observation sent to the client (see Types.LEARNING_SSO_TYPE.DELTA).
+     */
+    private final ObservationDelta delta = new ObservationDelta();
+
     /**
      * Learning Player constructor.
      * Creates a new server side communication channel for every player.
      */
     public LearningPlayer(Process proc, String port) {
-        if (CompetitionParameters.USE_SOCKETS) {
+        if (CompetitionParameters.SHARED_MEMORY_FILE != null) {
+            //Memory-mapped file:
+            this.comm = new SharedMemoryComm(CompetitionParameters.SHARED_MEMORY_FILE);
+        }
+        else if (CompetitionParameters.USE_SOCKETS) {
             //Sockets:
             this.comm = new SocketComm(port);
         }
@@ -59,6 +77,7 @@ public class LearningPlayer extends Player {
         // Sending messages.
         try {
             SerializableStateObservation sso;
+            boolean deltaSent = false;
             switch (comm.getLastSsoType()) {
                 case JSON -> {
                     so.currentGameState = Types.GAMESTATES.ACT_STATE;
@@ -80,14 +99,39 @@ public class LearningPlayer extends Player {
                     sso = new SerializableStateObservation(so, true);
                     comm.commSend(sso.serialize(null));
                 }
+                case TENSOR -> {
+                    if (typeTensor == null)
+                        typeTensor = new ObservationTensor(false);
+                    sso = tensorObservation(so, typeTensor);
+                    comm.commSend(sso.serialize(null));
+                }
+                case TENSOR_CATEGORY -> {
+                    if (categoryTensor == null)
+                        categoryTensor = new ObservationTensor(true);
+                    sso = tensorObservation(so, categoryTensor);
+                    comm.commSend(sso.serialize(null));
+                }
+                case DELTA -> {
+                    so.currentGameState = Types.GAMESTATES.ACT_STATE;
+                    sso = new SerializableStateObservation(so, delta);
+                    comm.commSend(sso.serialize(null));
+                    deltaSent = true;
+                }
                 default -> System.err.println("LearningPlayer: act(): This should never happen.");
             }
 
             // Receive the response and set ACTION_NIL as default action
             String response = comm.commRecv();
-            if (response == null || response == "")
+            boolean replied = response != null && !response.isEmpty();
+            if (!replied)
                 response = Types.ACTIONS.ACTION_NIL.toString();
 
+            // Next frames are relative to this one only if the client replied to it.
+            if (replied && deltaSent)
+                delta.acknowledge();
+            else
+                delta.reset();
+
             //System.out.println("Received ACTION: " + response + "; ACT (Server) Response time: "
             //        + elapsedTimer.elapsedMillis() + " ms.");
 
@@ -110,6 +154,19 @@ public class LearningPlayer extends Player {
 
     }
 
+    /**
+     * Creates the observation of a state with a symbolic tensor, shared apart from the
+     * message if the communication channel can.
+     */
+    private SerializableStateObservation tensorObservation(StateObservation so, ObservationTensor tensor)
+            throws IOException {
+        so.currentGameState = Types.GAMESTATES.ACT_STATE;
+        SerializableStateObservation sso = new SerializableStateObservation(so, tensor, comm.canShareTensors());
+        if (sso.tensorShared)
+            comm.shareTensor(tensor);
+        return sso;
+    }
+
     /***
      * @param so           State observation of the current game in its initial state
      * @param isValidation true if the level to play is a validation one.
@@ -122,6 +179,7 @@ public class LearningPlayer extends Player {
             so.currentGameState = Types.GAMESTATES.INIT_STATE;
             SerializableStateObservation sso = new SerializableStateObservation(so);
             sso.isValidation = isValidation;
+            delta.reset();
 
             comm.commSend(sso.serialize(null));
             String initResponse = comm.commRecv();
@@ -151,6 +209,17 @@ public class LearningPlayer extends Player {
         return this.comm.finishGame(stateObs);
     }
 
+    /**
+     * Function called when a game of a learning session is over (see
+     * tracks.LearningMachine.runSession()).
+     *
+     * @param stateObs the game state at the end of the game
+     * @return the command of the client for the next game, or null if it didn't reply.
+     */
+    public String sessionResult(StateObservation stateObs) throws IOException {
+        return this.comm.sendResult(stateObs);
+    }
+
     /**
      * Starts the communication between the server and the client.
      *
@@ -57,6 +57,16 @@ public abstract class Player {
      */
     private boolean isHuman;
 
+    /**
+     * Worker threads of this player (created on first use).
+     */
+    private AgentThreadPool threadPool;
+
+    /**
+     * Durations of the calls to act() of this player.
+     */
+    private final ActTelemetry actTelemetry = new ActTelemetry();
+
     /**
      * Picks an action. This function is called every game step to request an
      * action from the player. The action returned must be contained in the
@@ -175,6 +185,44 @@ public abstract class Player {
      */
     public void setPlayerID(int id) { playerID = id; }
 
+    /**
+     * Gets the pool of worker threads of this player. Controllers that search in parallel
+     * must run their tasks in this pool: in CPU time mode (CompetitionParameters.TIMER_TYPE)
+     * the time used by these threads is added to the time of act(), and work left running
+     * when act() returns is charged to the next act(). Threads started any other way are
+     * not accounted for.
+     * @return the thread pool of this player.
+     */
+    public synchronized AgentThreadPool getThreadPool() {
+        if (threadPool == null)
+            threadPool = new AgentThreadPool(this);
+        return threadPool;
+    }
+
+    /**
+     * Stops the worker threads of this player, if any. Called when the game is over.
+     */
+    public synchronized void shutdownThreadPool() {
+        if (threadPool != null) {
+            threadPool.shutdown();
+            threadPool = null;
+        }
+    }
+
+    /**
+     * Stops the background search of this player between calls to act(), if any (see
+     * AbstractPlayer.ponder()), and waits until it returns. Called before act(), and when
+     * the game is over.
+     */
+    public void stopPondering() {
+    }
+
+    /**
+     * Gets the durations of the calls to act() of this player in the current game.
+     * @return the act() telemetry of this player.
+     */
+    public ActTelemetry getActTelemetry() { return actTelemetry; }
+
     /**
      * Get the history of actions of this player.
      * @return arrayList of all actions
@@ -0,0 +1,250 @@
+package core.player;
+
+import core.competition.CompetitionParameters;
+import core.game.StateObservation;
+import core.logging.Logger;
+import ontology.Types;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background search of a controller between its calls to act(), when
+ * CompetitionParameters.PONDER is set (see AbstractPlayer.ponder()). After each call to
+ * act(), the state of the game is advanced with the action returned, in a thread of this
+ * controller, and the controller searches from that predicted state while the game runs.
+ * The search must call proceed() regularly, and return when it gives false: when the game
+ * needs the controller again (before the next act(), or when the game is over). A search
+ * that doesn't return within CompetitionParameters.PONDER_STOP_TIME is interrupted and
+ * dropped, and the controller doesn't ponder again in this game. A dropped search may still
+ * be running when act() is called, so searches hand their results to the controller with
+ * publish(), which does nothing once the search is dropped.
+ *
+ * The CPU time used by the searches is kept within CompetitionParameters.PONDER_CPU_SHARE
+ * of the time they run: proceed() sleeps as needed, and a search that went over its share
+ * (not calling proceed() often enough) delays the start of the next one until the share
+ * is met again.
+ */
+public class Pondering {
+    private static final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Controller that ponders.
+     */
+    private final AbstractPlayer owner;
+
+    /**
+     * Thread where the controller ponders.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Search running, if any.
+     */
+    private Future<?> running;
+
+    /**
+     * Set when the running search must return.
+     */
+    private volatile boolean stopped = true;
+
+    /**
+     * Set when a search didn't stop in time: no other search is started, and the running one
+     * can't publish its results. Guarded by publishLock.
+     */
+    private boolean dropped;
+
+    /**
+     * Lock of the results of the search, held while they are published and when the search
+     * is dropped.
+     */
+    private final Object publishLock = new Object();
+
+    /**
+     * CPU time of the thread and wall time when the running search started, in nanoseconds.
+     */
+    private long startCpu, startWall;
+
+    /**
+     * CPU time used and wall time passed in the searches finished, in nanoseconds, to keep
+     * their share over the game.
+     */
+    private long usedCpu, usedWall;
+
+    /**
+     * Searches started in this game, and the CPU time and sleeping time of all of them,
+     * in nanoseconds.
+     */
+    private long searches, cpuNanos, throttledNanos;
+
+    /**
+     * Creates the pondering of a controller. Its thread is created when first needed.
+     * @param owner controller that ponders.
+     */
+    Pondering(AbstractPlayer owner) {
+        this.owner = owner;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "agent-" + owner.getPlayerID() + "-ponder");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Starts a search from the state that follows an action, stopping the running one first.
+     * @param state state where the action was decided, detached from the game
+     *              (StateObservation.copyDetached()). It is advanced by the search.
+     * @param action action returned by act() in that state.
+     */
+    public synchronized void start(StateObservation state, Types.ACTIONS action) {
+        stop();
+        if (dropped)
+            return;
+        stopped = false;
+        searches++;
+        // The warnings of the search aren't those of the game, and must not end it.
+        running = executor.submit(() -> Logger.getInstance().runApart(() -> {
+            startCpu = cpuTime();
+            startWall = System.nanoTime();
+            // Pay back the time over the share of the last searches first.
+            if (throttle()) {
+                state.advance(action);
+                if (!stopped && !state.isGameOver())
+                    owner.ponder(state, this);
+            }
+            long cpu = cpuTime() - startCpu;
+            cpuNanos += cpu;
+            usedCpu += cpu;
+            usedWall += System.nanoTime() - startWall;
+        }));
+    }
+
+    /**
+     * Checks if the search can go on, called by the search from its thread. It returns when
+     * the CPU time used by the searches is within CompetitionParameters.PONDER_CPU_SHARE of the
+     * time they ran, or when the search must stop.
+     * @return true if the search can go on, false if it must return.
+     */
+    public boolean proceed() {
+        return throttle();
+    }
+
+    /**
+     * Sleeps while the searches are over their CPU share (counting the ones finished).
+     * @return true if the search can go on, false if it must return.
+     */
+    private boolean throttle() {
+        double share = CompetitionParameters.PONDER_CPU_SHARE;
+        if (share <= 0)
+            return false;
+        // Without CPU time of threads, the share can't be kept.
+        while (!stopped && share < 1 && bean.isCurrentThreadCpuTimeSupported()) {
+            long ahead = (long) ((usedCpu + cpuTime() - startCpu) / share)
+                    - (usedWall + System.nanoTime() - startWall);
+            if (ahead <= 0)
+                break;
+            // Sleep in short slices, so stopping is not delayed.
+            long nanos = Math.min(ahead, 1000000);
+            try {
+                Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            throttledNanos += nanos;
+        }
+        return !stopped;
+    }
+
+    /**
+     * Hands the results of the search to the controller, called by the search from its thread
+     * before it returns. The results are published only if the search was not dropped: a
+     * dropped search keeps running alongside act(), and must not change what act() reads.
+     * Results published are seen by the next call to act().
+     * @param results code that stores the results where act() reads them.
+     * @return true if the results were published, false if the search was dropped.
+     */
+    public boolean publish(Runnable results) {
+        synchronized (publishLock) {
+            if (dropped)
+                return false;
+            results.run();
+            return true;
+        }
+    }
+
+    /**
+     * Indicates if the search must return.
+     * @return true if the search must return.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Tells the running search to stop, and waits until it returns, at most
+     * CompetitionParameters.PONDER_STOP_TIME. A search still running then is interrupted and
+     * dropped: its thread is left to finish on its own, it can't publish its results any more,
+     * and no other search is started.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (running == null)
+            return;
+        try {
+            running.get(CompetitionParameters.PONDER_STOP_TIME, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("Pondering of controller " + owner.getPlayerID() + " didn't stop in "
+                    + CompetitionParameters.PONDER_STOP_TIME + " ms, dropping it.");
+            synchronized (publishLock) {
+                dropped = true;
+            }
+            running.cancel(true);
+            executor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Pondering of controller " + owner.getPlayerID() + " failed: " + e.getCause());
+            e.getCause().printStackTrace();
+        }
+        running = null;
+    }
+
+    /**
+     * Stops the running search and the thread. Called when the game is over.
+     */
+    synchronized void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the number of searches started in this game.
+     * @return number of searches.
+     */
+    public long getSearches() { return searches; }
+
+    /**
+     * Gets the CPU time used by the searches of this game (without the running one).
+     * Like the other statistics, it must be read when the controller is not pondering.
+     * @return CPU time, in nanoseconds.
+     */
+    public long getCpuNanos() { return cpuNanos; }
+
+    /**
+     * Gets the time the searches of this game slept to keep within their CPU share.
+     * @return sleeping time, in nanoseconds.
+     */
+    public long getThrottledNanos() { return throttledNanos; }
+
+    private static long cpuTime() {
+        return bean.isCurrentThreadCpuTimeSupported() ? bean.getCurrentThreadCpuTime() : 0;
+    }
+}
@@ -0,0 +1,173 @@
+package core.vgdl;
+
+import core.content.GameContent;
+import core.game.Game;
+import core.logging.Logger;
+import core.logging.Message;
+import tools.IO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of a VGDL game description. The description is parsed once, and new
+ * games are created from the parsed sprite set, interaction set, terminations and
+ * level mapping (see Game.initFromTemplate()), without reading and parsing the file
+ * again. Templates are cached by file path and content hash, so a file that changes
+ * on disk is parsed again.
+ *
+ * Games created from the same template share their contents, terminations and stateless
+ * effects, as a game and its forward models do. The registry of sprite types is global
+ * (VGDLRegistry), so games must be created and played from one thread at a time.
+ *
+ * Games with external parameters (GameSpace, see VGDLParser.parseGameWithParameters())
+ * are not cached, as their definition depends on the parameter values.
+ */
+public class GameTemplate
+{
+    /**
+     * Templates parsed so far, by game description file.
+     */
+    private static final ConcurrentHashMap<String, GameTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Hash of the game description this template was parsed from.
+     */
+    private final byte[] hash;
+
+    /**
+     * Content of the first line of the description (game class and its parameters).
+     */
+    private final GameContent gameContent;
+
+    /**
+     * Game parsed from the description. It is never played, only copied.
+     */
+    private final Game game;
+
+    /**
+     * Sprite registry after parsing the description.
+     */
+    private final TreeMap<String, Integer> registry;
+
+    /**
+     * Messages (warnings and errors) logged while parsing the description.
+     */
+    private final ArrayList<Message> messages;
+
+    /**
+     * Number of games created from this template.
+     */
+    private int gamesCreated;
+
+    /**
+     * Parses a game description. The sprite registry is initialized before parsing.
+     * @param desc_lines lines of the game description.
+     * @param hash hash of the description.
+     */
+    private GameTemplate(String[] desc_lines, byte[] hash)
+    {
+        this.hash = hash;
+
+        Logger logger = Logger.getInstance();
+        int firstMessage = logger.getMessageCount();
+
+        VGDLRegistry.GetInstance().init();
+        VGDLParser parser = new VGDLParser();
+        Node rootNode = parser.indentTreeParser(desc_lines);
+        gameContent = (GameContent) rootNode.content;
+        game = parser.parseGame(rootNode);
+        registry = VGDLRegistry.GetInstance().snapshot();
+
+        ArrayList<Message> logged = logger.getMessages();
+        messages = new ArrayList<>(logged.subList(Math.min(firstMessage, logged.size()), logged.size()));
+    }
+
+    /**
+     * Returns the template of a game description file, parsing it only if it has not been
+     * parsed before or its content has changed.
+     * @param gamedesc_file filename of the file containing the game.
+     * @return the template, or null if the file can't be read.
+     */
+    public static GameTemplate get(String gamedesc_file)
+    {
+        String[] desc_lines = new IO().readFile(gamedesc_file);
+        if (desc_lines == null)
+            return null;
+
+        byte[] hash = hash(desc_lines);
+        GameTemplate template = templates.get(gamedesc_file);
+        if (template == null || !Arrays.equals(template.hash, hash))
+        {
+            template = new GameTemplate(desc_lines, hash);
+            templates.put(gamedesc_file, template);
+        }
+        return template;
+    }
+
+    /**
+     * Creates a game from a description file, as VGDLParser.parseGame() does, but
+     * parsing the file only the first time it is requested.
+     * @param gamedesc_file filename of the file containing the game.
+     * @return the game created, or null if the file can't be read.
+     */
+    public static Game createGame(String gamedesc_file)
+    {
+        GameTemplate template = get(gamedesc_file);
+        return (template == null) ? null : template.createGame();
+    }
+
+    /**
+     * Removes all templates from the cache.
+     */
+    public static void clear()
+    {
+        templates.clear();
+    }
+
+    /**
+     * Creates a new game, ready to build a level, from this template. The sprite registry
+     * is set back to the one of this template, and the messages logged when parsing the
+     * description are logged again (except for the first game, as they were just logged).
+     * @return the game created.
+     */
+    public Game createGame()
+    {
+        if (game == null)
+            return null;
+
+        VGDLRegistry.GetInstance().restore(registry);
+        if (gamesCreated++ > 0)
+            for (Message m : messages)
+                Logger.getInstance().addMessage(m);
+
+        Game newGame = VGDLFactory.GetInstance().createGame(gameContent);
+        newGame.initMulti();
+        newGame.initFromTemplate(game);
+        return newGame;
+    }
+
+    /**
+     * Hash of the content of a game description.
+     */
+    private static byte[] hash(String[] desc_lines)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String line : desc_lines)
+            {
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return digest.digest();
+        } catch (Exception e) {
+            //SHA-256 should always be available.
+            int h = Arrays.hashCode(desc_lines);
+            return new byte[]{(byte) (h >>> 24), (byte) (h >>> 16), (byte) (h >>> 8), (byte) h};
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package core.vgdl;
+
+import ontology.Types;
+import tools.Vector2d;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds VGDL parameters (name=value strings) to the public fields of sprites, effects,
+ * terminations and games. Field accessors are created once per class, and values are
+ * parsed without relying on exceptions, so game loading doesn't use reflection once
+ * every class involved has been seen.
+ */
+final class ParameterBinder
+{
+    /**
+     * Method type of all setters: (object, value) -> void.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Method type of int getters: (object) -> int.
+     */
+    private static final MethodType INT_GETTER_TYPE = MethodType.methodType(int.class, Object.class);
+
+    /**
+     * Setters of each class, by field name.
+     */
+    private static final ConcurrentHashMap<Class<?>, HashMap<String, Setter>> setters = new ConcurrentHashMap<>();
+
+    /**
+     * Int getters of each class, by lower case field name. Fields that exist but are not
+     * of type int are mapped to INVALID_GETTER.
+     */
+    private static final ConcurrentHashMap<Class<?>, HashMap<String, MethodHandle>> intGetters = new ConcurrentHashMap<>();
+
+    /**
+     * Marks a field that exists but can't be read as an int.
+     */
+    private static final MethodHandle INVALID_GETTER = MethodHandles.constant(int.class, -1);
+
+    /**
+     * Getters for the public static fields of ontology.Types (colours, directions, physics types...).
+     */
+    private static HashMap<String, MethodHandle> typesConstants;
+
+    private ParameterBinder() {}
+
+    /**
+     * Assigns a value to a field. Setter.set() does nothing if the value can't be
+     * assigned to the field (i.e. wrong type or final field).
+     */
+    static final class Setter
+    {
+        private final Class<?> type;
+        private final MethodHandle handle;
+
+        private Setter(Class<?> type, MethodHandle handle)
+        {
+            this.type = type;
+            this.handle = handle;
+        }
+
+        void set(Object obj, Object value)
+        {
+            if (handle == null || !isAssignable(type, value))
+                return;
+            try {
+                handle.invokeExact(obj, value);
+            } catch (Throwable e) {
+                //Same as an invalid assignment: the field keeps its value.
+            }
+        }
+    }
+
+    /**
+     * Returns the setters for the public fields of a class, indexed by field name.
+     * @param c class to get the setters of.
+     * @return the setters of the class.
+     */
+    static HashMap<String, Setter> getSetters(Class<?> c)
+    {
+        HashMap<String, Setter> map = setters.get(c);
+        if (map == null) {
+            map = createSetters(c);
+            setters.putIfAbsent(c, map);
+        }
+        return map;
+    }
+
+    /**
+     * Reads the value of an int field.
+     * @param obj object that holds the field.
+     * @param fieldName name of the field (case insensitive).
+     * @return the value, or -1 if the field doesn't exist. If the field is not an int,
+     *  an error is printed and -1 is returned.
+     */
+    static int getIntField(Object obj, String fieldName)
+    {
+        Class<?> c = obj.getClass();
+        HashMap<String, MethodHandle> map = intGetters.get(c);
+        if (map == null) {
+            map = createIntGetters(c);
+            intGetters.putIfAbsent(c, map);
+        }
+
+        MethodHandle getter = map.get(fieldName.toLowerCase());
+        if (getter == null)
+            return -1;
+        if (getter == INVALID_GETTER) {
+            System.out.println("ERROR: invalid requested int parameter " + fieldName);
+            return -1;
+        }
+        try {
+            return (int) getter.invokeExact(obj);
+        } catch (Throwable e) {
+            System.out.println("ERROR: invalid requested int parameter " + fieldName);
+            return -1;
+        }
+    }
+
+    /**
+     * Parses the value of a parameter. In order, the value can be a constant of
+     * ontology.Types (vectors are converted to directions), an integer (except for
+     * score changes), a double, a boolean (except for 'win', 'hidden' and 'invisible')
+     * or, if nothing else, a String.
+     * @param parameter name of the parameter.
+     * @param value value of the parameter, as read from VGDL.
+     * @return the parsed value.
+     */
+    static Object parseValue(String parameter, String value)
+    {
+        MethodHandle constant = getTypesConstants().get(value);
+        if (constant != null) {
+            try {
+                return (Object) constant.invokeExact();
+            } catch (Throwable e) {
+                //Not readable, try as a literal.
+            }
+        }
+
+        if (parameter.equalsIgnoreCase("scoreChange") || parameter.equalsIgnoreCase("scoreChangeIfKilled"))
+            return value;
+
+        if (isInteger(value))
+            return Integer.parseInt(value);
+
+        if (isDouble(value))
+            return Double.parseDouble(value);
+
+        if ((value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) && !parameter.equalsIgnoreCase("win")
+                && !parameter.equalsIgnoreCase("hidden") && !parameter.equalsIgnoreCase("invisible"))
+            return Boolean.parseBoolean(value);
+
+        return value;
+    }
+
+    /**
+     * Creates the setters of a class. If more than one public field has the same name
+     * (hidden fields), the last one returned by getFields() is used.
+     */
+    private static HashMap<String, Setter> createSetters(Class<?> c)
+    {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        HashMap<String, Setter> map = new HashMap<>();
+        for (Field field : c.getFields())
+        {
+            MethodHandle handle = null;
+            if (!Modifier.isFinal(field.getModifiers()))
+            {
+                try {
+                    handle = lookup.unreflectSetter(field);
+                    if (Modifier.isStatic(field.getModifiers()))
+                        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                    handle = handle.asType(SETTER_TYPE);
+                } catch (IllegalAccessException e) {
+                    handle = null;
+                }
+            }
+            map.put(field.getName(), new Setter(field.getType(), handle));
+        }
+        return map;
+    }
+
+    /**
+     * Creates the int getters of a class. If more than one public field has the same
+     * name (ignoring case), the first one returned by getFields() is used.
+     */
+    private static HashMap<String, MethodHandle> createIntGetters(Class<?> c)
+    {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        HashMap<String, MethodHandle> map = new HashMap<>();
+        for (Field field : c.getFields())
+        {
+            String key = field.getName().toLowerCase();
+            if (map.containsKey(key))
+                continue;
+
+            MethodHandle getter = INVALID_GETTER;
+            if (field.getType() == int.class || field.getType() == Integer.class)
+            {
+                try {
+                    MethodHandle handle = lookup.unreflectGetter(field);
+                    if (Modifier.isStatic(field.getModifiers()))
+                        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                    getter = handle.asType(INT_GETTER_TYPE);
+                } catch (IllegalAccessException e) {
+                    getter = INVALID_GETTER;
+                }
+            }
+            map.put(key, getter);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the getters of the constants in ontology.Types. Vector2d constants that
+     * correspond to a direction are replaced by the Direction constant (i.e. UP -> DUP).
+     */
+    private static synchronized HashMap<String, MethodHandle> getTypesConstants()
+    {
+        if (typesConstants != null)
+            return typesConstants;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType constantType = MethodType.methodType(Object.class);
+        HashMap<String, MethodHandle> map = new HashMap<>();
+        for (Field field : Types.class.getFields())
+        {
+            if (!Modifier.isStatic(field.getModifiers()))
+                continue;
+            try {
+                Field source = field;
+                Object val = field.get(null);
+                if (val instanceof Vector2d) {
+                    String dirName = Types.processField(field.getName()).getName();
+                    source = Types.class.getField(dirName);
+                }
+                map.put(field.getName(), lookup.unreflectGetter(source).asType(constantType));
+            } catch (Exception e) {
+                //Not a usable constant.
+            }
+        }
+        typesConstants = map;
+        return map;
+    }
+
+    /**
+     * Checks if a value can be assigned to a field of a given type, with the same
+     * conversions as Field.set() (unboxing and primitive widening).
+     */
+    private static boolean isAssignable(Class<?> type, Object value)
+    {
+        if (!type.isPrimitive())
+            return value == null || type.isInstance(value);
+        if (value == null)
+            return false;
+
+        Class<?> v = value.getClass();
+        if (type == int.class)
+            return v == Integer.class || v == Short.class || v == Byte.class || v == Character.class;
+        if (type == long.class)
+            return v == Long.class || v == Integer.class || v == Short.class || v == Byte.class || v == Character.class;
+        if (type == float.class)
+            return v == Float.class || v == Long.class || v == Integer.class || v == Short.class || v == Byte.class
+                    || v == Character.class;
+        if (type == double.class)
+            return v == Double.class || v == Float.class || v == Long.class || v == Integer.class || v == Short.class
+                    || v == Byte.class || v == Character.class;
+        if (type == boolean.class)
+            return v == Boolean.class;
+        if (type == short.class)
+            return v == Short.class || v == Byte.class;
+        if (type == char.class)
+            return v == Character.class;
+        if (type == byte.class)
+            return v == Byte.class;
+        return false;
+    }
+
+    /**
+     * Checks if a string is accepted by Integer.parseInt (radix 10).
+     */
+    private static boolean isInteger(String s)
+    {
+        int len = s.length();
+        if (len == 0)
+            return false;
+
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (len == 1)
+                return false;
+            i = 1;
+        }
+
+        //Accumulate negatively to reach Integer.MIN_VALUE, as Integer.parseInt does.
+        long result = 0;
+        for (; i < len; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0)
+                return false;
+            result = result * 10 - digit;
+            if (result < Integer.MIN_VALUE)
+                return false;
+        }
+        return negative || result != Integer.MIN_VALUE;
+    }
+
+    /**
+     * Checks if a string is accepted by Double.parseDouble. A fast check covers plain
+     * decimal numbers; other forms are checked against the grammar documented in
+     * Double.valueOf(String).
+     */
+    private static boolean isDouble(String s)
+    {
+        int len = s.length();
+        int i = 0;
+        if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+'))
+            i++;
+
+        boolean digits = false, dot = false, plain = i < len;
+        for (; plain && i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits = true;
+            else if (c == '.' && !dot)
+                dot = true;
+            else
+                plain = false;
+        }
+        if (plain)
+            return digits;
+
+        return DoubleGrammar.PATTERN.matcher(s).matches();
+    }
+
+    /**
+     * Grammar accepted by Double.valueOf(String), as documented in its Javadoc.
+     * Only compiled if a value is not a plain decimal number.
+     */
+    private static final class DoubleGrammar
+    {
+        private static final String Digits = "(\\p{Digit}+)";
+        private static final String HexDigits = "(\\p{XDigit}+)";
+        private static final String Exp = "[eE][+-]?" + Digits;
+        private static final String fpRegex =
+                ("[\\x00-\\x20]*" +
+                 "[+-]?(" +
+                 "NaN|" +
+                 "Infinity|" +
+                 "(((" + Digits + "(\\.)?(" + Digits + "?)(" + Exp + ")?)|" +
+                 "(\\.(" + Digits + ")(" + Exp + ")?)|" +
+                 "((" +
+                 "(0[xX]" + HexDigits + "(\\.)?)|" +
+                 "(0[xX]" + HexDigits + "?(\\.)" + HexDigits + ")" +
+                 ")[pP][+-]?" + Digits + "))" +
+                 "[fFdD]?))" +
+                 "[\\x00-\\x20]*");
+        private static final java.util.regex.Pattern PATTERN = java.util.regex.Pattern.compile(fpRegex);
+    }
+}
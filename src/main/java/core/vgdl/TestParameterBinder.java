@@ -0,0 +1,127 @@
+package core.vgdl;
+
+import ontology.Types;
+import tools.Direction;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks ParameterBinder against the reflection and exception based parsing it replaced.
+ */
+public class TestParameterBinder {
+
+    public static void main(String[] args) throws Exception {
+        valuesParseAsBefore();
+        directionsReplaceVectors();
+        settersAssignAsFieldSet();
+        intFieldsAreRead();
+        report("TestParameterBinder");
+    }
+
+    private static final String[] VALUES = {
+            "5", "-3", "+7", "0", "007", "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "0.5", ".5", "5.", "-0.25", "1e3", "1E-2", "NaN", "-Infinity", "0x1p3", "1f", "2d", " 2", "3 ",
+            "true", "False", "TRUE", "UP", "DOWN", "LEFT", "RIGHT", "NONE", "BLACK", "GREEN", "GRID",
+            "CONT", "abc", "", "-", "+", ".", "1_000", "1,5", "e3", "12abc", "avatar"
+    };
+
+    private static final String[] PARAMETERS = {
+            "speed", "scoreChange", "scoreChangeIfKilled", "win", "hidden", "invisible", "orientation"
+    };
+
+    /**
+     * Parsing of VGDLFactory.parseParameters() before ParameterBinder.
+     */
+    private static Object oldParse(String parameter, String value) {
+        try {
+            Field cfield = Types.processField(value);
+            return cfield.get(null);
+        } catch (Exception e) {
+            try {
+                if (!parameter.equalsIgnoreCase("scoreChange") && !parameter.equalsIgnoreCase("scoreChangeIfKilled"))
+                    return Integer.parseInt(value);
+                return value;
+            } catch (NumberFormatException e1) {
+                try {
+                    return Double.parseDouble(value);
+                } catch (NumberFormatException e2) {
+                    if ((value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+                            && !parameter.equalsIgnoreCase("win") && !parameter.equalsIgnoreCase("hidden")
+                            && !parameter.equalsIgnoreCase("invisible"))
+                        return Boolean.parseBoolean(value);
+                    return value;
+                }
+            }
+        }
+    }
+
+    private static void valuesParseAsBefore() {
+        for (String parameter : PARAMETERS) {
+            for (String value : VALUES) {
+                Object expected = oldParse(parameter, value);
+                Object parsed = ParameterBinder.parseValue(parameter, value);
+                checkEquals(parameter + "=" + value, expected, parsed);
+                checkEquals(parameter + "=" + value, expected.getClass(), parsed.getClass());
+            }
+        }
+    }
+
+    private static void directionsReplaceVectors() {
+        checkEquals("orientation=UP", Types.DUP, ParameterBinder.parseValue("orientation", "UP"));
+        checkEquals("orientation=LEFT", Types.DLEFT, ParameterBinder.parseValue("orientation", "LEFT"));
+    }
+
+    public static class Target {
+        public int count = 1;
+        public double speed = 1.0;
+        public boolean solid;
+        public String stype = "none";
+        public Integer boxed;
+        public final int fixed = 3;
+        public Direction orientation = Types.DNONE;
+    }
+
+    /**
+     * Assigns the value as Field.set() did, ignoring the values it rejected.
+     */
+    private static void oldSet(Object obj, String name, Object value) {
+        try {
+            obj.getClass().getField(name).set(obj, value);
+        } catch (Exception e) {
+            // Ignored, as in VGDLFactory.
+        }
+    }
+
+    private static void settersAssignAsFieldSet() throws Exception {
+        HashMap<String, ParameterBinder.Setter> setters = ParameterBinder.getSetters(Target.class);
+        Object[] values = {4, 2.5, 2.5f, true, "text", Types.DUP, null, 'c', (short) 2, 7L};
+        for (String name : new String[]{"count", "speed", "solid", "stype", "boxed", "fixed", "orientation"}) {
+            for (Object value : values) {
+                Target expected = new Target(), target = new Target();
+                oldSet(expected, name, value);
+                setters.get(name).set(target, value);
+                Field field = Target.class.getField(name);
+                checkEquals(name + "=" + value, field.get(expected), field.get(target));
+            }
+        }
+        check("no setter for missing", !setters.containsKey("missing"));
+    }
+
+    private static void intFieldsAreRead() {
+        Target target = new Target();
+        target.count = 42;
+        checkEquals("count", 42, ParameterBinder.getIntField(target, "count"));
+        checkEquals("COUNT", 42, ParameterBinder.getIntField(target, "COUNT"));
+        checkEquals("fixed", 3, ParameterBinder.getIntField(target, "fixed"));
+        checkEquals("speed", -1, ParameterBinder.getIntField(target, "speed"));
+        checkEquals("missing", -1, ParameterBinder.getIntField(target, "missing"));
+        target.boxed = 9;
+        checkEquals("boxed", 9, ParameterBinder.getIntField(target, "boxed"));
+        check("setters are cached", ParameterBinder.getSetters(Target.class) == ParameterBinder.getSetters(Target.class));
+    }
+}
@@ -24,7 +24,6 @@ import tools.Vector2d;
 
 import java.awt.*;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -319,58 +318,19 @@ public class VGDLFactory
      */
     public void parseParameters(Content content, Object obj)
     {
-        //Get all fields from the class and store it as key->field
-        Field[] fields = obj.getClass().getFields();
-        HashMap<String, Field> fieldMap = new HashMap<>();
-        for (Field field : fields)
-        {
-            String strField = field.toString();
-            int lastDot = strField.lastIndexOf('.');
-            String fieldName = strField.substring(lastDot + 1).trim();
+        //Get the (cached) setters of the class, as key->setter
+        HashMap<String, ParameterBinder.Setter> fieldMap = ParameterBinder.getSetters(obj.getClass());
 
-            fieldMap.put(fieldName, field);
-        }
-        Object objVal = null;
-        Field cfield = null;
         //Check all parameters from content
         for (Map.Entry<String, String> entry : content.parameters.entrySet())
         {
             String parameter = entry.getKey();
             String value = entry.getValue();
-            if (fieldMap.containsKey(parameter))
+            ParameterBinder.Setter setter = fieldMap.get(parameter);
+            if (setter != null)
             {
-
-                try {
-                    cfield = Types.processField(value);
-                    objVal = cfield.get(null);
-                } catch (Exception e) {
-                    try {
-                        if (!parameter.equalsIgnoreCase("scoreChange") && !parameter.equalsIgnoreCase("scoreChangeIfKilled"))
-                            objVal = Integer.parseInt(value);
-                        else objVal = value;
-                    } catch (NumberFormatException e1) {
-                        try {
-                            objVal = Double.parseDouble(value);
-                        } catch (NumberFormatException e2) {
-                            try {
-                                if((value.equalsIgnoreCase("true") ||
-                                   value.equalsIgnoreCase("false") ) && !parameter.equalsIgnoreCase("win")
-                                        && !parameter.equalsIgnoreCase("hidden")  && !parameter.equalsIgnoreCase("invisible"))
-                                    objVal = Boolean.parseBoolean(value);
-                                else
-                                    objVal = value;
-                            } catch (NumberFormatException e3) {
-                                objVal = value;
-                            }
-                        }
-                    }
-                }
-                try {
-                    fieldMap.get(parameter).set(obj, objVal);
-                } catch (Exception e) {
-                    //TODO: Do it later
-
-                }
+                //Values that can't be assigned to the field are ignored.
+                setter.set(obj, ParameterBinder.parseValue(parameter, value));
             }
             else
             {
@@ -402,24 +362,7 @@ public class VGDLFactory
      */
     public int requestFieldValueInt(Object obj, String fieldName)
     {
-        //Get all fields from the class and store it as key->field
-        Field[] fields = obj.getClass().getFields();
-        for (Field field : fields)
-        {
-            String strField = field.getName();
-            if(strField.equalsIgnoreCase(fieldName))
-            {
-                try{
-                    Object objVal = field.get(obj);
-                    return (Integer) objVal;
-                }catch(Exception e)
-                {
-                    System.out.println("ERROR: invalid requested int parameter " + fieldName);
-                    return -1;
-                }
-            }
-        }
-        return -1;
+        return ParameterBinder.getIntField(obj, fieldName);
     }
 
 }
\ No newline at end of file
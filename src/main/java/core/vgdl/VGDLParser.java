@@ -79,22 +79,34 @@ public class VGDLParser {
 	public Game parseGame(String gamedesc_file) {
 		String[] desc_lines = new IO().readFile(gamedesc_file);
 		if (desc_lines != null) {
-			Node rootNode = indentTreeParser(desc_lines);
+			parseGame(indentTreeParser(desc_lines));
+		}
 
-			// Parse here game and arguments of the first line
-			game = VGDLFactory.GetInstance().createGame((GameContent) rootNode.content);
-			game.initMulti();
+		return game;
+	}
 
-			// Parse the parameter nodes first, if any.
-			parseParameterNodes(rootNode);
+	/**
+	 * Parses a game from the tree structure of its description.
+	 *
+	 * @param rootNode
+	 *            the root VGDL node, as returned by indentTreeParser().
+	 * @return the game created
+	 */
+	public Game parseGame(Node rootNode) {
+		// Parse here game and arguments of the first line
+		game = VGDLFactory.GetInstance().createGame((GameContent) rootNode.content);
+		game.initMulti();
 
-			// Parse the nodes.
-			try {
-				parseNodes(rootNode);
-			} catch (Exception e) {
-			    logger.addMessage(new Message(Message.ERROR, "[PARSE ERROR] " + e));
-			}
+		// Parse the parameter nodes first, if any.
+		parseParameterNodes(rootNode);
+
+		// Parse the nodes.
+		try {
+			parseNodes(rootNode);
+		} catch (Exception e) {
+		    logger.addMessage(new Message(Message.ERROR, "[PARSE ERROR] " + e));
 		}
+		game.compileEffectDispatch();
 
 		return game;
 	}
@@ -122,6 +134,7 @@ public class VGDLParser {
 			} catch (Exception e) {
 			    logger.addMessage(new Message(Message.ERROR, "[PARSE ERROR] " + e));
 			}
+			game.compileEffectDispatch();
 		}
 
 		return game;
@@ -260,6 +273,7 @@ public class VGDLParser {
 		} catch (Exception e) {
 			logger.addMessage(new Message(1, "[PARSE ERROR]"));
 		}
+		currentGame.compileEffectDispatch();
 	}
 
 	/**
@@ -572,6 +586,9 @@ public class VGDLParser {
 				throw new Exception(
 						"[PARSE ERROR] bad format interaction entry. Line: " + ic.lineNumber + " : " + ic.line);
 			}
+
+			// The compiled interaction set of the game is now out of date.
+			game.invalidateEffectDispatch();
 		}
 	}
 
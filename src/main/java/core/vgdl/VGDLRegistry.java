@@ -37,6 +37,24 @@ public class VGDLRegistry
         sprite_mapping = new TreeMap<>();
     }
 
+    /**
+     * Returns a copy of the current sprite registry, so it can be restored later.
+     * @return copy of the mapping from sprite identifiers to their int values.
+     */
+    public TreeMap<String, Integer> snapshot()
+    {
+        return new TreeMap<>(sprite_mapping);
+    }
+
+    /**
+     * Replaces the current sprite registry by a copy of one obtained with snapshot().
+     * @param mapping mapping from sprite identifiers to their int values.
+     */
+    public void restore(TreeMap<String, Integer> mapping)
+    {
+        sprite_mapping = new TreeMap<>(mapping);
+    }
+
     /**
      * Returns the unique instance of this class.
      * @return the unique instance of this class.
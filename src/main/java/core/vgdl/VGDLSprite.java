@@ -8,13 +8,12 @@ import ontology.physics.ContinuousPhysics;
 import ontology.physics.GridPhysics;
 import ontology.physics.Physics;
 import tools.Direction;
+import tools.ImageCache;
 import tools.Utils;
 import tools.Vector2d;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
-import java.io.File;
 import java.util.*;
 
 /**
@@ -957,9 +956,13 @@ public abstract class VGDLSprite {
 
     /**
      * Loads the image that represents this sprite, using its string name as reference.
+     * Images are not loaded in headless mode (CompetitionParameters.HEADLESS).
      */
     public void loadImage()
     {
+        if(CompetitionParameters.HEADLESS)
+            return;
+
         String str = (orientedImg != null) ? orientedImg : img;
         boolean isOrientedImg = (orientedImg != null);
         Direction[] directions = {Types.DUP,Types.DDOWN,Types.DLEFT,Types.DRIGHT};
@@ -1030,39 +1033,23 @@ public abstract class VGDLSprite {
 
     private Image getImage(String image_file)
     {
-        try {
-
-            if((new File(image_file).exists())) {
-                return ImageIO.read(new File(image_file));
-            }
-
-            return ImageIO.read(this.getClass().getResource("/" + image_file));
-        } catch (Exception e) {
-            //e.printStackTrace();
-        }
-        return null;
+        return ImageCache.getImage(image_file);
     }
 
 
     private ArrayList<Image> getAnimatedImages(String imagePath)
     {
         ArrayList<Image> theImages = new ArrayList<>();
-        try{
-            boolean noMoreFiles = false;
-            int i = 0;
-
-            do{
-                String currentFile = imagePath + i + ".png";
-                if((new File(currentFile).exists())) {
-                    theImages.add(ImageIO.read(new File(currentFile)));
-                }
-                else {
-                    noMoreFiles = true;
-                }
-                i += 1;
-            }while(!noMoreFiles);
+        int i = 0;
+        Image currentImage = ImageCache.getFileImage(imagePath + i + ".png");
+        while(currentImage != null)
+        {
+            theImages.add(currentImage);
+            i += 1;
+            currentImage = ImageCache.getFileImage(imagePath + i + ".png");
+        }
+        if(!theImages.isEmpty())
             image = theImages.get(0); //Default.
-        }catch(Exception e) {}
         return theImages;
     }
 
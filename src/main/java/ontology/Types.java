@@ -195,7 +195,10 @@ public class Types {
     public enum LEARNING_SSO_TYPE {
         IMAGE,
         JSON,
-        BOTH
+        BOTH,
+        TENSOR,          // game data and a symbolic tensor with a channel per sprite type
+        TENSOR_CATEGORY, // game data and a symbolic tensor with a channel per sprite category
+        DELTA            // game data and the sprites changed since the last frame acknowledged
     }
 
     public static final int SCORE_DISQ = -1000;
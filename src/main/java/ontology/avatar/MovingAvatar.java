@@ -3,6 +3,11 @@ package ontology.avatar;
 import core.competition.CompetitionParameters;
 import core.content.SpriteContent;
 import core.game.Game;
+import core.game.StateObservation;
+import core.game.StateObservationMulti;
+import core.player.AbstractPlayer;
+import core.player.ActTelemetry;
+import core.player.AgentThreadPool;
 import core.player.Player;
 import core.vgdl.VGDLSprite;
 import ontology.Types;
@@ -40,6 +45,12 @@ public class MovingAvatar extends VGDLSprite {
 
     public Types.MOVEMENT lastMovementType = Types.MOVEMENT.STILL;
 
+    //Action decided by the controller before this avatar is updated (see decide()), and
+    //the time the controller took to decide it, in nanoseconds.
+    private ACTIONS decidedAction;
+    private long decidedTime;
+    private boolean decided;
+
     public MovingAvatar() {
     }
 
@@ -122,24 +133,21 @@ public class MovingAvatar extends VGDLSprite {
      * @param game
      */
     protected void requestPlayerInput(Game game) {
-        ElapsedCpuTimer ect = new ElapsedCpuTimer();
-        ect.setMaxTimeMillis(CompetitionParameters.ACTION_TIME);
-
-        Types.ACTIONS action;
-        if (game.no_players > 1) {
-            action = this.player.act(game.getObservationMulti(playerID), ect.copy());
-        } else {
-            action = this.player.act(game.getObservation(), ect.copy());
+        if (!decided) {
+            decide(game.no_players > 1 ? game.getObservationMulti(playerID) : game.getObservation());
         }
-        
+        decided = false;
+        Types.ACTIONS action = decidedAction;
+        double elapsedMillis = decidedTime / 1000000.0;
+
         if(action == null){
             action = ACTIONS.ACTION_NIL;
         }
 
-        if (CompetitionParameters.TIME_CONSTRAINED && ect.exceededMaxTime()) {
-            long exceeded = -ect.remainingTimeMillis();
+        if (CompetitionParameters.TIME_CONSTRAINED && elapsedMillis > CompetitionParameters.ACTION_TIME) {
+            long exceeded = -(long) (CompetitionParameters.ACTION_TIME - elapsedMillis);
 
-            if (ect.elapsedMillis() > CompetitionParameters.ACTION_TIME_DISQ) {
+            if ((long) elapsedMillis > CompetitionParameters.ACTION_TIME_DISQ) {
                 //The agent took too long to replay. The game is over and the agent is disqualified
                 System.out.println("Too long: " + playerID + "(exceeding " + (exceeded) + "ms): controller disqualified.");
                 game.disqualify(playerID);
@@ -162,6 +170,51 @@ public class MovingAvatar extends VGDLSprite {
         ki.setAction(action, getPlayerID());
     }
 
+    /**
+     * Asks the controller for its action in the current game state, timing it with the CPU
+     * time of the calling thread (plus that of the controller's thread pool). The action is
+     * applied, and its time checked, the next time this avatar requests the player's input.
+     * Game.tick() calls this from a different thread for each player when
+     * CompetitionParameters.SIMULTANEOUS_ACT is set. Controllers that ponder (see
+     * AbstractPlayer.ponder()) are stopped before act(), and started again after it.
+     * @param obs observation of the game for this player.
+     */
+    public void decide(StateObservation obs) {
+        // Stop the search of the controller since its last action, and keep the state to
+        // start the next one from, in case act() changes it.
+        this.player.stopPondering();
+        StateObservation ponderFrom = null;
+        if (this.player instanceof AbstractPlayer && ((AbstractPlayer) this.player).ponders()
+                && !(obs instanceof StateObservationMulti))
+            ponderFrom = obs.copyDetached();
+
+        AgentThreadPool workers = this.player.getThreadPool();
+        ElapsedCpuTimer ect = new ElapsedCpuTimer(workers);
+        ect.setMaxTimeMillis(CompetitionParameters.ACTION_TIME);
+        long gcTime = ActTelemetry.gcTime();
+
+        if (obs instanceof StateObservationMulti) {
+            decidedAction = this.player.act((StateObservationMulti) obs, ect.copy());
+        } else {
+            decidedAction = this.player.act(obs, ect.copy());
+        }
+        decidedTime = ect.elapsedNanos();
+        workers.markCharged();
+        this.player.getActTelemetry().record(decidedTime, ActTelemetry.gcTime() - gcTime);
+        decided = true;
+
+        if (ponderFrom != null)
+            ((AbstractPlayer) this.player).getPondering().start(ponderFrom,
+                    decidedAction == null ? ACTIONS.ACTION_NIL : decidedAction);
+    }
+
+    /**
+     * Discards an action decided and not applied (i.e. if this avatar was not updated).
+     */
+    public void clearDecision() {
+        decided = false;
+    }
+
 
     public void updateUse(Game game)
     {
@@ -21,7 +21,7 @@ import java.util.Comparator;
  * Time: 15:20
  * This is a Java port from Tom Schaul's VGDL - https://github.com/schaul/py-vgdl
  */
-public abstract class Effect{
+public abstract class Effect implements Cloneable{
 
     //Indicates if this effect kills any sprite
     public boolean is_kill_effect = false;
@@ -202,6 +202,31 @@ public abstract class Effect{
     }
 
 
+    /**
+     * Returns the effect to use in a new game created from the definition of another one
+     * (see Game.initFromTemplate()), or in a forward model advanced apart from its game (see
+     * ForwardModel.detach()). Executing an effect changes some of its fields (applyScore, count,
+     * collision...), which the game reads back, so each game gets a field by field copy. Effects
+     * that keep other information about the game (i.e. the sprites affected in the current game
+     * cycle) must also reset it in their copy.
+     * @return the effect to use in the new game.
+     */
+    public Effect copyForGame() {
+        return shallowCopy();
+    }
+
+    /**
+     * Returns a field by field copy of this effect, for copyForGame().
+     * @return the copy.
+     */
+    protected Effect shallowCopy() {
+        try {
+            return (Effect) clone();
+        } catch (CloneNotSupportedException e) {
+            return this;
+        }
+    }
+
     public void setStochastic() {
         if (prob > 0 && prob < 1)
             is_stochastic = true;
@@ -36,6 +36,14 @@ public class AddTimer extends TimeEffect
         timerDelegate = VGDLFactory.GetInstance().createEffect(null, icDelegate);
     }
 
+    @Override
+    public Effect copyForGame()
+    {
+        AddTimer ef = (AddTimer) shallowCopy();
+        ef.timerDelegate = timerDelegate.copyForGame();
+        return ef;
+    }
+
     @Override
     public void execute(VGDLSprite sprite1, VGDLSprite sprite2, Game game)
     {
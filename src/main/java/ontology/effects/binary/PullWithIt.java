@@ -38,6 +38,15 @@ public class PullWithIt extends Effect
         this.parseParameters(cnt);
     }
 
+    @Override
+    public Effect copyForGame()
+    {
+        PullWithIt ef = (PullWithIt) shallowCopy();
+        ef.lastGameTime = -1;
+        ef.spritesThisCycle = new ArrayList<>();
+        return ef;
+    }
+
     @Override
     public void execute(VGDLSprite sprite1, VGDLSprite sprite2, Game game)
     {
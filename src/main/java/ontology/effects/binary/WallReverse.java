@@ -33,6 +33,15 @@ public class WallReverse extends Effect
         this.parseParameters(cnt);
     }
 
+    @Override
+    public Effect copyForGame()
+    {
+        WallReverse ef = (WallReverse) shallowCopy();
+        ef.lastGameTime = -1;
+        ef.spritesThisCycle = new ArrayList<>();
+        return ef;
+    }
+
     @Override
     public void execute(VGDLSprite sprite1, VGDLSprite sprite2, Game game)
     {
@@ -31,6 +31,15 @@ public class WallStop extends Effect
         this.parseParameters(cnt);
     }
 
+    @Override
+    public Effect copyForGame()
+    {
+        WallStop ef = (WallStop) shallowCopy();
+        ef.lastGameTime = -1;
+        ef.spritesThisCycle = new ArrayList<>();
+        return ef;
+    }
+
     @Override
     public void execute(VGDLSprite sprite1, VGDLSprite sprite2, Game game)
     {
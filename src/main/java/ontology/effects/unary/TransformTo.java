@@ -10,6 +10,7 @@ import core.vgdl.VGDLSprite;
 import ontology.Types;
 import ontology.avatar.MovingAvatar;
 import ontology.effects.Effect;
+import tools.KeyHandler;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -92,9 +93,11 @@ public class TransformTo extends Effect {
                     Player p = game.getAvatar(id).player;
                     double score = game.getAvatar(id).getScore();
                     Types.WINNER win = game.getAvatar(id).getWinState();
+                    // keep the key handler of the replaced avatar, forward models may have their own
+                    KeyHandler ki = game.getAvatar(id).getKeyHandler();
                     game.setAvatar((MovingAvatar) newSprite, id);
                     game.getAvatar(id).player = p;
-                    game.getAvatar(id).setKeyHandler(Game.ki);
+                    game.getAvatar(id).setKeyHandler(ki);
                     game.getAvatar(id).setScore(score);
                     game.getAvatar(id).setWinState(win);
                     game.getAvatar(id).setPlayerID(id);
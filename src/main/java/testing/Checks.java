@@ -0,0 +1,72 @@
+package testing;
+
+import java.util.Arrays;
+
+/**
+ * Checks used by the Test* mains that verify parts of the engine (i.e. core.game.TestEffectDispatch).
+ * Each failed check is printed, and the checks go on. report() prints the totals at the end,
+ * and exits with status 1 if any check failed. The mains must be run from the root of the
+ * project, where the examples folder is.
+ */
+public class Checks {
+
+    /**
+     * Checks done and failed since the start.
+     */
+    private static int checks, failed;
+
+    /**
+     * Checks that a condition holds.
+     * @param what description of the check, printed if it fails.
+     * @param ok result of the check.
+     */
+    public static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failed++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+
+    /**
+     * Checks that two values are equal (arrays are compared by content).
+     * @param what description of the check, printed if it fails.
+     * @param expected value expected.
+     * @param actual value obtained.
+     */
+    public static void checkEquals(String what, Object expected, Object actual) {
+        boolean ok = Arrays.deepEquals(new Object[]{expected}, new Object[]{actual});
+        check(what + ": expected " + toString(expected) + ", got " + toString(actual), ok);
+    }
+
+    /**
+     * Checks that two integer values are equal, whatever their type.
+     */
+    public static void checkEquals(String what, long expected, long actual) {
+        check(what + ": expected " + expected + ", got " + actual, expected == actual);
+    }
+
+    /**
+     * Checks that two real values are equal, up to a tolerance.
+     */
+    public static void checkEquals(String what, double expected, double actual, double delta) {
+        check(what + ": expected " + expected + ", got " + actual,
+                Double.compare(expected, actual) == 0 || Math.abs(expected - actual) <= delta);
+    }
+
+    /**
+     * Prints the number of checks done and failed, and ends the program with status 1 if
+     * any check failed.
+     * @param name name of the test.
+     */
+    public static void report(String name) {
+        System.out.println(name + ": " + checks + " checks, " + failed + " failed.");
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    private static String toString(Object o) {
+        String s = Arrays.deepToString(new Object[]{o});
+        return s.substring(1, s.length() - 1);
+    }
+}
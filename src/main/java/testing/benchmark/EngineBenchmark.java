@@ -0,0 +1,384 @@
+package testing.benchmark;
+
+import com.google.gson.GsonBuilder;
+import core.competition.CompetitionParameters;
+import core.game.ForwardModel;
+import core.game.Game;
+import core.game.StateObservation;
+import core.game.StateObservationMulti;
+import core.logging.Logger;
+import core.vgdl.GameTemplate;
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.Types;
+import tools.StatSummary;
+import tools.Utils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Micro benchmarks of the engine hot paths, run on every game of the game collections
+ * (examples/all_games_sp.csv and examples/all_games_2p.csv), on the first level of each game:
+ *
+ *  - parseGame: VGDLParser.parseGame() of the game description (registry initialization included).
+ *  - buildLevel: Game.buildLevel() on a game just created from its template.
+ *  - copy: StateObservation.copy() of a state in the middle of a game.
+ *  - advance: StateObservation.advance() with random actions.
+ *  - eventHandling: Game.eventHandling() (collisions and effects) of a state in the middle of a game.
+ *  - getObservationGrid: StateObservation.getObservationGrid().
+ *
+ * Each benchmark runs some warm-up iterations and then some measurement iterations of a
+ * fixed duration. Only the operation is timed (state preparation is not). For each benchmark
+ * it reports the average time per operation with its error (99.9%, normal approximation),
+ * the bytes allocated per operation by the benchmark thread, and the number and time of
+ * garbage collections during measurement. Results are written as CSV, or as JSON if the
+ * output file ends with ".json", to compare the engine before and after a change.
+ *
+ * Usage: EngineBenchmark [-games sp|2p|all] [-filter name] [-bench name] [-wi n] [-i n]
+ *                        [-time ms] [-o file]
+ *
+ * The engine is run headless (CompetitionParameters.HEADLESS). Games are played from a single
+ * thread, as the sprite registry is global.
+ */
+public class EngineBenchmark {
+
+    /**
+     * Number of states in the middle of a game used by the state benchmarks, and maximum
+     * number of random steps played to reach them.
+     */
+    private static final int NUM_STATES = 16;
+    private static final int MAX_STEPS = 100;
+
+    /**
+     * Number of advance() calls on a copy before starting again from another state.
+     */
+    private static final int ADVANCE_ROLLOUT = 50;
+
+    /**
+     * Settings of the run.
+     */
+    private String games = "all";
+    private String gameFilter = null;
+    private String benchFilter = null;
+    private int warmupIterations = 3;
+    private int iterations = 5;
+    private long iterationTime = 200;
+    private String outputFile = "logs/engineBenchmark.csv";
+
+    /**
+     * Allocation counter of the JVM (null if not available).
+     */
+    private final com.sun.management.ThreadMXBean allocBean;
+
+    /**
+     * Cost of reading the clock and the allocation counter around an empty operation.
+     */
+    private long timeOverhead;
+    private long allocOverhead;
+
+    /**
+     * Reflective access to the parts of the engine that are not public.
+     */
+    private final Field modelField;
+    private final Method eventHandling;
+
+    private final Random rnd = new Random(0);
+    private final ArrayList<Result> results = new ArrayList<>();
+
+    /**
+     * Result of one benchmark on one game.
+     */
+    public static class Result {
+        public String benchmark;
+        public String game;
+        public int iterations;
+        public long ops;
+        public double score;
+        public double error;
+        public String unit = "ns/op";
+        public double allocBytesPerOp;
+        public long gcCount;
+        public long gcTimeMs;
+    }
+
+    /**
+     * An operation to benchmark. prepare() is called (untimed) before every call to op().
+     */
+    private interface Operation {
+        default void prepare() throws Exception {}
+        void op() throws Exception;
+    }
+
+    public EngineBenchmark() throws ReflectiveOperationException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean alloc = null;
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            alloc = (com.sun.management.ThreadMXBean) bean;
+            if (alloc.isThreadAllocatedMemorySupported())
+                alloc.setThreadAllocatedMemoryEnabled(true);
+            else
+                alloc = null;
+        }
+        allocBean = alloc;
+
+        modelField = StateObservation.class.getDeclaredField("model");
+        modelField.setAccessible(true);
+        eventHandling = Game.class.getDeclaredMethod("eventHandling");
+        eventHandling.setAccessible(true);
+    }
+
+    public static void main(String[] args) throws Exception {
+        EngineBenchmark bench = new EngineBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-games": bench.games = args[++i]; break;
+                case "-filter": bench.gameFilter = args[++i]; break;
+                case "-bench": bench.benchFilter = args[++i]; break;
+                case "-wi": bench.warmupIterations = Integer.parseInt(args[++i]); break;
+                case "-i": bench.iterations = Integer.parseInt(args[++i]); break;
+                case "-time": bench.iterationTime = Long.parseLong(args[++i]); break;
+                case "-o": bench.outputFile = args[++i]; break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    System.out.println("Usage: EngineBenchmark [-games sp|2p|all] [-filter name] [-bench name]"
+                            + " [-wi n] [-i n] [-time ms] [-o file]");
+                    return;
+            }
+        }
+
+        CompetitionParameters.HEADLESS = true;
+        bench.run();
+        bench.write();
+    }
+
+    /**
+     * Runs the benchmarks on all the selected games.
+     */
+    public void run() throws Exception {
+        VGDLFactory.GetInstance().init();
+        calibrate();
+        if (!games.equals("2p"))
+            runCollection("examples/all_games_sp.csv");
+        if (!games.equals("sp"))
+            runCollection("examples/all_games_2p.csv");
+    }
+
+    private void runCollection(String collection) throws Exception {
+        for (String[] entry : Utils.readGames(collection)) {
+            String gameFile = entry[0];
+            String gameName = entry[1];
+            if (gameFilter != null && !gameName.contains(gameFilter))
+                continue;
+            String levelFile = gameFile.replace(gameName, gameName + "_lvl0");
+            String id = gameFile.substring(gameFile.indexOf('/') + 1, gameFile.lastIndexOf('.'));
+            try {
+                runGame(id, gameFile, levelFile);
+            } catch (Exception e) {
+                System.out.println("Benchmark of " + id + " failed: " + e);
+            }
+            Logger.getInstance().flushMessages();
+        }
+    }
+
+    private void runGame(String id, String gameFile, String levelFile) throws Exception {
+        runBenchmark("parseGame", id, () -> {
+            VGDLRegistry.GetInstance().init();
+            new VGDLParser().parseGame(gameFile);
+        });
+
+        Game[] fresh = new Game[1];
+        runBenchmark("buildLevel", id, new Operation() {
+            public void prepare() { fresh[0] = GameTemplate.createGame(gameFile); }
+            public void op() { fresh[0].buildLevel(levelFile, 0); }
+        });
+
+        // States in the middle of a game, reached with random actions.
+        Game game = GameTemplate.createGame(gameFile);
+        game.buildLevel(levelFile, 0);
+        StateObservation initial = observation(game);
+        StateObservation[] states = new StateObservation[NUM_STATES];
+        for (int i = 0; i < NUM_STATES; i++) {
+            StateObservation st = initial.copy();
+            int steps = rnd.nextInt(MAX_STEPS);
+            for (int s = 0; s < steps && !st.isGameOver(); s++)
+                advance(st);
+            states[i] = st;
+        }
+
+        // The states are only read: benchmarks that change a state work on a copy of it.
+        int[] next = new int[1];
+        StateObservation[] sampled = new StateObservation[1];
+        runBenchmark("copy", id, new Operation() {
+            public void prepare() { sampled[0] = states[next[0]++ % NUM_STATES]; }
+            public void op() { sampled[0].copy(); }
+        });
+
+        int[] steps = new int[1];
+        StateObservation[] rollout = new StateObservation[1];
+        runBenchmark("advance", id, new Operation() {
+            public void prepare() {
+                if (rollout[0] == null || rollout[0].isGameOver() || steps[0]++ >= ADVANCE_ROLLOUT) {
+                    rollout[0] = states[next[0]++ % NUM_STATES].copy();
+                    steps[0] = 0;
+                }
+            }
+            public void op() { advance(rollout[0]); }
+        });
+
+        ForwardModel[] model = new ForwardModel[1];
+        runBenchmark("eventHandling", id, new Operation() {
+            public void prepare() throws Exception {
+                model[0] = (ForwardModel) modelField.get(states[next[0]++ % NUM_STATES].copy());
+            }
+            public void op() throws Exception { eventHandling.invoke(model[0]); }
+        });
+
+        runBenchmark("getObservationGrid", id, new Operation() {
+            public void prepare() { sampled[0] = states[next[0]++ % NUM_STATES]; }
+            public void op() { sampled[0].getObservationGrid(); }
+        });
+    }
+
+    private StateObservation observation(Game game) {
+        return game.no_players > 1 ? game.getObservationMulti(0) : game.getObservation();
+    }
+
+    /**
+     * Advances a state with random actions for all players.
+     */
+    private void advance(StateObservation st) {
+        if (st instanceof StateObservationMulti) {
+            StateObservationMulti stm = (StateObservationMulti) st;
+            Types.ACTIONS[] acts = new Types.ACTIONS[stm.getNoPlayers()];
+            for (int i = 0; i < acts.length; i++) {
+                ArrayList<Types.ACTIONS> available = stm.getAvailableActions(i);
+                acts[i] = available.get(rnd.nextInt(available.size()));
+            }
+            stm.advance(acts);
+        } else {
+            ArrayList<Types.ACTIONS> available = st.getAvailableActions();
+            st.advance(available.get(rnd.nextInt(available.size())));
+        }
+    }
+
+    /**
+     * Measures the cost of timing an empty operation, to subtract it from the results.
+     */
+    private void calibrate() {
+        long minTime = Long.MAX_VALUE, minAlloc = Long.MAX_VALUE;
+        for (int i = 0; i < 100000; i++) {
+            long a0 = allocated();
+            long t0 = System.nanoTime();
+            long t1 = System.nanoTime();
+            long a1 = allocated();
+            minTime = Math.min(minTime, t1 - t0);
+            minAlloc = Math.min(minAlloc, a1 - a0);
+        }
+        timeOverhead = minTime;
+        allocOverhead = minAlloc;
+    }
+
+    private long allocated() {
+        return allocBean == null ? 0 : allocBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long[] gcCounters() {
+        long count = 0, time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    /**
+     * Runs the warm-up and measurement iterations of a benchmark, and records its result.
+     */
+    private void runBenchmark(String name, String game, Operation operation) throws Exception {
+        if (benchFilter != null && !name.equals(benchFilter))
+            return;
+
+        for (int i = 0; i < warmupIterations; i++)
+            iteration(operation);
+
+        StatSummary scores = new StatSummary(name);
+        long ops = 0, allocBytes = 0;
+        long[] gc0 = gcCounters();
+        for (int i = 0; i < iterations; i++) {
+            long[] it = iteration(operation);
+            scores.add((double) it[1] / it[0]);
+            ops += it[0];
+            allocBytes += it[2];
+        }
+        long[] gc1 = gcCounters();
+
+        Result r = new Result();
+        r.benchmark = name;
+        r.game = game;
+        r.iterations = iterations;
+        r.ops = ops;
+        r.score = scores.mean();
+        r.error = iterations > 1 ? 3.29 * scores.stdErr() : Double.NaN;
+        r.allocBytesPerOp = allocBean == null ? Double.NaN : (double) allocBytes / ops;
+        r.gcCount = gc1[0] - gc0[0];
+        r.gcTimeMs = gc1[1] - gc0[1];
+        results.add(r);
+
+        System.out.println(String.format(Locale.US, "%-20s %-28s %14.1f +- %10.1f ns/op %12.1f B/op",
+                name, game, r.score, r.error, r.allocBytesPerOp));
+    }
+
+    /**
+     * Runs one iteration of a benchmark.
+     * @return number of operations, time taken by them (ns) and bytes allocated by them.
+     */
+    private long[] iteration(Operation operation) throws Exception {
+        long ops = 0, time = 0, alloc = 0;
+        long end = System.nanoTime() + iterationTime * 1000000L;
+        do {
+            operation.prepare();
+            long a0 = allocated();
+            long t0 = System.nanoTime();
+            operation.op();
+            long t1 = System.nanoTime();
+            long a1 = allocated();
+            time += Math.max(0, t1 - t0 - timeOverhead);
+            alloc += Math.max(0, a1 - a0 - allocOverhead);
+            ops++;
+        } while (System.nanoTime() < end);
+        return new long[]{ops, time, alloc};
+    }
+
+    /**
+     * Writes the results to the output file, as JSON if its name ends with ".json" and as CSV otherwise.
+     */
+    public void write() throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(outputFile))) {
+            if (outputFile.endsWith(".json")) {
+                out.println(new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues()
+                        .create().toJson(results));
+            } else {
+                out.println("benchmark,game,iterations,ops,score,error,unit,allocBytesPerOp,gcCount,gcTimeMs");
+                for (Result r : results)
+                    out.println(String.format(Locale.US, "%s,%s,%d,%d,%.3f,%.3f,%s,%.1f,%d,%d",
+                            r.benchmark, r.game, r.iterations, r.ops, r.score, r.error, r.unit,
+                            r.allocBytesPerOp, r.gcCount, r.gcTimeMs));
+            }
+        }
+        System.out.println("Results written to " + outputFile);
+    }
+
+    public ArrayList<Result> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,32 @@
+package testing.benchmark;
+
+import core.game.StateObservation;
+import ontology.Types;
+import tools.ElapsedCpuTimer;
+import tracks.singlePlayer.advanced.sampleMCTS.SingleMCTSPlayer;
+
+import java.util.Random;
+
+/**
+ * Single player MCTS agent (tracks.singlePlayer.advanced.sampleMCTS) with a fixed seed and
+ * the usual time budget, that reports the iterations of each search to the throughput benchmark.
+ */
+public class MCTSAgent extends tracks.singlePlayer.advanced.sampleMCTS.Agent {
+
+    public MCTSAgent(StateObservation so, ElapsedCpuTimer elapsedTimer) {
+        super(so, elapsedTimer);
+    }
+
+    @Override
+    public SingleMCTSPlayer getPlayer(StateObservation so, ElapsedCpuTimer elapsedTimer) {
+        return new SingleMCTSPlayer(new Random(ThroughputBenchmark.agentSeed), num_actions, actions);
+    }
+
+    @Override
+    public Types.ACTIONS act(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
+        Types.ACTIONS action = super.act(stateObs, elapsedTimer);
+        //Each iteration backs up once through the root.
+        ThroughputBenchmark.recordSearch(mctsPlayer.m_root.nVisits);
+        return action;
+    }
+}
@@ -0,0 +1,33 @@
+package testing.benchmark;
+
+import core.game.StateObservationMulti;
+import ontology.Types;
+import tools.ElapsedCpuTimer;
+import tracks.multiPlayer.advanced.sampleMCTS.SingleMCTSPlayer;
+
+import java.util.Random;
+
+/**
+ * Multi player MCTS agent (tracks.multiPlayer.advanced.sampleMCTS) with a fixed seed and
+ * the usual time budget, that reports the iterations of each search to the throughput benchmark.
+ */
+public class MCTSMultiAgent extends tracks.multiPlayer.advanced.sampleMCTS.Agent {
+
+    public MCTSMultiAgent(StateObservationMulti so, ElapsedCpuTimer elapsedTimer, int playerID) {
+        super(so, elapsedTimer, playerID);
+    }
+
+    @Override
+    public SingleMCTSPlayer getPlayer(StateObservationMulti so, ElapsedCpuTimer elapsedTimer, int[] NUM_ACTIONS,
+                                      Types.ACTIONS[][] actions, int id, int oppID, int no_players) {
+        return new SingleMCTSPlayer(new Random(ThroughputBenchmark.agentSeed + id), NUM_ACTIONS, actions,
+                id, oppID, no_players);
+    }
+
+    @Override
+    public Types.ACTIONS act(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer) {
+        Types.ACTIONS action = super.act(stateObs, elapsedTimer);
+        ThroughputBenchmark.recordSearch(mctsPlayer.m_root.nVisits);
+        return action;
+    }
+}
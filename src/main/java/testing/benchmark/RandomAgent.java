@@ -0,0 +1,28 @@
+package testing.benchmark;
+
+import core.game.StateObservation;
+import core.player.AbstractPlayer;
+import ontology.Types;
+import tools.ElapsedCpuTimer;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Single player agent that plays random actions with a fixed seed, without searching, so the
+ * throughput benchmark measures the game loop itself.
+ */
+public class RandomAgent extends AbstractPlayer {
+
+    private final Random randomGenerator;
+
+    public RandomAgent(StateObservation so, ElapsedCpuTimer elapsedTimer) {
+        randomGenerator = new Random(ThroughputBenchmark.agentSeed);
+    }
+
+    @Override
+    public Types.ACTIONS act(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
+        ArrayList<Types.ACTIONS> actions = stateObs.getAvailableActions();
+        return actions.get(randomGenerator.nextInt(actions.size()));
+    }
+}
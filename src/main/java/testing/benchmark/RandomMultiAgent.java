@@ -0,0 +1,29 @@
+package testing.benchmark;
+
+import core.game.StateObservationMulti;
+import core.player.AbstractMultiPlayer;
+import ontology.Types;
+import tools.ElapsedCpuTimer;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Multi player random agent with a fixed seed, for the throughput benchmark.
+ */
+public class RandomMultiAgent extends AbstractMultiPlayer {
+
+    private final int id;
+    private final Random randomGenerator;
+
+    public RandomMultiAgent(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer, int playerID) {
+        id = playerID;
+        randomGenerator = new Random(ThroughputBenchmark.agentSeed + playerID);
+    }
+
+    @Override
+    public Types.ACTIONS act(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer) {
+        ArrayList<Types.ACTIONS> actions = stateObs.getAvailableActions(id);
+        return actions.get(randomGenerator.nextInt(actions.size()));
+    }
+}
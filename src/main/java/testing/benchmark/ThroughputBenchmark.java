@@ -0,0 +1,250 @@
+package testing.benchmark;
+
+import com.google.gson.GsonBuilder;
+import core.competition.CompetitionParameters;
+import core.game.ForwardModel;
+import core.logging.Logger;
+import tools.Utils;
+import tracks.ArcadeMachine;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Throughput benchmark of the whole evaluation path. Plays every level of every game of the
+ * game collections (examples/all_games_sp.csv and examples/all_games_2p.csv) with
+ * ArcadeMachine.runOneGame(), headless, once with a random agent and once with an MCTS agent
+ * (both with fixed seeds, MCTS with the usual time budget per action). For each game it reports:
+ *
+ *  - game ticks, and forward model steps (advance()) and copies (copy()) per second,
+ *  - the average number of MCTS iterations per call to act(),
+ *  - time spent in garbage collection and peak heap usage.
+ *
+ * Forward model steps and copies include those of the warm-up done by runOneGame(). Results
+ * are written as CSV, or as JSON if the output file ends with ".json".
+ *
+ * Usage: ThroughputBenchmark [-games sp|2p|all] [-filter name] [-levels n] [-agents random|mcts|all]
+ *                            [-seed n] [-o file]
+ */
+public class ThroughputBenchmark {
+
+    /**
+     * Seed of the random generators of the benchmark agents.
+     */
+    static int agentSeed = 0;
+
+    /**
+     * Number of searches and total iterations reported by the MCTS agents in the current game.
+     */
+    private static long searches;
+    private static long iterations;
+
+    /**
+     * Settings of the run.
+     */
+    private String games = "all";
+    private String gameFilter = null;
+    private int levels = 5;
+    private String agents = "all";
+    private int gameSeed = 0;
+    private String outputFile = "logs/throughputBenchmark.csv";
+
+    private final ArrayList<Result> results = new ArrayList<>();
+
+    /**
+     * Result of one game played by one agent.
+     */
+    public static class Result {
+        public String game;
+        public int level;
+        public String agent;
+        public double win;
+        public double score;
+        public long gameTicks;
+        public long wallMs;
+        public double ticksPerSec;
+        public long fmSteps;
+        public double fmStepsPerSec;
+        public long copies;
+        public double copiesPerSec;
+        public double mctsItersPerAct;
+        public long gcCount;
+        public long gcTimeMs;
+        public double peakHeapMB;
+    }
+
+    /**
+     * Called by the MCTS agents after each search.
+     * @param numIterations iterations done in the search.
+     */
+    static synchronized void recordSearch(int numIterations) {
+        searches++;
+        iterations += numIterations;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ThroughputBenchmark bench = new ThroughputBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-games": bench.games = args[++i]; break;
+                case "-filter": bench.gameFilter = args[++i]; break;
+                case "-levels": bench.levels = Integer.parseInt(args[++i]); break;
+                case "-agents": bench.agents = args[++i]; break;
+                case "-seed": bench.gameSeed = agentSeed = Integer.parseInt(args[++i]); break;
+                case "-o": bench.outputFile = args[++i]; break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    System.out.println("Usage: ThroughputBenchmark [-games sp|2p|all] [-filter name] [-levels n]"
+                            + " [-agents random|mcts|all] [-seed n] [-o file]");
+                    return;
+            }
+        }
+
+        CompetitionParameters.HEADLESS = true;
+        CompetitionParameters.COUNT_FORWARD_MODEL = true;
+        bench.run();
+        bench.write();
+    }
+
+    /**
+     * Plays all the selected games.
+     */
+    public void run() {
+        if (!games.equals("2p"))
+            runCollection("examples/all_games_sp.csv", false);
+        if (!games.equals("sp"))
+            runCollection("examples/all_games_2p.csv", true);
+    }
+
+    private void runCollection(String collection, boolean multi) {
+        for (String[] entry : Utils.readGames(collection)) {
+            String gameFile = entry[0];
+            String gameName = entry[1];
+            if (gameFilter != null && !gameName.contains(gameFilter))
+                continue;
+            String id = gameFile.substring(gameFile.indexOf('/') + 1, gameFile.lastIndexOf('.'));
+
+            for (int level = 0; level < levels; level++) {
+                String levelFile = gameFile.replace(gameName, gameName + "_lvl" + level);
+                if (!new File(levelFile).exists())
+                    continue;
+                if (!agents.equals("mcts"))
+                    runGame(id, gameFile, levelFile, level, "random",
+                            multi ? RandomMultiAgent.class : RandomAgent.class, multi);
+                if (!agents.equals("random"))
+                    runGame(id, gameFile, levelFile, level, "mcts",
+                            multi ? MCTSMultiAgent.class : MCTSAgent.class, multi);
+            }
+        }
+    }
+
+    private void runGame(String id, String gameFile, String levelFile, int level, String agentName,
+                         Class<?> agent, boolean multi) {
+        String agentNames = multi ? agent.getName() + " " + agent.getName() : agent.getName();
+
+        synchronized (ThroughputBenchmark.class) {
+            searches = 0;
+            iterations = 0;
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            pool.resetPeakUsage();
+        long[] gc0 = gcCounters();
+        long steps0 = ForwardModel.getAdvanceCount();
+        long copies0 = ForwardModel.getCopyCount();
+        long start = System.nanoTime();
+
+        double[] res;
+        try {
+            res = ArcadeMachine.runOneGame(gameFile, levelFile, false, agentNames, null, gameSeed, 0);
+        } catch (Exception e) {
+            System.out.println("Benchmark of " + id + " (level " + level + ") failed: " + e);
+            return;
+        } finally {
+            Logger.getInstance().flushMessages();
+        }
+
+        long wall = System.nanoTime() - start;
+        long[] gc1 = gcCounters();
+        double seconds = wall / 1e9;
+
+        Result r = new Result();
+        r.game = id;
+        r.level = level;
+        r.agent = agentName;
+        r.win = res[0];
+        r.score = res[1];
+        r.gameTicks = (long) res[2];
+        r.wallMs = wall / 1000000;
+        r.ticksPerSec = r.gameTicks / seconds;
+        r.fmSteps = ForwardModel.getAdvanceCount() - steps0;
+        r.fmStepsPerSec = r.fmSteps / seconds;
+        r.copies = ForwardModel.getCopyCount() - copies0;
+        r.copiesPerSec = r.copies / seconds;
+        synchronized (ThroughputBenchmark.class) {
+            r.mctsItersPerAct = searches == 0 ? Double.NaN : (double) iterations / searches;
+        }
+        r.gcCount = gc1[0] - gc0[0];
+        r.gcTimeMs = gc1[1] - gc0[1];
+        r.peakHeapMB = peakHeap() / (1024.0 * 1024.0);
+        results.add(r);
+
+        System.out.println(String.format(Locale.US,
+                "%-28s lvl %d %-6s ticks %5d  %9.0f steps/s %9.0f copies/s  %8.1f iters/act  gc %5d ms  heap %7.1f MB",
+                id, level, agentName, r.gameTicks, r.fmStepsPerSec, r.copiesPerSec, r.mctsItersPerAct,
+                r.gcTimeMs, r.peakHeapMB));
+    }
+
+    private static long[] gcCounters() {
+        long count = 0, time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    /**
+     * Sum of the peak usage of all heap memory pools since they were last reset.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /**
+     * Writes the results to the output file, as JSON if its name ends with ".json" and as CSV otherwise.
+     */
+    public void write() throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(outputFile))) {
+            if (outputFile.endsWith(".json")) {
+                out.println(new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues()
+                        .create().toJson(results));
+            } else {
+                out.println("game,level,agent,win,score,gameTicks,wallMs,ticksPerSec,fmSteps,fmStepsPerSec,"
+                        + "copies,copiesPerSec,mctsItersPerAct,gcCount,gcTimeMs,peakHeapMB");
+                for (Result r : results)
+                    out.println(String.format(Locale.US,
+                            "%s,%d,%s,%.0f,%.1f,%d,%d,%.1f,%d,%.1f,%d,%.1f,%.1f,%d,%d,%.1f",
+                            r.game, r.level, r.agent, r.win, r.score, r.gameTicks, r.wallMs, r.ticksPerSec,
+                            r.fmSteps, r.fmStepsPerSec, r.copies, r.copiesPerSec, r.mctsItersPerAct,
+                            r.gcCount, r.gcTimeMs, r.peakHeapMB));
+            }
+        }
+        System.out.println("Results written to " + outputFile);
+    }
+
+    public ArrayList<Result> getResults() {
+        return results;
+    }
+}
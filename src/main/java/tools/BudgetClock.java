@@ -0,0 +1,140 @@
+package tools;
+
+/**
+ * Cheap view of the time budget of an ElapsedCpuTimer, for search loops that check the
+ * remaining time many times per decision. Reading the CPU time of a thread is a system
+ * call, so the clock reads it from the timer only once per sample interval, and in
+ * between estimates it with System.nanoTime(). A thread can't use more CPU time than
+ * wall time, so the estimate (scaled by the number of threads the timer counts, see
+ * Player.getThreadPool()) is never below the real elapsed time: the clock never
+ * reports more remaining time than the timer does. Close to the end of the budget it
+ * reads the timer on every call. Intervals (elapsedNanos(), elapsedMillisSince()) are
+ * always measured with readings of the timer.
+ *
+ * The clock doesn't allocate after creation. It must be used from the thread that
+ * measures the timer (the one running act()). Time limits are still enforced with the
+ * timer itself (CompetitionParameters.ACTION_TIME and ACTION_TIME_DISQ).
+ */
+public class BudgetClock {
+
+    /**
+     * Default wall time between two readings of the timer, in nanoseconds.
+     */
+    public static final long DEFAULT_SAMPLE_INTERVAL = 1000000;
+
+    /**
+     * Timer whose budget is followed.
+     */
+    private ElapsedCpuTimer timer;
+
+    /**
+     * Wall time between two readings of the timer, in nanoseconds.
+     */
+    private final long sampleInterval;
+
+    /**
+     * Elapsed time of the timer at the last reading, in nanoseconds.
+     */
+    private long lastElapsed;
+
+    /**
+     * Value of System.nanoTime() at the last reading.
+     */
+    private long lastWall;
+
+    /**
+     * Creates a clock for a timer, with the default sample interval.
+     * @param timer timer to follow.
+     */
+    public BudgetClock(ElapsedCpuTimer timer) {
+        this(timer, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates a clock for a timer.
+     * @param timer timer to follow.
+     * @param sampleIntervalNanos wall time between two readings of the timer, in nanoseconds.
+     */
+    public BudgetClock(ElapsedCpuTimer timer, long sampleIntervalNanos) {
+        this.sampleInterval = sampleIntervalNanos;
+        start(timer);
+    }
+
+    /**
+     * Starts following another timer (i.e. the one received in the next call to act()).
+     * @param timer timer to follow.
+     */
+    public void start(ElapsedCpuTimer timer) {
+        this.timer = timer;
+        sample();
+    }
+
+    /**
+     * Reads the elapsed time from the timer.
+     * @return the elapsed time, in nanoseconds.
+     */
+    private long sample() {
+        lastWall = System.nanoTime();
+        lastElapsed = timer.elapsed();
+        return lastElapsed;
+    }
+
+    /**
+     * Returns the elapsed time of the timer, or an upper bound of it.
+     * @return elapsed time, in nanoseconds.
+     */
+    public long elapsed() {
+        long sinceSample = System.nanoTime() - lastWall;
+        long estimate = lastElapsed + sinceSample * timer.parallelism();
+        if (sinceSample >= sampleInterval || timer.maxTime - estimate < 2 * sampleInterval)
+            return sample();
+        return estimate;
+    }
+
+    /**
+     * Reads the elapsed time from the timer, never an estimate, to mark the start of an
+     * interval measured with elapsedMillisSince(). Estimates are upper bounds, so the
+     * difference between an estimate and a reading could be too small, or negative.
+     * @return elapsed time, in nanoseconds.
+     */
+    public long elapsedNanos() {
+        return sample();
+    }
+
+    public long elapsedMillis() {
+        return (long) (elapsed() / 1000000.0);
+    }
+
+    /**
+     * Returns the time elapsed since a previous reading of elapsedNanos() (i.e. to time
+     * one iteration without creating a new timer). The timer is read again, so the time
+     * is exact, and never negative.
+     * @param mark previous reading of elapsedNanos().
+     * @return time elapsed since the mark, in milliseconds (truncated, as elapsedMillis()).
+     */
+    public long elapsedMillisSince(long mark) {
+        return (long) ((sample() - mark) / 1000000.0);
+    }
+
+    public long remainingTimeMillis() {
+        long diff = timer.maxTime - elapsed();
+        return (long) (diff / 1000000.0);
+    }
+
+    public boolean exceededMaxTime() {
+        return elapsed() > timer.maxTime;
+    }
+
+    /**
+     * Checks if there is time to keep searching: the remaining time must be larger than
+     * the time needed (i.e. a multiple of the average time per iteration) and than a
+     * safety margin.
+     * @param neededMillis time needed for the next step, in milliseconds.
+     * @param marginMillis minimum time that must remain, in milliseconds.
+     * @return true if there is time for the next step.
+     */
+    public boolean canContinue(double neededMillis, long marginMillis) {
+        long remaining = remainingTimeMillis();
+        return remaining > neededMillis && remaining > marginMillis;
+    }
+}
@@ -0,0 +1,28 @@
+package tools;
+
+/**
+ * Threads, other than the one reading an ElapsedCpuTimer, whose CPU time the timer counts
+ * (see ElapsedCpuTimer(CpuTimeSource)).
+ */
+public interface CpuTimeSource {
+
+    /**
+     * Returns the CPU time used by the threads so far.
+     * @return CPU time, in nanoseconds.
+     */
+    long getCpuTime();
+
+    /**
+     * Returns the part of getCpuTime() already charged to earlier timers. New timers
+     * count from here, so work still running after a timer was last read is charged
+     * to the next one.
+     * @return CPU time, in nanoseconds.
+     */
+    long getChargedCpuTime();
+
+    /**
+     * Returns the number of threads counted.
+     * @return the number of threads.
+     */
+    int getNumThreads();
+}
@@ -0,0 +1,147 @@
+package tools;
+
+import core.competition.CompetitionParameters;
+
+import java.util.Locale;
+
+/**
+ * Sequential stopping rule for the repetitions of a level, used by ArcadeMachine.runGames()
+ * and GVGExecutor when CompetitionParameters.ADAPTIVE_RUNS is true. The results of each
+ * repetition are added as they come, and the level is decided (no more repetitions are
+ * needed) after ADAPTIVE_MIN_RUNS repetitions when, for every player, either:
+ *
+ *  - the confidence intervals of the win rate (Wilson score interval) and of the mean score
+ *    are narrower than ADAPTIVE_WIN_WIDTH and ADAPTIVE_SCORE_WIDTH (the latter relative to the
+ *    mean score, or absolute for mean scores below 1), or
+ *  - a baseline win rate is set (ADAPTIVE_BASELINE_WIN >= 0) and the interval of the win rate
+ *    excludes it, so the player is clearly better or worse than the baseline.
+ *
+ * Intervals use the normal quantile ADAPTIVE_Z, not corrected for the repeated checks, so
+ * the actual error rate is somewhat higher than the nominal one.
+ */
+public class EarlyStopping {
+
+    private final int maxRuns;
+    private final StatSummary[] victories;
+    private final StatSummary[] scores;
+    private String reason;
+
+    /**
+     * Creates the stopping rule of a level.
+     * @param noPlayers number of players in the game.
+     * @param maxRuns maximum number of repetitions of the level.
+     */
+    public EarlyStopping(int noPlayers, int maxRuns) {
+        this.maxRuns = maxRuns;
+        victories = new StatSummary[noPlayers];
+        scores = new StatSummary[noPlayers];
+        for (int i = 0; i < noPlayers; i++) {
+            victories[i] = new StatSummary();
+            scores[i] = new StatSummary();
+        }
+    }
+
+    /**
+     * Adds the result of a player in a repetition.
+     * @param playerID player.
+     * @param win 1 if the player won, 0 otherwise.
+     * @param score final score of the player.
+     */
+    public void add(int playerID, double win, double score) {
+        victories[playerID].add(win);
+        scores[playerID].add(score);
+    }
+
+    /**
+     * Adds the results of a repetition, as returned by ArcadeMachine.runOneGame()
+     * (victory, score and game ticks of each player).
+     * @param result results of all players.
+     */
+    public void add(double[] result) {
+        for (int i = 0; i < victories.length && i * 3 + 1 < result.length; i++)
+            add(i, result[i * 3] == 1 ? 1 : 0, result[i * 3 + 1]);
+    }
+
+    /**
+     * Checks if the level is decided with the results added so far. Always false if
+     * CompetitionParameters.ADAPTIVE_RUNS is false.
+     * @return true if no more repetitions are needed.
+     */
+    public boolean isDecided() {
+        if (!CompetitionParameters.ADAPTIVE_RUNS || runs() < Math.max(2, CompetitionParameters.ADAPTIVE_MIN_RUNS))
+            return false;
+
+        String widths = "";
+        String baseline = "";
+        boolean narrow = true, separated = CompetitionParameters.ADAPTIVE_BASELINE_WIN >= 0;
+        for (int i = 0; i < victories.length; i++) {
+            if (victories[i].n() == 0)
+                continue;
+            double[] win = winInterval(i);
+            double scoreWidth = scoreWidth(i);
+            narrow &= win[1] - win[0] <= CompetitionParameters.ADAPTIVE_WIN_WIDTH
+                    && scoreWidth <= CompetitionParameters.ADAPTIVE_SCORE_WIDTH;
+            widths += String.format(Locale.US, " player%d win CI [%.2f, %.2f], score CI width %.3f;",
+                    i, win[0], win[1], scoreWidth);
+
+            double b = CompetitionParameters.ADAPTIVE_BASELINE_WIN;
+            separated &= win[0] > b || win[1] < b;
+            baseline += String.format(Locale.US, " player%d win CI [%.2f, %.2f] %s baseline %.2f;",
+                    i, win[0], win[1], win[0] > b ? "above" : (win[1] < b ? "below" : "includes"), b);
+        }
+
+        if (separated)
+            reason = "decided against baseline:" + baseline;
+        else if (narrow)
+            reason = "confidence intervals narrow enough:" + widths;
+        return separated || narrow;
+    }
+
+    /**
+     * Wilson score interval of the win rate of a player.
+     * @return lower and upper bounds.
+     */
+    public double[] winInterval(int playerID) {
+        double n = victories[playerID].n();
+        double p = victories[playerID].mean();
+        double z = CompetitionParameters.ADAPTIVE_Z;
+        double denom = 1 + z * z / n;
+        double centre = (p + z * z / (2 * n)) / denom;
+        double half = z * Math.sqrt(p * (1 - p) / n + z * z / (4 * n * n)) / denom;
+        return new double[]{Math.max(0, centre - half), Math.min(1, centre + half)};
+    }
+
+    /**
+     * Width of the confidence interval of the mean score of a player, relative to the
+     * mean score (absolute if the mean score is below 1).
+     */
+    public double scoreWidth(int playerID) {
+        StatSummary s = scores[playerID];
+        double width = 2 * CompetitionParameters.ADAPTIVE_Z * s.stdErr();
+        return width / Math.max(1, Math.abs(s.mean()));
+    }
+
+    /**
+     * Number of repetitions added so far.
+     */
+    public int runs() {
+        int n = 0;
+        for (StatSummary v : victories)
+            n = Math.max(n, v.n());
+        return n;
+    }
+
+    public StatSummary getVictories(int playerID) { return victories[playerID]; }
+    public StatSummary getScores(int playerID) { return scores[playerID]; }
+
+    /**
+     * Describes the stopping decision of a level.
+     * @param level level file.
+     * @return the decision, with the repetitions played.
+     */
+    public String report(String level) {
+        if (reason == null)
+            return "[EARLY STOP] " + level + ": played all " + runs() + "/" + maxRuns + " runs";
+        return "[EARLY STOP] " + level + ": stopped after " + runs() + "/" + maxRuns + " runs, " + reason;
+    }
+}
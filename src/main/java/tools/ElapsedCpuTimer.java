@@ -16,10 +16,27 @@ public class ElapsedCpuTimer {
     long oldTime;
     long maxTime;
 
+    /**
+     * Worker threads whose CPU time is added to the one of this thread (may be null).
+     */
+    CpuTimeSource workers;
+
     public ElapsedCpuTimer() {
         oldTime = getTime();
     }
 
+    /**
+     * Creates a timer that also counts the CPU time of the threads of a controller,
+     * including the time they used since it was last charged. The timer must be read
+     * from the thread that created it (the one calling the controller). In wall time
+     * mode the workers are ignored.
+     * @param workers worker threads of the controller.
+     */
+    public ElapsedCpuTimer(CpuTimeSource workers) {
+        this.workers = workers;
+        oldTime = usesCpuTime() ? threadCpuTime() + workers.getChargedCpuTime() : getTime();
+    }
+
 
     public ElapsedCpuTimer copy()
     {
@@ -27,6 +44,7 @@ public class ElapsedCpuTimer {
         newCpuTimer.maxTime = this.maxTime;
         newCpuTimer.oldTime = this.oldTime;
         newCpuTimer.bean = this.bean;
+        newCpuTimer.workers = this.workers;
         return newCpuTimer;
     }
 
@@ -70,15 +88,36 @@ public class ElapsedCpuTimer {
 
     private long getCpuTime() {
 
-        if(CompetitionParameters.OS_WIN)
+        if (!usesCpuTime())
             return System.nanoTime();
 
+        long time = threadCpuTime();
+        if (workers != null)
+            time += workers.getCpuTime();
+        return time;
+
+    }
+
+    private boolean usesCpuTime() {
+        return !CompetitionParameters.OS_WIN && CompetitionParameters.TIMER_TYPE != CompetitionParameters.TIMER_WALL;
+    }
+
+    private long threadCpuTime() {
         if (bean.isCurrentThreadCpuTimeSupported()) {
             return bean.getCurrentThreadCpuTime();
         } else {
             throw new RuntimeException("CpuTime NOT Supported");
         }
+    }
 
+    /**
+     * Maximum number of threads that may be using CPU time for this timer at once. Time
+     * counted by this timer can advance this many times faster than wall time.
+     */
+    int parallelism() {
+        if (workers == null || !usesCpuTime())
+            return 1;
+        return 1 + workers.getNumThreads();
     }
 
     public void setMaxTimeMillis(long time) {
@@ -0,0 +1,144 @@
+package tools;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, non-synchronized random number generator (xoroshiro128++ seeded with SplitMix64).
+ * It extends java.util.Random so it can be used anywhere a Random is expected, but it
+ * doesn't pay for the atomic seed update of java.util.Random on every draw. Not thread safe:
+ * each game and forward model owns its own instance.
+ *
+ * The same seed always produces the same stream. Independent streams for forward model
+ * copies are obtained with split(), which derives them from the current state of this
+ * generator and the number of splits made so far (as java.util.SplittableRandom does), so
+ * each copy of the same state gets a different stream, and a seeded game that makes the same
+ * copies in the same order replays identically. Splitting doesn't change the values this
+ * generator draws.
+ */
+public class FastRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Increment of SplitMix64 (odd approximation of 2^64 / golden ratio).
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Source of seeds for generators created without an explicit seed.
+     */
+    private static final AtomicLong seeder = new AtomicLong(System.nanoTime());
+
+    /**
+     * State of the xoroshiro128++ generator.
+     */
+    private long s0, s1;
+
+    /**
+     * Counter of split(), advanced by GOLDEN_GAMMA on each split.
+     */
+    private long splits;
+
+    /**
+     * Creates a generator with a seed that is different for each instance.
+     */
+    public FastRandom() {
+        this(mix64(seeder.getAndAdd(GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Creates a generator for the given seed.
+     * @param seed the seed.
+     */
+    public FastRandom(long seed) {
+        super(seed); // Calls setSeed(seed)
+    }
+
+    /**
+     * Private constructor used by copy().
+     */
+    private FastRandom(long s0, long s1, long splits) {
+        super(0);
+        this.s0 = s0;
+        this.s1 = s1;
+        this.splits = splits;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed); // Resets the cached gaussian.
+        long x = seed;
+        s0 = mix64(x += GOLDEN_GAMMA);
+        s1 = mix64(x + GOLDEN_GAMMA);
+        if ((s0 | s1) == 0)
+            s1 = GOLDEN_GAMMA; // All-zero state is not allowed.
+        splits = 0;
+    }
+
+    /**
+     * Returns a new generator with an independent stream, seeded from the current state of
+     * this one and its split counter, which is advanced: splitting it twice gives different
+     * streams. Only the counter changes, so the values this generator draws are the same
+     * with or without splits. It can be split from several threads.
+     * @return the new generator.
+     */
+    public synchronized FastRandom split() {
+        splits += GOLDEN_GAMMA;
+        return new FastRandom(mix64(s0 ^ mix64(s1 + splits)));
+    }
+
+    /**
+     * Returns a generator with exactly the same state as this one, split counter included.
+     * Both will produce the same values, and the same splits, from now on.
+     * @return the copy.
+     */
+    public FastRandom copy() {
+        return new FastRandom(s0, s1, splits);
+    }
+
+    @Override
+    public long nextLong() {
+        final long a = s0;
+        long b = s1;
+        final long result = Long.rotateLeft(a + b, 17) + a;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+        s1 = Long.rotateLeft(b, 28);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,91 @@
+package tools;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of decoded sprite images, keyed by path. Each image is read
+ * and decoded at most once per JVM, and missing files are remembered too, so
+ * building many games with the same sprites doesn't touch the disk again.
+ * Images are shared between sprites and must not be modified.
+ */
+public class ImageCache
+{
+    /**
+     * Marks a path with no image (missing file or decoding error).
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * Images read from files or class path resources, by path.
+     */
+    private static final ConcurrentHashMap<String, Object> images = new ConcurrentHashMap<>();
+
+    /**
+     * Images read only from files (no class path fallback), by path.
+     */
+    private static final ConcurrentHashMap<String, Object> fileImages = new ConcurrentHashMap<>();
+
+    private ImageCache() {}
+
+    /**
+     * Returns the image at the given path. The file system is checked first and,
+     * if the file doesn't exist, the path is looked up as a class path resource.
+     * @param path path of the image.
+     * @return the image, or null if it can't be read.
+     */
+    public static Image getImage(String path)
+    {
+        Object img = images.get(path);
+        if (img == null) {
+            img = read(path, true);
+            images.putIfAbsent(path, img);
+        }
+        return img == MISSING ? null : (Image) img;
+    }
+
+    /**
+     * Returns the image at the given path, only if it exists in the file system.
+     * @param path path of the image.
+     * @return the image, or null if the file doesn't exist or can't be read.
+     */
+    public static Image getFileImage(String path)
+    {
+        Object img = fileImages.get(path);
+        if (img == null) {
+            img = read(path, false);
+            fileImages.putIfAbsent(path, img);
+        }
+        return img == MISSING ? null : (Image) img;
+    }
+
+    /**
+     * Removes all images from the cache (i.e. if sprite files changed on disk).
+     */
+    public static void clear()
+    {
+        images.clear();
+        fileImages.clear();
+    }
+
+    private static Object read(String path, boolean useResources)
+    {
+        Image img = null;
+        try {
+            File file = new File(path);
+            if (file.exists()) {
+                img = ImageIO.read(file);
+            } else if (useResources) {
+                URL url = ImageCache.class.getResource("/" + path);
+                if (url != null)
+                    img = ImageIO.read(url);
+            }
+        } catch (Exception e) {
+            //e.printStackTrace();
+        }
+        return img == null ? MISSING : img;
+    }
+}
@@ -0,0 +1,111 @@
+package tools;
+
+/**
+ * Histogram of durations with a fixed memory footprint. Durations are recorded in
+ * microseconds in log-linear buckets: exact below 64 us, and 64 buckets per power of two
+ * above that, so percentiles have a relative error below 1/64. The maximum is kept exactly.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Buckets per power of two (as a power of two).
+     */
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Enough buckets for any duration that fits in an int of microseconds (over 35 minutes).
+     */
+    private static final int NUM_BUCKETS = (32 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[NUM_BUCKETS];
+    private long count;
+    private long sumMicros;
+    private long maxNanos;
+
+    /**
+     * Adds a duration to the histogram.
+     * @param nanos duration, in nanoseconds.
+     */
+    public void add(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        long micros = Math.min(nanos / 1000, Integer.MAX_VALUE);
+        counts[bucket(micros)]++;
+        count++;
+        sumMicros += micros;
+        if (nanos > maxNanos)
+            maxNanos = nanos;
+    }
+
+    /**
+     * Adds all the durations of another histogram to this one.
+     * @param other histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        sumMicros += other.sumMicros;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS)
+            return (int) micros;
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Lowest duration (in microseconds) that falls in a bucket.
+     */
+    private static long bucketStart(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double meanMillis() {
+        return count == 0 ? 0 : sumMicros / 1000.0 / count;
+    }
+
+    public double maxMillis() {
+        return maxNanos / 1000000.0;
+    }
+
+    /**
+     * Returns a percentile of the durations recorded: the middle of the bucket that
+     * contains it (never more than the maximum).
+     * @param percentile percentile, between 0 and 100.
+     * @return the duration, in milliseconds (0 if the histogram is empty).
+     */
+    public double percentileMillis(double percentile) {
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                double middle = (bucketStart(i) + bucketStart(i + 1)) / 2.0;
+                return Math.min(middle / 1000.0, maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+
+    public void reset() {
+        java.util.Arrays.fill(counts, 0);
+        count = 0;
+        sumMicros = 0;
+        maxNanos = 0;
+    }
+}
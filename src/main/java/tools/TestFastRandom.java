@@ -0,0 +1,139 @@
+package tools;
+
+import core.competition.CompetitionParameters;
+import core.game.Game;
+import core.game.StateObservation;
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.Types;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks that FastRandom streams, and the forward models that use them, are reproducible, and
+ * that copies of the same state get different streams. Run from the root of the project.
+ */
+public class TestFastRandom {
+
+    public static void main(String[] args) {
+        sameSeedSameStream();
+        copyContinuesTheStream();
+        siblingSplitsDiffer();
+        CompetitionParameters.RANDOM_GENERATOR = CompetitionParameters.RNG_FAST;
+        seededGameReplaysIdentically();
+        copiesOfTheSameStateDiffer();
+        report("TestFastRandom");
+    }
+
+    private static long[] draw(Random random, int n) {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++)
+            values[i] = random.nextLong();
+        return values;
+    }
+
+    private static void sameSeedSameStream() {
+        checkEquals("same seed", draw(new FastRandom(42), 100), draw(new FastRandom(42), 100));
+        check("different seeds", draw(new FastRandom(42), 1)[0] != draw(new FastRandom(43), 1)[0]);
+
+        FastRandom a = new FastRandom(42), b = new FastRandom(0);
+        b.setSeed(42);
+        checkEquals("setSeed", draw(a, 100), draw(b, 100));
+    }
+
+    private static void copyContinuesTheStream() {
+        FastRandom random = new FastRandom(7);
+        draw(random, 10);
+        FastRandom copy = random.copy();
+        checkEquals("copy", draw(random, 100), draw(copy, 100));
+    }
+
+    private static void siblingSplitsDiffer() {
+        FastRandom random = new FastRandom(7), reference = new FastRandom(7);
+        draw(random, 5);
+        draw(reference, 5);
+
+        // Each split of the same state gets its own stream.
+        FastRandom first = random.split(), second = random.split();
+        check("sibling splits", draw(first, 1)[0] != draw(second, 1)[0]);
+        check("split and parent", draw(random.copy(), 1)[0] != draw(random.split(), 1)[0]);
+
+        // Splitting doesn't change the values the parent draws.
+        checkEquals("parent after splits", draw(reference, 100), draw(random, 100));
+
+        // Copies of the parent make the same splits.
+        FastRandom copy = random.copy();
+        checkEquals("splits of copies", draw(random.split(), 100), draw(copy.split(), 100));
+    }
+
+    /**
+     * Appends the score, avatar position and number of movable sprites of a state to a trace.
+     */
+    private static void trace(StateObservation so, StringBuilder trace) {
+        trace.append(so.getGameScore()).append(',').append(so.getAvatarPosition()).append(',');
+        int sprites = 0;
+        ArrayList<core.game.Observation>[] movables = so.getMovablePositions();
+        if (movables != null)
+            for (ArrayList<core.game.Observation> list : movables)
+                sprites += list.size();
+        trace.append(sprites).append(';');
+    }
+
+    private static StateObservation startGame(int seed) {
+        VGDLFactory.GetInstance().init();
+        VGDLRegistry.GetInstance().init();
+        Game game = new VGDLParser().parseGame("examples/gridphysics/aliens.txt");
+        game.buildLevel("examples/gridphysics/aliens_lvl0.txt", seed);
+        return game.getObservation();
+    }
+
+    /**
+     * Plays a seeded game as a search would: before each move, a few copies of the state are
+     * rolled out, and the action of the best one is played. Returns a trace of the game.
+     */
+    private static String playSeededGame() {
+        StateObservation so = startGame(42);
+        StringBuilder trace = new StringBuilder();
+        for (int t = 0; t < 300 && !so.isGameOver(); t++) {
+            ArrayList<Types.ACTIONS> actions = so.getAvailableActions();
+            Types.ACTIONS best = actions.get(0);
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Types.ACTIONS action : actions) {
+                StateObservation copy = so.copy();
+                for (int d = 0; d < 10 && !copy.isGameOver(); d++)
+                    copy.advance(d == 0 ? action : Types.ACTIONS.ACTION_USE);
+                if (copy.getGameScore() > bestScore) {
+                    bestScore = copy.getGameScore();
+                    best = action;
+                }
+            }
+            so.advance(best);
+            trace(so, trace);
+        }
+        return trace.toString();
+    }
+
+    private static void seededGameReplaysIdentically() {
+        checkEquals("seeded game", playSeededGame(), playSeededGame());
+    }
+
+    private static void copiesOfTheSameStateDiffer() {
+        StateObservation so = startGame(42);
+        StringBuilder[] traces = {new StringBuilder(), new StringBuilder()};
+        for (StringBuilder trace : traces) {
+            StateObservation copy = so.copy();
+            for (int t = 0; t < 200 && !copy.isGameOver(); t++) {
+                copy.advance(Types.ACTIONS.ACTION_NIL);
+                trace(copy, trace);
+            }
+        }
+        // Aliens drop bombs at random: the two copies sample different futures.
+        check("copies of the same state", !traces[0].toString().equals(traces[1].toString()));
+    }
+}
@@ -1,8 +1,14 @@
 package tools;
 
+import core.competition.CompetitionParameters;
 import ontology.Types;
 
 import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Random;
 
@@ -35,6 +41,60 @@ public class Utils
         return elements.get(rnd.nextInt(elements.size()));
     }
 
+    /**
+     * Creates the random generator used by games and forward models, of the type
+     * set in CompetitionParameters.RANDOM_GENERATOR.
+     * @param seed seed of the generator.
+     * @return the new random generator.
+     */
+    public static Random createRandom(long seed)
+    {
+        if (CompetitionParameters.RANDOM_GENERATOR == CompetitionParameters.RNG_FAST)
+            return new FastRandom(seed);
+        return new Random(seed);
+    }
+
+    /**
+     * Creates a random generator for a copy of a game (i.e. a forward model), with
+     * a stream that is independent from the parent's one. With RNG_FAST, the stream is
+     * derived from the state of the parent's generator and the number of copies made from it
+     * (see FastRandom.split()), so a seeded game reproduces the same copies. With RNG_JAVA,
+     * the new generator is seeded arbitrarily.
+     * @param parent generator of the game being copied. It can be null.
+     * @return the new random generator.
+     */
+    public static Random splitRandom(Random parent)
+    {
+        if (parent instanceof FastRandom)
+            return ((FastRandom) parent).split();
+        if (CompetitionParameters.RANDOM_GENERATOR == CompetitionParameters.RNG_FAST)
+            return new FastRandom();
+        return new Random();
+    }
+
+    /**
+     * Returns a generator with the same state as the one given, so both produce the same
+     * values from now on.
+     * @param random generator to copy.
+     * @return the copy.
+     */
+    public static Random copyRandom(Random random)
+    {
+        if (random instanceof FastRandom)
+            return ((FastRandom) random).copy();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(random);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (Random) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Could not copy random generator", e);
+        }
+    }
+
     public static String formatString(String str)
     {
         // 1st replaceAll: compresses all non-newline whitespaces to single space
@@ -1,16 +1,19 @@
 package tracks;
 
 import core.competition.CompetitionParameters;
+import core.competition.ResultsJournal;
 import core.game.Game;
 import core.game.StateObservation;
 import core.game.StateObservationMulti;
 import core.player.AbstractMultiPlayer;
 import core.player.AbstractPlayer;
+import core.player.ActTelemetry;
 import core.player.Player;
+import core.vgdl.GameTemplate;
 import core.vgdl.VGDLFactory;
-import core.vgdl.VGDLParser;
 import core.vgdl.VGDLRegistry;
 import ontology.Types;
+import tools.EarlyStopping;
 import tools.ElapsedCpuTimer;
 import tools.StatSummary;
 
@@ -28,6 +31,19 @@ import java.util.Random;
 public class ArcadeMachine {
     public static final boolean VERBOSE = false;
 
+    /**
+     * Durations of the calls to act() of the players of the last game played by
+     * runOneGame() or runGames(), indexed by player ID (null for players that
+     * could not be created).
+     */
+    public static ActTelemetry[] actTelemetry;
+
+    /**
+     * Journal where runGames() records the result of each game, if not null. Games that
+     * already have a record in it (when resuming a sweep) are not played again.
+     */
+    public static ResultsJournal journal;
+
     /**
      * Reads and launches a game for a human to be played. Graphics always on.
      * 
@@ -83,6 +99,21 @@ public class ArcadeMachine {
      *            ID of the human player
      */
     public static double[] runOneGame(String game_file, String level_file, boolean visuals, String agentNames,
+	    String actionFile, int randomSeed, int playerID) {
+		// Sprite images are only needed to draw the game.
+		boolean headless = CompetitionParameters.HEADLESS;
+		CompetitionParameters.HEADLESS = headless || !visuals;
+		try {
+			return playGame(game_file, level_file, visuals, agentNames, actionFile, randomSeed, playerID);
+		} finally {
+			CompetitionParameters.HEADLESS = headless;
+		}
+	}
+
+    /**
+     * Plays a game for runOneGame(), with the same parameters.
+     */
+    private static double[] playGame(String game_file, String level_file, boolean visuals, String agentNames,
 	    String actionFile, int randomSeed, int playerID) {
 		VGDLFactory.GetInstance().init(); // This always first thing to do.
 		VGDLRegistry.GetInstance().init();
@@ -96,11 +127,11 @@ public class ArcadeMachine {
 		}
 
 		// First, we create the game to be played..
-		Game toPlay = new VGDLParser().parseGame(game_file);
+		Game toPlay = GameTemplate.createGame(game_file);
 		toPlay.buildLevel(level_file, randomSeed);
 
 		// Warm the game up.
-		warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+		WarmUpManager.warmUp(game_file, toPlay);
 
 		// Create the players.
 		String[] names = agentNames.split(" ");
@@ -116,6 +147,7 @@ public class ArcadeMachine {
 
 		boolean[] humans = new boolean[no_players];
 		boolean anyHuman = false;
+		actTelemetry = new ActTelemetry[no_players];
 
 		// System.out.println("Number of players: " + no_players);
 
@@ -142,6 +174,8 @@ public class ArcadeMachine {
 			players[i] = createPlayer(names[i], actionFile, toPlay.getObservation(), randomSeed,
 				humans[i]);
 			}
+			if (players[i] != null)
+				actTelemetry[i] = players[i].getActTelemetry();
 
 			if (players[i] == null) {
 			// Something went wrong in the constructor, controller
@@ -174,6 +208,7 @@ public class ArcadeMachine {
 		// This, the last thing to do in this method, always:
 		toPlay.handleResult();
 		toPlay.printResult();
+		writeEngineMetrics(toPlay, game_file, level_file);
 
 		return toPlay.getFullResult();
 	}
@@ -203,7 +238,7 @@ public class ArcadeMachine {
 		VGDLRegistry.GetInstance().init();
 
 		// First, we create the game to be played..
-		Game toPlay = new VGDLParser().parseGame(game_file);
+		Game toPlay = GameTemplate.createGame(game_file);
 		toPlay.buildLevel(level_file, 0);
 
 		String agentName;
@@ -387,12 +422,27 @@ public class ArcadeMachine {
      * 
      * @param game_file   game description file.
      * @param level_files  array of level file names to play.
-     * @param level_times   how many times each level has to be played.
+     * @param level_times   how many times each level has to be played (at most, if
+     *   CompetitionParameters.ADAPTIVE_RUNS is true: see tools.EarlyStopping).
      * @param actionFiles names of the files where the actions of this player, for this
      *   game, should be recorded. Accepts null if no recording is desired. If not null,
      *   this array must contain as much String objects as level_files.length*level_times.
      */
     public static void runGames(String game_file, String[] level_files, int level_times, String agentName, String[] actionFiles) {
+	// Games are not drawn: sprite images are not loaded.
+	boolean headless = CompetitionParameters.HEADLESS;
+	CompetitionParameters.HEADLESS = true;
+	try {
+	    playGames(game_file, level_files, level_times, agentName, actionFiles);
+	} finally {
+	    CompetitionParameters.HEADLESS = headless;
+	}
+    }
+
+    /**
+     * Plays the games of runGames(), with the same parameters.
+     */
+    private static void playGames(String game_file, String[] level_files, int level_times, String agentName, String[] actionFiles) {
 	VGDLFactory.GetInstance().init(); // This always first thing to do.
 	VGDLRegistry.GetInstance().init();
 
@@ -404,7 +454,7 @@ public class ArcadeMachine {
 			    + "you must supply an action file for each game instance to be played, or null.";
 	}
 
-	Game toPlay = new VGDLParser().parseGame(game_file);
+	Game toPlay = GameTemplate.createGame(game_file);
 	int levelIdx = 0;
 
 	StatSummary[] victories = new StatSummary[toPlay.getNoPlayers()];
@@ -414,16 +464,34 @@ public class ArcadeMachine {
 	    scores[i] = new StatSummary();
 	}
 	performance = new StatSummary();
+	ActTelemetry[] totalAct = new ActTelemetry[toPlay.getNoPlayers()];
+	for (int i = 0; i < totalAct.length; i++)
+	    totalAct[i] = new ActTelemetry();
 
+	int totalRuns = 0;
 	for (String level_file : level_files) {
-	    for (int i = 0; i < level_times; ++i) {
+	    EarlyStopping stopping = new EarlyStopping(toPlay.getNoPlayers(), level_times);
+	    for (int i = 0; i < level_times && !stopping.isDecided(); ++i) {
 		if (VERBOSE)
 		    System.out.println(" ** Playing game " + game_file + ", level " + level_file + " (" + (i + 1) + "/"
 			    + level_times + ") **");
 
+		// Skip the games already played (resuming from the journal).
+		ResultsJournal.Record done = journal == null ? null : journal.get(game_file, level_file, i, agentName);
+		if (done != null) {
+		    for (int id = 0; id < done.win.length && id < scores.length; id++) {
+			scores[id].add(done.score[id]);
+			victories[id].add(done.win[id]);
+			stopping.add(id, done.win[id], done.score[id]);
+		    }
+		    continue;
+		}
+
 		// Determine the random seed, different for each game to be
-		// played.
-		int randomSeed = new Random().nextInt();
+		// played (the same one if the sweep is resumed from the journal).
+		int randomSeed = journal == null ? new Random().nextInt()
+			: journal.seed(game_file, level_file, i, agentName);
+		long gameStart = System.currentTimeMillis();
 
 		// build the level in the game.
 		toPlay.buildLevel(level_file, randomSeed);
@@ -431,7 +499,7 @@ public class ArcadeMachine {
 		String filename = recordActions ? actionFiles[levelIdx * level_times + i] : null;
 
 		// Warm the game up.
-		warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+		WarmUpManager.warmUp(game_file, toPlay);
 
 		// Create the player.
 		String[] agentNames = agentName.split(" ");
@@ -460,6 +528,10 @@ public class ArcadeMachine {
 			players[j] = createPlayer(agentNames[j], filename, toPlay.getObservation(),
 				randomSeed, false);
 		    }
+		    if (j == 0)
+			actTelemetry = new ActTelemetry[no_players];
+		    if (players[j] != null)
+			actTelemetry[j] = players[j].getActTelemetry();
 		    score[j] = -1;
 		    if (players[j] == null) {
 				// Something went wrong in the constructor, controller
@@ -497,12 +569,22 @@ public class ArcadeMachine {
 			int id = player.getPlayerID();
 			scores[id].add(score[id]);
 			victories[id].add(toPlay.getWinner(id) == Types.WINNER.PLAYER_WINS ? 1 : 0);
+			stopping.add(id, toPlay.getWinner(id) == Types.WINNER.PLAYER_WINS ? 1 : 0, score[id]);
+			totalAct[id].add(player.getActTelemetry());
+			System.out.println("Player" + id + " " + player.getActTelemetry());
 		    }
+		writeEngineMetrics(toPlay, game_file, level_file);
+		if (journal != null)
+		    journal.write(ResultsJournal.record(game_file, level_file, i, agentName, randomSeed,
+			    toPlay.getFullResult(), System.currentTimeMillis() - gameStart));
 
 		// reset the game.
 		toPlay.reset();
 	    }
 
+	    totalRuns += stopping.runs();
+	    if (CompetitionParameters.ADAPTIVE_RUNS)
+		System.out.println(stopping.report(level_file));
 	    levelIdx++;
 	}
 
@@ -517,6 +599,26 @@ public class ArcadeMachine {
 	}
 	System.out.println("Results in game " + game_file + ", " + vict + " , " + sc);
 	 	//+ " , " + performance.mean());
+	for (int i = 0; i < totalAct.length; i++)
+	    System.out.println("Player" + i + " in game " + game_file + ", " + totalAct[i]);
+	if (CompetitionParameters.ADAPTIVE_RUNS)
+	    System.out.println("[EARLY STOP] " + game_file + ": played " + totalRuns + " of "
+		    + level_files.length * level_times + " runs");
+    }
+
+    /**
+     * Appends the engine metrics of a game just played to
+     * CompetitionParameters.ENGINE_METRICS_FILE, if they are collected.
+     */
+    private static void writeEngineMetrics(Game toPlay, String game_file, String level_file) {
+	if (!CompetitionParameters.ENGINE_METRICS || CompetitionParameters.ENGINE_METRICS_FILE == null)
+	    return;
+	try {
+	    toPlay.getMetrics().appendCSV(CompetitionParameters.ENGINE_METRICS_FILE,
+		    level_file == null ? game_file : level_file);
+	} catch (IOException e) {
+	    System.out.println("Can't write the engine metrics: " + e.getMessage());
+	}
     }
 
     /**
@@ -702,7 +804,8 @@ public class ArcadeMachine {
     /**
      * This methods takes the game and warms it up. This allows Java to finish
      * the runtime compilation process and optimize the code before the proper
-     * game starts.
+     * game starts. The machines use WarmUpManager instead, which warms up only
+     * once per game and until the engine is warm.
      * 
      * @param toPlay
      *            game to be warmed up.
@@ -884,8 +987,10 @@ public class ArcadeMachine {
 
 	    boolean noTeardownTimeout = true;
         for (Player p : players) {
+            p.stopPondering();
+
             // Determine the time due for the controller close up.
-            ElapsedCpuTimer ect = new ElapsedCpuTimer();
+            ElapsedCpuTimer ect = new ElapsedCpuTimer(p.getThreadPool());
             ect.setMaxTimeMillis(CompetitionParameters.TEAR_DOWN_TIME);
 
             // Inform about the result and the final game state.
@@ -906,6 +1011,8 @@ public class ArcadeMachine {
 
             if (VERBOSE)
                 System.out.println("Controller tear down time: " + timeTaken + " ms.");
+
+            p.shutdownThreadPool();
         }
 
         return noTeardownTimeout;
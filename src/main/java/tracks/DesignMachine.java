@@ -1,6 +1,5 @@
 package tracks;
 
-import core.competition.CompetitionParameters;
 import core.content.ParameterContent;
 import core.game.GameSpace;
 import core.player.AbstractMultiPlayer;
@@ -104,7 +103,7 @@ public class DesignMachine {
 		toPlay.buildLevel(level_file, randomSeed);
 
 		// Warm the game up.
-		ArcadeMachine.warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+		WarmUpManager.warmUp(game_file, toPlay);
 
 		// Create the players.
 		String[] names = agentNames.split(" ");
@@ -6,13 +6,14 @@ import core.game.StateObservation;
 import core.game.StateObservationMulti;
 import core.player.LearningPlayer;
 import core.player.Player;
+import core.vgdl.GameTemplate;
 import core.vgdl.VGDLFactory;
-import core.vgdl.VGDLParser;
 import core.vgdl.VGDLRegistry;
 import ontology.Types;
 import tools.ElapsedCpuTimer;
 import tools.StatSummary;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Random;
 
@@ -82,7 +83,7 @@ public class LearningMachine {
     private static double[] playOnce(LearningPlayer player, String actionFile, String game_file, String level_file,
                                      boolean visuals, int randomSeed) {
         //Create the game.
-        Game toPlay = new VGDLParser().parseGame(game_file);
+        Game toPlay = GameTemplate.createGame(game_file);
         toPlay.buildLevel(level_file, randomSeed);
 
         //Init the player for the game.
@@ -133,7 +134,7 @@ public class LearningMachine {
                     "you must supply an action file for each game instance to be played, or null.";
         }
 
-        Game toPlay = new VGDLParser().parseGame(game_file);
+        Game toPlay = GameTemplate.createGame(game_file);
         int levelIdx = 0;
 
         StatSummary[] victories = new StatSummary[toPlay.getNoPlayers()];
@@ -230,6 +231,111 @@ public class LearningMachine {
         player.finishPlayerCommunication();
     }
 
+    /**
+     * Runs a learning session: a single client plays games and levels of its choice, in the same
+     * server and connection, until it ends the session. Games are parsed once (see GameTemplate),
+     * so switching between them is cheap. The session starts with the first level of game_file,
+     * and after each level the client replies to its result with one of these commands:
+     *   "LOAD game [level [seed]]": plays a level of another game (or the same one). The game is a
+     *       description file, or the name of a game in gamesDir/examples/gridphysics (or contphysics).
+     *       The level is the index of a level of the game, or a level file (0 by default); the seed
+     *       is random if not given.
+     *   "N": plays level N of the current game.
+     *   "END_SESSION" (or "END_TRAINING", "END_VALIDATION"): ends the session.
+     * Any other reply plays a random training level of the current game.
+     *
+     * @param game_file game description file of the first game.
+     * @param gamesDir directory with the examples folder, where games are found by name.
+     * @param cmd array with name of the script file to run for the client, plus agent and port
+     * @param visuals true to show the graphics, false otherwise.
+     */
+    public static void runSession(String game_file, String gamesDir, String[] cmd, boolean visuals) throws IOException {
+        VGDLFactory.GetInstance().init(); //This always first thing to do.
+        VGDLRegistry.GetInstance().init();
+        CompetitionParameters.IS_LEARNING = true;
+
+        LearningPlayer player = createPlayer(cmd);
+        if (!player.startPlayerCommunication())
+            return;
+        LearningPlayer[] players = {player};
+        StatSummary[] scores = {new StatSummary()};
+        StatSummary[] victories = {new StatSummary()};
+
+        Random random = new Random();
+        String current = null, game = game_file;
+        String level = levelFile(game_file, 0);
+        int levelIdx = 0, seed = random.nextInt();
+        Game toPlay = null;
+
+        while (true) {
+            if (!new File(game).isFile() || !new File(level).isFile()) {
+                System.out.println("[SESSION] Can't find game " + game + ", level " + level + ".");
+                break;
+            }
+            if (!game.equals(current)) {
+                System.out.println("[SESSION] Playing game " + game + ".");
+                toPlay = GameTemplate.createGame(game);
+                current = game;
+            }
+            if (!playLevel(toPlay, level, seed, false, visuals, levelIdx, players, null, scores, victories))
+                break;
+
+            String response = players[0].sessionResult(toPlay.getObservation());
+            toPlay.reset();
+            if (response == null || response.equals("END_OVERSPENT"))
+                break; // Disqualified.
+            if (response.equals("END_SESSION") || response.equals("END_TRAINING") || response.equals("END_VALIDATION"))
+                break;
+
+            seed = random.nextInt();
+            String[] command = response.split("\\s+");
+            if (command[0].equals("LOAD") && command.length > 1) {
+                game = gameFile(command[1], gamesDir);
+                levelIdx = 0;
+                level = levelFile(game, 0);
+                if (command.length > 2) {
+                    if (command[2].matches("\\d+")) {
+                        levelIdx = Integer.parseInt(command[2]);
+                        level = levelFile(game, levelIdx);
+                    } else {
+                        level = command[2];
+                    }
+                }
+                if (command.length > 3 && command[3].matches("-?\\d+"))
+                    seed = Integer.parseInt(command[3]);
+            } else {
+                levelIdx = response.matches("\\d+") ? Integer.parseInt(response)
+                        : random.nextInt(Types.NUM_TRAINING_LEVELS);
+                level = levelFile(game, levelIdx);
+            }
+        }
+
+        // Every way out of the session ends here: summary of the levels played, then close the client.
+        System.out.println("[SESSION] Results in " + scores[0].n() + " levels, " +
+                victories[0].mean() + " , " + scores[0].mean());
+        player.finishPlayerCommunication();
+    }
+
+    /**
+     * Gets the description file of a game of a session: the path given, if it is a .txt file, or the
+     * game with that name in the examples of gamesDir.
+     */
+    private static String gameFile(String game, String gamesDir) {
+        if (game.endsWith(".txt"))
+            return game;
+        String grid = gamesDir + "/examples/gridphysics/" + game + ".txt";
+        if (new File(grid).isFile())
+            return grid;
+        return gamesDir + "/examples/contphysics/" + game + ".txt";
+    }
+
+    /**
+     * Gets the file of a level of a game, following the names of the examples (game_lvlN.txt).
+     */
+    private static String levelFile(String game_file, int levelIdx) {
+        return game_file.substring(0, game_file.length() - ".txt".length()) + "_lvl" + levelIdx + ".txt";
+    }
+
     /**
      * Method used to play a single given level. It is also used to request player input in regards
      * to the next game to be played.
@@ -257,16 +363,52 @@ public class LearningMachine {
         // Create a new random seed for the next level.
         int randomSeed = new Random().nextInt();
 
+        String filename = recordActions ? actionFiles[levelIdx * level_time] : null; // TODO: 22/05/17 check this
+
+        if (!playLevel(toPlay, level_file, randomSeed, isValidation, isVisual, levelIdx, players, actionFiles[0],
+                scores, victories))
+            return -1;
+
+        // Send results to player and save their choice of next level to be played
+        // First create a new observation
+        StateObservation so = toPlay.getObservation();
+
+        // Sends results to player and retrieve the next level to be played
+        int level = players[0].result(so);
+//        System.out.println("LearningMachine required level="+level);
+        //reset the game.
+        toPlay.reset();
+
+        return level;
+    }
+
+
+
+    /**
+     * Builds a level in a game and plays it with the learning player, adding its results to the stats.
+     *
+     * @param toPlay The game to be played. Must be pre-initialized.
+     * @param level_file Level file to be used to play the game.
+     * @param randomSeed Seed for the random generator of the game.
+     * @param isValidation Indicates if the level being played is a validation level
+     * @param levelIdx Level index, for the results printed.
+     * @param players Array of Player-type objects. Used to play the game
+     * @param actionFile File used to record the actions in for logging purposes.
+     * @param scores Array of scores to be modified. Is modified at the end of the level.
+     * @param victories Array of victories to be modified. Is modified at the end of the level.
+     * @return false if the player could not be initialized (and was disqualified), true otherwise.
+     */
+    private static boolean playLevel(Game toPlay, String level_file, int randomSeed, boolean isValidation,
+                                     boolean isVisual, int levelIdx, LearningPlayer[] players, String actionFile,
+                                     StatSummary[] scores, StatSummary[] victories) {
         //build the level in the game.
         toPlay.buildLevel(level_file, randomSeed);
 
-        String filename = recordActions ? actionFiles[levelIdx * level_time] : null; // TODO: 22/05/17 check this
-
         // Score array to hold handled results.
         double[] score;
 
         // Initialize the new learningPlayer instance.
-        LearningPlayer learningPlayer = initPlayer(players[0], actionFiles[0], randomSeed, isValidation, toPlay.getObservation());
+        LearningPlayer learningPlayer = initPlayer(players[0], actionFile, randomSeed, isValidation, toPlay.getObservation());
 
         // If the player cannot be initialized, disqualify the controller
         if (learningPlayer == null) {
@@ -275,7 +417,7 @@ public class LearningMachine {
             toPlay.getAvatars()[0].disqualify(true);
             toPlay.handleResult();
             toPlay.printLearningResult(levelIdx, isValidation);
-            return -1;
+            return false;
         }
         players[0] = learningPlayer;
 
@@ -298,21 +440,9 @@ public class LearningMachine {
             victories[0].add(toPlay.getWinner(0) == Types.WINNER.PLAYER_WINS ? 1 : 0);
         }
 
-        // Send results to player and save their choice of next level to be played
-        // First create a new observation
-        StateObservation so = toPlay.getObservation();
-
-        // Sends results to player and retrieve the next level to be played
-        int level = players[0].result(so);
-//        System.out.println("LearningMachine required level="+level);
-        //reset the game.
-        toPlay.reset();
-
-        return level;
+        return true;
     }
 
-
-
     /**
      * Creates a player given its name. This method starts the process that runs this client.
      *
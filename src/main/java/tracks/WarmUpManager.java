@@ -0,0 +1,175 @@
+package tracks;
+
+import core.competition.CompetitionParameters;
+import core.game.Game;
+import core.game.StateObservation;
+import core.game.StateObservationMulti;
+import ontology.Types;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Warms the JVM up before controllers play, so the runtime compilation of the engine does
+ * not eat into their time budget. Unlike ArcadeMachine.warmUp(), which runs for a fixed
+ * amount of work before every game, the manager warms up only once per game (or only once
+ * per JVM, see CompetitionParameters.WARMUP_PER_GAME), and stops as soon as the engine is
+ * warm: it plays random rollouts in batches of forward model steps, and finishes when the
+ * average time of a step is stable across the last batches. CompetitionParameters.WARMUP_TIME
+ * is only an upper bound.
+ *
+ * For each warm-up it records (and prints) its cost and the steady state time of a forward
+ * model step reached.
+ */
+public class WarmUpManager {
+
+    /**
+     * Forward model steps per measured batch.
+     */
+    private static final int BATCH_STEPS = 200;
+
+    /**
+     * Maximum length of a random rollout, before starting again from the current state.
+     */
+    private static final int ROLLOUT_LENGTH = 20;
+
+    /**
+     * Number of last batches compared, and maximum relative deviation of their average step
+     * times from their mean, for the engine to be considered warm.
+     */
+    private static final int MIN_BATCHES = 5;
+    private static final double TOLERANCE = 0.15;
+
+    /**
+     * Warm-ups done so far, by game (in order).
+     */
+    private static final LinkedHashMap<String, Stats> warmUps = new LinkedHashMap<>();
+
+    /**
+     * Result of the warm-up of a game.
+     */
+    public static class Stats {
+        public String game;
+        public long timeMs;
+        public int batches;
+        public long steps;
+        public long copies;
+        public double steadyStepMicros;
+        public boolean stable;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "[WARM-UP] %s: %d ms, %d steps, %d copies, steady step %.1f us%s",
+                    game, timeMs, steps, copies, steadyStepMicros, stable ? "" : " (time limit reached)");
+        }
+    }
+
+    /**
+     * Warms the engine up with a game, if needed: the first time a game is played (or the
+     * first time any game is played, if CompetitionParameters.WARMUP_PER_GAME is false).
+     * @param gameKey name of the game (i.e. its description file).
+     * @param toPlay game, with the level already built.
+     * @return the stats of the warm-up done, or null if it was not needed.
+     */
+    public static synchronized Stats warmUp(String gameKey, Game toPlay) {
+        if (!CompetitionParameters.WARMUP_PER_GAME && !warmUps.isEmpty())
+            return null;
+        if (warmUps.containsKey(gameKey))
+            return null;
+
+        Stats stats = run(toPlay, CompetitionParameters.WARMUP_TIME);
+        stats.game = gameKey;
+        warmUps.put(gameKey, stats);
+        System.out.println(stats);
+        return stats;
+    }
+
+    /**
+     * Returns the warm-ups done so far, by game.
+     */
+    public static synchronized ArrayList<Stats> getStats() {
+        return new ArrayList<>(warmUps.values());
+    }
+
+    /**
+     * Forgets all warm-ups done, so the next game is warmed up again.
+     */
+    public static synchronized void reset() {
+        warmUps.clear();
+    }
+
+    /**
+     * Plays random rollouts from the state of a game until the time of a step is stable.
+     */
+    private static Stats run(Game toPlay, long maxTimeMillis) {
+        Stats stats = new Stats();
+        Random rnd = new Random(0);
+        int no_players = toPlay.no_players;
+        StateObservation stateObs = no_players > 1 ? toPlay.getObservationMulti(0) : toPlay.getObservation();
+
+        long start = System.nanoTime();
+        long deadline = start + maxTimeMillis * 1000000L;
+        double[] means = new double[MIN_BATCHES];
+        StateObservation st = null;
+        int rolloutSteps = 0;
+
+        while (!stats.stable && System.nanoTime() < deadline) {
+            long stepTime = 0;
+            for (int i = 0; i < BATCH_STEPS; i++) {
+                if (st == null || st.isGameOver() || rolloutSteps >= ROLLOUT_LENGTH) {
+                    st = stateObs.copy();
+                    stats.copies++;
+                    rolloutSteps = 0;
+                }
+                long t0 = System.nanoTime();
+                advance(st, no_players, rnd);
+                stepTime += System.nanoTime() - t0;
+                rolloutSteps++;
+            }
+
+            double mean = (double) stepTime / BATCH_STEPS;
+            means[stats.batches % MIN_BATCHES] = mean;
+            stats.batches++;
+            stats.steps += BATCH_STEPS;
+            stats.steadyStepMicros = mean / 1000.0;
+            stats.stable = stats.batches >= MIN_BATCHES && isStable(means);
+        }
+
+        stats.timeMs = (System.nanoTime() - start) / 1000000;
+
+        // Reset input to delete warm-up effects.
+        Game.ki.resetAll();
+        return stats;
+    }
+
+    /**
+     * Checks if the average step times of the last batches are within TOLERANCE of their mean.
+     */
+    private static boolean isStable(double[] means) {
+        double avg = 0;
+        for (double m : means)
+            avg += m;
+        avg /= means.length;
+        for (double m : means)
+            if (Math.abs(m - avg) > TOLERANCE * avg)
+                return false;
+        return true;
+    }
+
+    private static void advance(StateObservation st, int no_players, Random rnd) {
+        if (no_players > 1) {
+            StateObservationMulti stm = (StateObservationMulti) st;
+            Types.ACTIONS[] acts = new Types.ACTIONS[no_players];
+            for (int i = 0; i < no_players; i++) {
+                ArrayList<Types.ACTIONS> actions = stm.getAvailableActions(i);
+                acts[i] = actions.isEmpty() ? Types.ACTIONS.ACTION_NIL : actions.get(rnd.nextInt(actions.size()));
+            }
+            stm.advance(acts);
+        } else {
+            ArrayList<Types.ACTIONS> actions = st.getAvailableActions();
+            st.advance(actions.isEmpty() ? Types.ACTIONS.ACTION_NIL : actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+}
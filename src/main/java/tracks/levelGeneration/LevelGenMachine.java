@@ -5,13 +5,14 @@ import core.game.Game;
 import core.game.GameDescription;
 import core.generator.AbstractLevelGenerator;
 import core.player.AbstractPlayer;
+import core.vgdl.GameTemplate;
 import core.vgdl.VGDLFactory;
-import core.vgdl.VGDLParser;
 import core.vgdl.VGDLRegistry;
 import tools.ElapsedCpuTimer;
 import tools.IO;
 import tools.StatSummary;
 import tracks.ArcadeMachine;
+import tracks.WarmUpManager;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -45,7 +46,7 @@ public class LevelGenMachine
                 " ** Generating a level for " + gameFile + ", using level generator " + levelGenerator + " **");
 
         // First, we create the game to be played..
-        Game toPlay = new VGDLParser().parseGame(gameFile);
+        Game toPlay = GameTemplate.createGame(gameFile);
         GameDescription description = new GameDescription(toPlay);
         AbstractLevelGenerator generator = createLevelGenerator(levelGenerator, description);
         String level = getGeneratedLevel(description, toPlay, generator);
@@ -95,7 +96,7 @@ public class LevelGenMachine
         VGDLRegistry.GetInstance().init();
 
         // First, we create the game to be played..
-        Game toPlay = new VGDLParser().parseGame(gameFile);
+        Game toPlay = GameTemplate.createGame(gameFile);
         GameDescription description = new GameDescription(toPlay);
         AbstractLevelGenerator generator = createLevelGenerator(levelGenerator, description);
         HashMap<Character, ArrayList<String>> originalMapping = toPlay.getCharMapping();
@@ -176,7 +177,7 @@ public class LevelGenMachine
         System.out.println(" ** Playing game " + gameFile + ", using generate level file " + levelFile + " **");
 
         // First, we create the game to be played..
-        Game toPlay = new VGDLParser().parseGame(gameFile);
+        Game toPlay = GameTemplate.createGame(gameFile);
         String level = loadGeneratedFile(toPlay, levelFile);
         String[] levelLines = level.split("\n");
 
@@ -184,7 +185,7 @@ public class LevelGenMachine
         toPlay.buildStringLevel(levelLines, 0);
 
         // Warm the game up.
-        ArcadeMachine.warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+        WarmUpManager.warmUp(gameFile, toPlay);
 
         // Create the player.
         AbstractPlayer player = ArcadeMachine.createPlayer(agentName, actionFile, toPlay.getObservation(), randomSeed,
@@ -250,7 +251,7 @@ public class LevelGenMachine
 
         StatSummary scores = new StatSummary();
 
-        Game toPlay = new VGDLParser().parseGame(gameFile);
+        Game toPlay = GameTemplate.createGame(gameFile);
         int levelIdx = 0;
         for (String file : levelFile) {
             System.out.println(" ** Playing game " + gameFile + ", level " + file + " **");
@@ -267,7 +268,7 @@ public class LevelGenMachine
             String filename = recordActions ? actionFile[levelIdx] : null;
 
             // Warm the game up.
-            ArcadeMachine.warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+            WarmUpManager.warmUp(gameFile, toPlay);
 
             // Create the player.
             AbstractPlayer player = ArcadeMachine.createPlayer(agentName, filename, toPlay.getObservation(), randomSeed,
@@ -2,6 +2,7 @@ package tracks.multiPlayer.advanced.sampleMCTS;
 
 import core.game.StateObservationMulti;
 import ontology.Types;
+import tools.BudgetClock;
 import tools.ElapsedCpuTimer;
 import tools.Utils;
 
@@ -56,27 +57,26 @@ public class SingleTreeNode
 
     public void mctsSearch(ElapsedCpuTimer elapsedTimer) {
 
+        BudgetClock clock = new BudgetClock(elapsedTimer);
         double avgTimeTaken = 0;
         double acumTimeTaken = 0;
-        long remaining = elapsedTimer.remainingTimeMillis();
         int numIters = 0;
 
         int remainingLimit = 5;
-        while(remaining > 2*avgTimeTaken && remaining > remainingLimit){
+        while(clock.canContinue(2*avgTimeTaken, remainingLimit)){
         //while(numIters < Agent.MCTS_ITERATIONS){
 
             StateObservationMulti state = rootState.copy();
 
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            long iterationStart = clock.elapsedNanos();
             SingleTreeNode selected = treePolicy(state);
             double delta = selected.rollOut(state);
             backUp(selected, delta);
 
             numIters++;
-            acumTimeTaken += (elapsedTimerIteration.elapsedMillis()) ;
+            acumTimeTaken += (clock.elapsedMillisSince(iterationStart)) ;
             //System.out.println(elapsedTimerIteration.elapsedMillis() + " --> " + acumTimeTaken + " (" + remaining + ")");
             avgTimeTaken  = acumTimeTaken/numIters;
-            remaining = elapsedTimer.remainingTimeMillis();
         }
 
 //        System.out.println("-- " + numIters + " -- ( " + avgTimeTaken + ")");
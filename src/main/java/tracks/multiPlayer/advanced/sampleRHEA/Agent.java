@@ -3,6 +3,7 @@ package tracks.multiPlayer.advanced.sampleRHEA;
 import core.game.StateObservationMulti;
 import core.player.AbstractMultiPlayer;
 import ontology.Types;
+import tools.BudgetClock;
 import tools.ElapsedCpuTimer;
 import tracks.multiPlayer.tools.heuristics.StateHeuristicMulti;
 import tracks.multiPlayer.tools.heuristics.WinScoreHeuristic;
@@ -39,7 +40,7 @@ public class Agent extends AbstractMultiPlayer {
     private Random randomGenerator;
 
     // Budget
-    private ElapsedCpuTimer timer;
+    private BudgetClock timer;
     private double acumTimeTakenEval = 0,avgTimeTakenEval = 0, avgTimeTaken = 0, acumTimeTaken = 0;
     private int numEvals = 0, numIters = 0;
     private boolean keepIterating = true;
@@ -57,7 +58,7 @@ public class Agent extends AbstractMultiPlayer {
     public Agent(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer, int playerID) {
         randomGenerator = new Random();
         heuristic = new WinScoreHeuristic(stateObs);
-        this.timer = elapsedTimer;
+        this.timer = new BudgetClock(elapsedTimer);
 
         // Get multiplayer game parameters
         this.playerID = playerID;
@@ -66,7 +67,7 @@ public class Agent extends AbstractMultiPlayer {
 
     @Override
     public Types.ACTIONS act(StateObservationMulti stateObs, ElapsedCpuTimer elapsedTimer) {
-        this.timer = elapsedTimer;
+        timer.start(elapsedTimer);
         avgTimeTaken = 0;
         acumTimeTaken = 0;
         numEvals = 0;
@@ -96,7 +97,7 @@ public class Agent extends AbstractMultiPlayer {
      * @param stateObs - current game state
      */
     private void runIteration(StateObservationMulti stateObs) {
-        ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+        long iterationStart = timer.elapsedNanos();
 
         if (REEVALUATE) {
             for (int i = 0; i < ELITISM; i++) {
@@ -143,7 +144,7 @@ public class Agent extends AbstractMultiPlayer {
         population = nextPop.clone();
 
         numIters++;
-        acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+        acumTimeTaken += (timer.elapsedMillisSince(iterationStart));
         avgTimeTaken = acumTimeTaken / numIters;
     }
 
@@ -157,14 +158,14 @@ public class Agent extends AbstractMultiPlayer {
      */
     private double evaluate(Individual individual, StateHeuristicMulti heuristic, StateObservationMulti state) {
 
-        ElapsedCpuTimer elapsedTimerIterationEval = new ElapsedCpuTimer();
+        long evalStart = timer.elapsedNanos();
 
         StateObservationMulti st = state.copy();
         int i;
         for (i = 0; i < SIMULATION_DEPTH; i++) {
             double acum = 0, avg;
             if (! st.isGameOver()) {
-                ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+                long iterationStart = timer.elapsedNanos();
 
                 // Multi player advance method
                 Types.ACTIONS[] advanceActs = new Types.ACTIONS[noPlayers];
@@ -175,7 +176,7 @@ public class Agent extends AbstractMultiPlayer {
                 }
                 st.advance(advanceActs);
 
-                acum += elapsedTimerIteration.elapsedMillis();
+                acum += timer.elapsedMillisSince(iterationStart);
                 avg = acum / (i+1);
                 remaining = timer.remainingTimeMillis();
                 if (remaining < 2*avg || remaining < BREAK_MS) break;
@@ -187,7 +188,7 @@ public class Agent extends AbstractMultiPlayer {
         individual.value = heuristic.evaluateState(st, playerID);
 
         numEvals++;
-        acumTimeTakenEval += (elapsedTimerIterationEval.elapsedMillis());
+        acumTimeTakenEval += (timer.elapsedMillisSince(evalStart));
         avgTimeTakenEval = acumTimeTakenEval / numEvals;
         remaining = timer.remainingTimeMillis();
 
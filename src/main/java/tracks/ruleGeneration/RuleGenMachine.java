@@ -20,6 +20,7 @@ import core.vgdl.VGDLRegistry;
 import tools.ElapsedCpuTimer;
 import tools.IO;
 import tracks.ArcadeMachine;
+import tracks.WarmUpManager;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -96,7 +97,7 @@ public class RuleGenMachine
 		toPlay.buildLevel(level_file, randomSeed);
 
 		// Warm the game up.
-		ArcadeMachine.warmUp(toPlay, CompetitionParameters.WARMUP_TIME);
+		WarmUpManager.warmUp(generated_game, toPlay);
 
 		// Create the players.
 		String[] names = agentNames.split(" ");
@@ -0,0 +1,277 @@
+package tracks.singleLearning;
+
+import core.game.Game;
+import core.game.Observation;
+import core.game.ObservationTensor;
+import core.game.StateObservation;
+import core.vgdl.GameTemplate;
+import core.vgdl.VGDLFactory;
+import ontology.Types;
+import tools.Vector2d;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Environment for learning agents that run in the same JVM as the games, with the usual
+ * reset() / step() interface and without the LearningMachine, the client process and the
+ * JSON messages of the learning track. The level is built as a real game, and then played
+ * with a forward model, stepped directly by the agent: there are no controllers, timers or
+ * observation copies between steps.
+ *
+ * The observation can be read from the state (getState()), or from arrays that are filled
+ * on request and reused from step to step (getGrid(), getTensor(), getAvatarFeatures()). Only single
+ * player games are supported. Games share the sprite registry (see GameTemplate), so
+ * environments must be used from one thread at a time.
+ */
+public class GameEnvironment {
+
+    /**
+     * Size of the array returned by getAvatarFeatures(), and index of each feature.
+     */
+    public static final int NUM_AVATAR_FEATURES = 8;
+    public static final int FEATURE_X = 0, FEATURE_Y = 1, FEATURE_ORIENTATION_X = 2,
+            FEATURE_ORIENTATION_Y = 3, FEATURE_SPEED = 4, FEATURE_HEALTH = 5, FEATURE_SCORE = 6,
+            FEATURE_TICK = 7;
+
+    /**
+     * Game description file.
+     */
+    private final String gameFile;
+
+    /**
+     * State of the episode being played (null before the first reset).
+     */
+    private StateObservation state;
+
+    /**
+     * Actions of the avatar in this episode, NIL included (indices of step(int)).
+     */
+    private Types.ACTIONS[] actions;
+
+    /**
+     * Reward of the last step, and score before it.
+     */
+    private double reward;
+    private double lastScore;
+
+    /**
+     * Reusable observation arrays, and the tick they were last filled at (-1 if never).
+     */
+    private int[] grid;
+    private int gridWidth, gridHeight;
+    private int gridTick = -1;
+    private final double[] avatarFeatures = new double[NUM_AVATAR_FEATURES];
+    private int featuresTick = -1;
+    private ObservationTensor tensor;
+    private int tensorTick = -1;
+
+    /**
+     * Creates an environment for a game. The description is parsed when first needed, and
+     * only once for all the environments of the same game.
+     * @param gameFile game description file.
+     */
+    public GameEnvironment(String gameFile) {
+        this.gameFile = gameFile;
+        VGDLFactory.GetInstance().init();
+    }
+
+    /**
+     * Starts a new episode in a level of the game, numbered as the level files of the
+     * examples (game_lvlN.txt, next to the game file).
+     * @param level number of the level.
+     * @param seed seed of the random generator of the game.
+     */
+    public void reset(int level, int seed) {
+        reset(gameFile.replace(".txt", "_lvl" + level + ".txt"), seed);
+    }
+
+    /**
+     * Starts a new episode in a level of the game.
+     * @param levelFile file with the level to be played.
+     * @param seed seed of the random generator of the game.
+     */
+    public void reset(String levelFile, int seed) {
+        Game game = GameTemplate.createGame(gameFile);
+        if (game == null)
+            throw new IllegalArgumentException("Can't read game " + gameFile);
+        if (game.getNoPlayers() != 1)
+            throw new IllegalArgumentException("Only single player games are supported: " + gameFile);
+        game.buildLevel(levelFile, seed);
+
+        state = game.getObservation();
+        state.setNewSeed(seed);
+        ArrayList<Types.ACTIONS> available = state.getAvailableActions(true);
+        actions = available.toArray(new Types.ACTIONS[0]);
+
+        reward = 0;
+        lastScore = state.getGameScore();
+        gridTick = -1;
+        featuresTick = -1;
+        tensorTick = -1;
+        Dimension size = state.getWorldDimension();
+        int w = size.width / state.getBlockSize(), h = size.height / state.getBlockSize();
+        if (grid == null || w != gridWidth || h != gridHeight) {
+            gridWidth = w;
+            gridHeight = h;
+            grid = new int[w * h];
+        }
+    }
+
+    /**
+     * Advances the game one step.
+     * @param action index of the action, in getActions().
+     * @return the reward of the step (see getReward()).
+     */
+    public double step(int action) {
+        return step(actions[action]);
+    }
+
+    /**
+     * Advances the game one step. Once the episode is over, the game doesn't change and
+     * the reward is 0.
+     * @param action action of the avatar.
+     * @return the reward of the step (see getReward()).
+     */
+    public double step(Types.ACTIONS action) {
+        if (state == null)
+            throw new IllegalStateException("reset() must be called before step()");
+        if (state.isGameOver()) {
+            reward = 0;
+            return reward;
+        }
+        state.advance(action);
+        double score = state.getGameScore();
+        reward = score - lastScore;
+        lastScore = score;
+        return reward;
+    }
+
+    /**
+     * Gets the reward of the last step: the change in the score of the game.
+     * @return reward of the last step.
+     */
+    public double getReward() {
+        return reward;
+    }
+
+    /**
+     * Indicates if the episode is over (the game ended, or it reached the maximum number of
+     * steps, CompetitionParameters.MAX_TIMESTEPS).
+     * @return true if the episode is over.
+     */
+    public boolean isDone() {
+        return state.isGameOver();
+    }
+
+    /**
+     * Gets the winner of the episode, once it is over.
+     * @return the winner.
+     */
+    public Types.WINNER getWinner() {
+        return state.getGameWinner();
+    }
+
+    /**
+     * Gets the actions of the avatar, as indexed by step(int): the actions available at the
+     * start of the episode, NIL included. The array must not be modified.
+     * @return actions of the avatar.
+     */
+    public Types.ACTIONS[] getActions() {
+        return actions;
+    }
+
+    /**
+     * Gets the state of the episode, for direct access to all of its observations. It must
+     * not be advanced (it is the state step() advances): copy it to search from it.
+     * @return state of the episode.
+     */
+    public StateObservation getState() {
+        return state;
+    }
+
+    /**
+     * Gets the grid of the level, with a cell per block, row by row (the cell of block x, y is
+     * at y * getGridWidth() + x). Each cell has a bit set for each category of sprites in the
+     * block (bit 1 << Types.TYPE_AVATAR, 1 << Types.TYPE_NPC, etc.). The array is filled in
+     * the first call after each step, and reused for the whole episode.
+     * @return the grid of the level.
+     */
+    public int[] getGrid() {
+        int tick = state.getGameTick();
+        if (gridTick == tick)
+            return grid;
+        Arrays.fill(grid, 0);
+        ArrayList<Observation>[][] obsGrid = state.getObservationGrid();
+        for (int x = 0; x < gridWidth && x < obsGrid.length; x++) {
+            ArrayList<Observation>[] column = obsGrid[x];
+            for (int y = 0; y < gridHeight && y < column.length; y++) {
+                int cell = 0;
+                for (Observation obs : column[y])
+                    cell |= 1 << obs.category;
+                grid[y * gridWidth + x] = cell;
+            }
+        }
+        gridTick = tick;
+        return grid;
+    }
+
+    /**
+     * Gets a symbolic tensor of the state (see ObservationTensor), with a channel per sprite
+     * type or per category of sprites. It is filled in the first call after each step, and
+     * reused for the whole episode (and the next ones, while the shape is the same).
+     * @param byCategory true for a channel per category, false for one per sprite type.
+     * @return the tensor of the state.
+     */
+    public ObservationTensor getTensor(boolean byCategory) {
+        if (tensor == null || tensor.isByCategory() != byCategory) {
+            tensor = new ObservationTensor(byCategory);
+            tensorTick = -1;
+        }
+        int tick = state.getGameTick();
+        if (tensorTick != tick) {
+            tensor.fill(state);
+            tensorTick = tick;
+        }
+        return tensor;
+    }
+
+    /**
+     * @return width of the grid, in blocks.
+     */
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    /**
+     * @return height of the grid, in blocks.
+     */
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    /**
+     * Gets the features of the avatar (see the FEATURE_* indices): position, orientation,
+     * speed, health points, and the score and tick of the game. The array is filled in the
+     * first call after each step, and reused for the whole episode.
+     * @return features of the avatar.
+     */
+    public double[] getAvatarFeatures() {
+        int tick = state.getGameTick();
+        if (featuresTick == tick)
+            return avatarFeatures;
+        Vector2d position = state.getAvatarPosition();
+        Vector2d orientation = state.getAvatarOrientation();
+        avatarFeatures[FEATURE_X] = position.x;
+        avatarFeatures[FEATURE_Y] = position.y;
+        avatarFeatures[FEATURE_ORIENTATION_X] = orientation.x;
+        avatarFeatures[FEATURE_ORIENTATION_Y] = orientation.y;
+        avatarFeatures[FEATURE_SPEED] = state.getAvatarSpeed();
+        avatarFeatures[FEATURE_HEALTH] = state.getAvatarHealthPoints();
+        avatarFeatures[FEATURE_SCORE] = state.getGameScore();
+        avatarFeatures[FEATURE_TICK] = tick;
+        featuresTick = tick;
+        return avatarFeatures;
+    }
+}
@@ -0,0 +1,33 @@
+package tracks.singleLearning;
+
+import java.util.Random;
+
+/**
+ * Plays episodes of a game with random actions in a GameEnvironment, in the same JVM, and
+ * reports the steps per second. A learning agent would choose the actions from the
+ * observation arrays (env.getGrid(), env.getAvatarFeatures()) instead.
+ */
+public class TestGameEnvironment {
+
+    public static void main(String[] args) {
+        String game = args.length > 0 ? args[0] : "examples/gridphysics/aliens.txt";
+        int episodes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        GameEnvironment env = new GameEnvironment(game);
+        Random rnd = new Random(0);
+        long steps = 0;
+        long start = System.nanoTime();
+        for (int episode = 0; episode < episodes; episode++) {
+            env.reset(episode % 5, episode);
+            double totalReward = 0;
+            while (!env.isDone()) {
+                totalReward += env.step(rnd.nextInt(env.getActions().length));
+                env.getGrid();
+                steps++;
+            }
+            System.out.println("Episode " + episode + ": reward " + totalReward + ", " + env.getWinner());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d steps in %.2f s: %.0f steps/s%n", steps, seconds, steps / seconds);
+    }
+}
@@ -1,6 +1,7 @@
 package tracks.singleLearning.utils;
 
 import core.competition.CompetitionParameters;
+import core.game.ObservationTensor;
 import core.game.SerializableStateObservation;
 import core.game.StateObservation;
 import ontology.Types;
@@ -58,17 +59,7 @@ public abstract class Comm extends Thread {
 
         try
         {
-            // Set the game state to the appropriate state and the millisecond counter, then send the serialized observation.
-            if(so.getAvatarLastAction() == Types.ACTIONS.ACTION_ESCAPE)
-                so.currentGameState = Types.GAMESTATES.ABORT_STATE;
-            else
-                so.currentGameState = Types.GAMESTATES.END_STATE;
-
-            SerializableStateObservation sso = new SerializableStateObservation(so);
-
-            commSend(sso.serialize(null));
-
-            String response = commRecv();
+            String response = sendResult(so);
 
             if(response == null || response.equalsIgnoreCase("END_OVERSPENT"))
             {
@@ -94,6 +85,28 @@ public abstract class Comm extends Thread {
 
 
 
+    /**
+     * Sends the final state of a game to the client (in "END_STATE", or "ABORT_STATE" if the
+     * player escaped), and receives its response: the next level to play, or a command of a
+     * learning session (see tracks.LearningMachine.runSession()).
+     *
+     * @param so State observation of the game that is over.
+     * @return response by the client, or null if no response was received after due time.
+     */
+    public String sendResult(StateObservation so) throws IOException {
+        // Set the game state to the appropriate state and the millisecond counter, then send the serialized observation.
+        if(so.getAvatarLastAction() == Types.ACTIONS.ACTION_ESCAPE)
+            so.currentGameState = Types.GAMESTATES.ABORT_STATE;
+        else
+            so.currentGameState = Types.GAMESTATES.END_STATE;
+
+        SerializableStateObservation sso = new SerializableStateObservation(so);
+
+        commSend(sso.serialize(null));
+
+        return commRecv();
+    }
+
     /**
      * This function is called at the beginning of the game for
      * initialization.
@@ -171,6 +184,26 @@ public abstract class Comm extends Thread {
      */
     public abstract void commSend(String msg) throws IOException;
 
+    /**
+     * Indicates if symbolic tensors can be given to the client apart from the messages, with
+     * shareTensor(), instead of encoded in them.
+     *
+     * @return true if this channel shares tensors.
+     */
+    public boolean canShareTensors() {
+        return false;
+    }
+
+    /**
+     * Gives a symbolic tensor to the client apart from the messages, before sending the
+     * observation it belongs to. Callers check canShareTensors() first: channels that can't
+     * share tensors do nothing.
+     *
+     * @param tensor tensor to share, already filled.
+     */
+    public void shareTensor(ObservationTensor tensor) throws IOException {
+    }
+
     public Types.LEARNING_SSO_TYPE getLastSsoType() {
         return this.lastSsoType;
     }
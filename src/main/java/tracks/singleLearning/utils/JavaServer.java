@@ -64,7 +64,11 @@ public class JavaServer {
             String imgDir = params.get("imgDir").get(0);
             IMG_PATH = imgDir + "/" + IMG_PATH;
         }
+        if (params.containsKey("sharedMemory")) {
+            CompetitionParameters.SHARED_MEMORY_FILE = params.get("sharedMemory").get(0);
+        }
         visuals = params.containsKey("visuals");
+        boolean session = params.containsKey("session");
         /** Now prepare to start */
         ElapsedWallTimer wallClock = new ElapsedWallTimer();
 
@@ -123,7 +127,10 @@ public class JavaServer {
         }
         // This plays a training round for a specified game.
         System.out.println("[GAME] Game idx:" + gameIdx + " game name " + games[gameIdx]);
-        LearningMachine.runMultipleGames(game, level_files, cmd, new String[]{null}, visuals);
+        if (session)
+            LearningMachine.runSession(game, gamesDir, cmd, visuals);
+        else
+            LearningMachine.runMultipleGames(game, level_files, cmd, new String[]{null}, visuals);
 
 
 
@@ -0,0 +1,242 @@
+package tracks.singleLearning.utils;
+
+import core.competition.CompetitionParameters;
+import core.game.ObservationTensor;
+import ontology.Types.LEARNING_SSO_TYPE;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Communication with a client in the same machine through a memory-mapped file, without
+ * sockets or pipes: messages are written to ring buffers in the file, one for each direction,
+ * and symbolic tensors (see ObservationTensor) are written to a region of the file the client
+ * can read in place. Messages are the same text lines of SocketComm.
+ *
+ * Layout of the file (little endian, offsets in bytes):
+ *   0: magic (MAGIC), 4: version, 8: ring capacity, 12: tensor capacity, 16: closed flag
+ *   HEADER: ring from the server, RING_BASE + capacity: ring from the client, then the tensors.
+ * Each ring has its write position at +0 and its read position at +64 (as longs that only
+ * grow, in separate cache lines), and its data at +128. A record is the length of the message
+ * (an int) followed by its UTF-8 bytes, wrapping at the end of the data. The tensor region has
+ * the length of the tensor (an int) at +0, and its cells at +64.
+ *
+ * Each side waits for the other spinning for a while, and then parking for growing periods
+ * (up to MAX_PARK_NANOS): the processes can't wake each other up.
+ */
+public class SharedMemoryComm extends Comm {
+
+    public static final int MAGIC = 0x53475647; // "GVGS"
+    public static final int VERSION = 1;
+    public static final int HEADER = 64;
+    public static final int RING_BASE = 128;
+
+    private static final int OFFSET_CLOSED = 16;
+    private static final int OFFSET_READ = 64;
+    private static final int SPINS = 2000;
+    private static final long MAX_PARK_NANOS = 1000000;
+    private static final int THRESHOLD = 60000;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * File shared with the client, and its mapping.
+     */
+    private final Path path;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Capacities of the rings and of the tensor region, and their offsets in the file.
+     */
+    private final int ringCapacity, tensorCapacity;
+    private final int toClient, fromClient, tensorBase;
+
+    /**
+     * Creates the file, with empty rings, and maps it.
+     * @param file path of the file to share with the client.
+     */
+    public SharedMemoryComm(String file) {
+        super();
+        this.path = Paths.get(file);
+        this.ringCapacity = align(CompetitionParameters.SHARED_MEMORY_RING_SIZE);
+        this.tensorCapacity = align(CompetitionParameters.SHARED_MEMORY_TENSOR_SIZE);
+        this.toClient = HEADER;
+        this.fromClient = toClient + RING_BASE + ringCapacity;
+        this.tensorBase = fromClient + RING_BASE + ringCapacity;
+        initBuffers();
+    }
+
+    /**
+     * Creates the file under a temporary name, and moves it in place once it is ready, so
+     * a client waiting for it never maps it half made.
+     */
+    @Override
+    public void initBuffers() {
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (RandomAccessFile raf = new RandomAccessFile(tmp.toFile(), "rw")) {
+                raf.setLength(0);
+                raf.setLength(tensorBase + 64L + tensorCapacity);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, ringCapacity);
+            buffer.putInt(12, tensorCapacity);
+            INT.setRelease(buffer, 0, MAGIC);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("SharedMemoryComm: can't create " + path, e);
+        }
+    }
+
+    /**
+     * Sends a message through the ring to the client, waiting while it is full.
+     *
+     * @param msg message to send.
+     */
+    @Override
+    public void commSend(String msg) throws IOException {
+        byte[] bytes = (messageId + TOKEN_SEP + msg).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + 4 > ringCapacity)
+            throw new IOException("SharedMemoryComm: message of " + bytes.length + " bytes doesn't fit in the ring");
+        long write = (long) LONG.getOpaque(buffer, toClient);
+        long need = write + 4 + bytes.length - ringCapacity;
+        if (!await(toClient + OFFSET_READ, need, System.nanoTime() + THRESHOLD * 1000000L))
+            throw new IOException("SharedMemoryComm: the client doesn't read its messages");
+        byte[] length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array();
+        write = put(toClient, write, length);
+        write = put(toClient, write, bytes);
+        LONG.setRelease(buffer, toClient, write);
+        if (msg.equals("FINISH"))
+            INT.setRelease(buffer, OFFSET_CLOSED, 1);
+        messageId++;
+    }
+
+    /**
+     * Receives a message from the client.
+     *
+     * @return the response got from the client, or null if no response was received after due time.
+     */
+    @Override
+    public String commRecv() throws IOException {
+        long deadline = System.nanoTime() + THRESHOLD * 1000000L;
+        while (true) {
+            long read = (long) LONG.getOpaque(buffer, fromClient + OFFSET_READ);
+            if (!await(fromClient, read + 1, deadline)) {
+                System.err.println("SharedMemoryComm: commRecv: No message received. Time threshold exceeded.");
+                return null;
+            }
+            byte[] length = new byte[4];
+            read = get(fromClient, read, length);
+            byte[] bytes = new byte[ByteBuffer.wrap(length).order(ByteOrder.LITTLE_ENDIAN).getInt()];
+            read = get(fromClient, read, bytes);
+            LONG.setRelease(buffer, fromClient + OFFSET_READ, read);
+
+            String[] messageParts = new String(bytes, StandardCharsets.UTF_8).trim().split(TOKEN_SEP);
+            if (messageParts.length < 2) {
+                System.err.println("SharedMemoryComm: commRecv(): received message incomplete.");
+                return null;
+            }
+            long receivedID = Long.parseLong(messageParts[0]);
+            if (messageParts.length >= 3) {
+                try {
+                    this.lastSsoType = LEARNING_SSO_TYPE.valueOf(messageParts[2]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("SharedMemoryComm: commRecv(): This should never happen.");
+                }
+            }
+            if (receivedID == messageId - 1)
+                return messageParts[1].trim();
+            if (receivedID > messageId - 1) {
+                //A message from the future? Ignore and return null;
+                System.err.println("SharedMemoryComm: commRecv: Communication Error! A message from the future!");
+                return null;
+            }
+            //Previous message, ignore and keep waiting.
+        }
+    }
+
+    @Override
+    public boolean canShareTensors() {
+        return true;
+    }
+
+    /**
+     * Writes the cells of a tensor to the tensor region of the file, a byte per cell as in
+     * ObservationTensor.getBytes(). The client reads them when it gets the next message.
+     * @param tensor tensor to share.
+     */
+    @Override
+    public void shareTensor(ObservationTensor tensor) throws IOException {
+        if (tensor.size() > tensorCapacity)
+            throw new IOException("SharedMemoryComm: tensor of " + tensor.size() + " cells doesn't fit in the file");
+        ByteBuffer cells = buffer.duplicate();
+        cells.position(tensorBase + 64);
+        tensor.toBytes(cells);
+        buffer.putInt(tensorBase, tensor.size());
+    }
+
+    /**
+     * Waits until a position of a ring reaches a value.
+     * @param offset offset of the position in the file.
+     * @param value value to reach.
+     * @param deadline System.nanoTime() to give up at.
+     * @return true if it was reached, false if the deadline passed.
+     */
+    private boolean await(int offset, long value, long deadline) {
+        long park = 1000;
+        for (int i = 0; (long) LONG.getAcquire(buffer, offset) < value; i++) {
+            if (i < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (System.nanoTime() - deadline > 0)
+                return false;
+            LockSupport.parkNanos(park);
+            park = Math.min(park * 2, MAX_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Copies bytes to the data of a ring, wrapping at its end.
+     * @return position after them.
+     */
+    private long put(int ring, long position, byte[] bytes) {
+        int at = (int) (position % ringCapacity);
+        int first = Math.min(bytes.length, ringCapacity - at);
+        buffer.put(ring + RING_BASE + at, bytes, 0, first);
+        buffer.put(ring + RING_BASE, bytes, first, bytes.length - first);
+        return position + bytes.length;
+    }
+
+    /**
+     * Copies bytes from the data of a ring, wrapping at its end.
+     * @return position after them.
+     */
+    private long get(int ring, long position, byte[] bytes) {
+        int at = (int) (position % ringCapacity);
+        int first = Math.min(bytes.length, ringCapacity - at);
+        buffer.get(ring + RING_BASE + at, bytes, 0, first);
+        buffer.get(ring + RING_BASE, bytes, first, bytes.length - first);
+        return position + bytes.length;
+    }
+
+    private static int align(int size) {
+        return (size + 63) & ~63;
+    }
+}
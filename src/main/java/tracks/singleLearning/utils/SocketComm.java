@@ -185,6 +185,9 @@ public class SocketComm extends Comm {
                         case "JSON" -> this.lastSsoType = LEARNING_SSO_TYPE.JSON;
                         case "IMAGE" -> this.lastSsoType = LEARNING_SSO_TYPE.IMAGE;
                         case "BOTH" -> this.lastSsoType = LEARNING_SSO_TYPE.BOTH;
+                        case "TENSOR" -> this.lastSsoType = LEARNING_SSO_TYPE.TENSOR;
+                        case "TENSOR_CATEGORY" -> this.lastSsoType = LEARNING_SSO_TYPE.TENSOR_CATEGORY;
+                        case "DELTA" -> this.lastSsoType = LEARNING_SSO_TYPE.DELTA;
                         default -> System.err.println("SocketComm: commRecv(): This should never happen.");
                     }
                 }
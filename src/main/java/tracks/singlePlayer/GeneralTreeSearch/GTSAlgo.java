@@ -28,6 +28,11 @@ public class GTSAlgo {
     GTSParams.BACKPROPAGATION backprop;
     GTSParams.SELECTION       selection;
     int                       depthLimit;
+    int                       checkpointInterval = 1;
+    int                       stateCache = 0;
+
+    // Storage of the states of the nodes
+    GTSStateStore store;
 
     public static double epsilon = 1e-6;
 
@@ -35,6 +40,7 @@ public class GTSAlgo {
     public GTSAlgo (String filename) {
         initParameters(filename);
         printParameters();
+        store = new GTSStateStore(checkpointInterval, stateCache);
     }
 
     // Read TSDL file to initialize parameters
@@ -60,6 +66,8 @@ public class GTSAlgo {
                         case "Backpropagation" -> backprop = GTSParams.BACKPROPAGATION.valueOf(info[1]);
                         case "Selection" -> selection = GTSParams.SELECTION.valueOf(info[1]);
                         case "Depth Limit" -> depthLimit = Integer.parseInt(info[1]);
+                        case "Checkpoint Interval" -> checkpointInterval = Integer.parseInt(info[1]);
+                        case "State Cache" -> stateCache = Integer.parseInt(info[1]);
                         default -> {
                         }
                     }
@@ -85,6 +93,8 @@ public class GTSAlgo {
         System.out.println("(6) Backpropagation Type: " + backprop);
         System.out.println("(7) Selection       Type: " + selection);
         System.out.println("(8) Depth Limit         : " + depthLimit);
+        System.out.println("(9) Checkpoint Interval : " + checkpointInterval);
+        System.out.println("(10) State Cache        : " + stateCache);
         System.out.println("--------------------------------");
     }
 
@@ -101,6 +111,7 @@ public class GTSAlgo {
 
         // Keep track of the root of the state tree
         GTSNode root = new GTSNode (stateObs, null);
+        store.reset(root);
 
         // Add the root to the frontier
         states.add(root);
@@ -117,10 +128,24 @@ public class GTSAlgo {
             }
         }
 
+        if (store.isBounded())
+            System.out.println(store.report());
+
         // Once we're out of time, make a decision
         return decide(root);
     }
 
+    // Creates the child of a node for one of its actions, and registers it in the state store
+    GTSNode expandChild (GTSNode node, StateObservation state, int actionIndex) {
+        Types.ACTIONS action = state.getAvailableActions().get(actionIndex);
+        StateObservation nextState = store.copy(state);
+        // Random generator state before advancing, to replay this step if the state is dropped
+        Random randomState = store.isBounded() ? nextState.getRandomState() : null;
+        nextState.advance(action);
+        node.children[actionIndex] = store.add(new GTSNode(nextState, node, action, randomState), nextState);
+        return node.children[actionIndex];
+    }
+
     // (2) Explore/expand/simulate/evaluate/backprop the tree
 
     // What to do if the current node is a isGameOver() state? (checks on expand, not explore)
@@ -263,16 +288,14 @@ public class GTSAlgo {
         ///////////////////////////////////////////////////////////////////////////////////////////
 
         // If the node is a valid game state within the depth limit, do expansion
-        if (currentNode.getDepth() < depthLimit && !currentNode.thisState.isGameOver()) {
+        StateObservation currentState = store.getState(currentNode);
+        if (currentNode.getDepth() < depthLimit && !currentState.isGameOver()) {
             switch (expansion) {
                 // All: Add all of the children of this node to the frontier
                 // This is the behavior you want in DFS/BFS/A*
                 default: case ALL:
                     for (int i = 0; i < currentNode.children.length; i++) {
-                        StateObservation nextState = currentNode.thisState.copy();
-                        nextState.advance(currentNode.thisState.getAvailableActions().get(i));
-                        currentNode.children[i] = new GTSNode(nextState, currentNode);
-                        states.add(currentNode.children[i]);
+                        states.add(expandChild(currentNode, currentState, i));
                     }
                     break;
 
@@ -287,11 +310,8 @@ public class GTSAlgo {
                     }
                     // If there's actually an explored node, explore it
                     if (expandIndex != -1) {
-                        StateObservation nextState = currentNode.thisState.copy();
-                        nextState.advance(currentNode.thisState.getAvailableActions().get(expandIndex));
-                        currentNode.children[expandIndex] = new GTSNode(nextState, currentNode);
-                        states.add(currentNode.children[expandIndex]);
-                        currentNode = currentNode.children[expandIndex];
+                        currentNode = expandChild(currentNode, currentState, expandIndex);
+                        states.add(currentNode);
                     }
                     break;
 
@@ -311,11 +331,8 @@ public class GTSAlgo {
                         }
                     }
                     // Here, we've selected a random child node to create/add to the frontier
-                    StateObservation nextState = currentNode.thisState.copy();
-                    nextState.advance(currentNode.thisState.getAvailableActions().get(bestAction));
-                    currentNode.children[bestAction] = new GTSNode(nextState, currentNode);
-                    states.add(currentNode.children[bestAction]);
-                    currentNode = currentNode.children[bestAction];
+                    currentNode = expandChild(currentNode, currentState, bestAction);
+                    states.add(currentNode);
                     break;
             }
 
@@ -328,7 +345,7 @@ public class GTSAlgo {
         // Also known as the "rollOut" phase for MCTS
 
         // Keep track of the final state to be evaluated
-        StateObservation finalState = currentNode.thisState.copy();
+        StateObservation finalState = store.getState(currentNode).copy();
 
         // Random Playout: Advance randomly from 'currentNode' to an end state
         // Only used by MCTS to bring currentNode to a terminal state
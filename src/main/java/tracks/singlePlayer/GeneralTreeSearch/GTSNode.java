@@ -4,6 +4,8 @@ package tracks.singlePlayer.GeneralTreeSearch;
 import core.game.StateObservation;
 import ontology.Types;
 
+import java.util.Random;
+
 // Nodes in the decision tree
 public class GTSNode {
 
@@ -20,6 +22,14 @@ public class GTSNode {
             depth = 0;
     }
 
+    // Node reached from its parent with an action, keeping what's needed to rebuild its state
+    // by replaying that action (see GTSStateStore)
+    public GTSNode (StateObservation s, GTSNode par, Types.ACTIONS act, Random rnd) {
+        this(s, par);
+        action = act;
+        randomState = rnd;
+    }
+
     public Types.ACTIONS getAction () {
         return thisState.getAvailableActions().get(0);
     }
@@ -52,7 +62,11 @@ public class GTSNode {
         totalValue += reward;
     }
 
+    // State of this node, or null if it is not kept (ask the GTSStateStore for it)
     public StateObservation thisState;
+    // Action applied to the parent's state, and random generator state before applying it
+    Types.ACTIONS action;
+    Random randomState;
     double totalValue;
     int visitCount;
     GTSNode parent;
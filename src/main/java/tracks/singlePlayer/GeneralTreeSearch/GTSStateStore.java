@@ -0,0 +1,134 @@
+package tracks.singlePlayer.GeneralTreeSearch;
+
+import core.game.StateObservation;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Keeps the states of the nodes of the tree within a memory bound. Only the states of the
+// checkpoint nodes (every checkpointInterval plies, the root included) are kept for good,
+// plus the last cacheSize states of other nodes used (LRU). Any other state is rebuilt when
+// needed by replaying the actions from the closest ancestor with a state, restoring the random
+// generator state saved in each node so the replay reaches the same state.
+// With a checkpoint interval of 1 all states are kept, as in the original algorithm.
+public class GTSStateStore {
+
+    int checkpointInterval;
+    int cacheSize;
+
+    // States of non-checkpoint nodes, least recently used first
+    private final LinkedHashMap<GTSNode, StateObservation> cache;
+
+    // Statistics of the current search
+    int nodes;
+    int checkpoints;
+    long rebuilds;
+    long replaySteps;
+    long rebuildNanos;
+    long stateBytes = -1;
+    private boolean measured;
+
+    public GTSStateStore (int checkpointInterval, int cacheSize) {
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        this.cacheSize = Math.max(0, cacheSize);
+        cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // True if states are not all kept, so nodes need to save what's needed to rebuild them
+    public boolean isBounded () {
+        return checkpointInterval > 1;
+    }
+
+    // Starts a new search from the given root
+    public void reset (GTSNode root) {
+        cache.clear();
+        nodes = 1;
+        checkpoints = 1;
+        rebuilds = 0;
+        replaySteps = 0;
+        rebuildNanos = 0;
+    }
+
+    // Copies a state to expand a node. The first copy is measured (bytes allocated) as an
+    // estimate of the memory of a kept state; stateBytes stays -1 if the JVM can't measure it
+    public StateObservation copy (StateObservation state) {
+        if (measured)
+            return state.copy();
+        measured = true;
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported())
+            return state.copy();
+        long tid = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(tid);
+        StateObservation copy = state.copy();
+        stateBytes = bean.getThreadAllocatedBytes(tid) - before;
+        return copy;
+    }
+
+    // Registers a new node with its state, keeping the state only if the node is a checkpoint
+    public GTSNode add (GTSNode node, StateObservation state) {
+        nodes++;
+        if (node.getDepth() % checkpointInterval == 0) {
+            checkpoints++;
+        } else {
+            node.thisState = null;
+            cache(node, state);
+        }
+        return node;
+    }
+
+    // Returns the state of a node, rebuilding it if it is not kept. It must not be modified
+    public StateObservation getState (GTSNode node) {
+        if (node.thisState != null)
+            return node.thisState;
+        StateObservation cached = cache.get(node);
+        if (cached != null)
+            return cached;
+
+        long start = System.nanoTime();
+        ArrayDeque<GTSNode> path = new ArrayDeque<>();
+        GTSNode ancestor = node;
+        StateObservation base;
+        while ((base = ancestor.thisState != null ? ancestor.thisState : cache.get(ancestor)) == null) {
+            path.push(ancestor);
+            ancestor = ancestor.parent;
+        }
+
+        StateObservation state = base.copy();
+        for (GTSNode n : path) {
+            state.setRandomState(n.randomState);
+            state.advance(n.action);
+            replaySteps++;
+        }
+        rebuilds++;
+        rebuildNanos += System.nanoTime() - start;
+        cache(node, state);
+        return state;
+    }
+
+    private void cache (GTSNode node, StateObservation state) {
+        if (cacheSize == 0)
+            return;
+        cache.put(node, state);
+        if (cache.size() > cacheSize) {
+            Iterator<Map.Entry<GTSNode, StateObservation>> it = cache.entrySet().iterator();
+            it.next();
+            it.remove();
+        }
+    }
+
+    // Memory used by node states and re-simulation overhead in the current search
+    public String report () {
+        int kept = checkpoints + cache.size();
+        double stateKB = stateBytes / 1024.0;
+        return String.format(Locale.US,
+                "GTS states: %d nodes, %d kept (%d checkpoints, %d cached) ~%.1f KB each, ~%.1f KB/node;"
+                        + " %d rebuilds, %d replayed steps, %.2f ms",
+                nodes, kept, checkpoints, cache.size(), stateKB, stateKB * kept / nodes,
+                rebuilds, replaySteps, rebuildNanos / 1e6);
+    }
+}
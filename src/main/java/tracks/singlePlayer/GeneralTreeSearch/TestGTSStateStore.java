@@ -0,0 +1,105 @@
+package tracks.singlePlayer.GeneralTreeSearch;
+
+import core.competition.CompetitionParameters;
+import core.game.Game;
+import core.game.Observation;
+import core.game.StateObservation;
+import core.vgdl.VGDLFactory;
+import core.vgdl.VGDLParser;
+import core.vgdl.VGDLRegistry;
+import ontology.Types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+
+import static testing.Checks.check;
+import static testing.Checks.checkEquals;
+import static testing.Checks.report;
+
+/**
+ * Checks that the states of the nodes dropped by a bounded GTSStateStore are rebuilt, from
+ * the closest checkpoint, as the states the search reached. Run from the root of the project.
+ */
+public class TestGTSStateStore {
+
+    public static void main(String[] args) {
+        rebuiltStatesMatch();
+        unboundedStoreKeepsAllStates();
+        report("TestGTSStateStore");
+    }
+
+    private static String signature(StateObservation state) {
+        ArrayList<String> sprites = new ArrayList<>();
+        for (ArrayList<Observation>[] column : state.getObservationGrid())
+            for (ArrayList<Observation> cell : column)
+                for (Observation obs : cell)
+                    sprites.add(obs.itype + "@" + obs.position);
+        Collections.sort(sprites);
+        return state.getGameTick() + "," + state.getGameScore() + "," + state.getAvatarPosition() + ","
+                + state.isGameOver() + "," + sprites;
+    }
+
+    /**
+     * Grows a random tree as GTSAlgo.expandChild() does, then asks the store for the state
+     * of every node.
+     */
+    private static void checkRebuilds(String game_file, String level_file, int checkpointInterval, int cacheSize) {
+        VGDLFactory.GetInstance().init();
+        VGDLRegistry.GetInstance().init();
+        Game game = new VGDLParser().parseGame(game_file);
+        game.buildLevel(level_file, 5);
+
+        GTSStateStore store = new GTSStateStore(checkpointInterval, cacheSize);
+        GTSNode root = new GTSNode(game.getObservation(), null);
+        store.reset(root);
+
+        Random random = new Random(5);
+        ArrayList<GTSNode> nodes = new ArrayList<>();
+        HashMap<GTSNode, String> expected = new HashMap<>();
+        nodes.add(root);
+        expected.put(root, signature(root.thisState));
+        for (int i = 0; i < 300; i++) {
+            GTSNode node = nodes.get(random.nextInt(nodes.size()));
+            StateObservation state = store.getState(node);
+            if (state.isGameOver())
+                continue;
+            int actionIndex = random.nextInt(node.children.length);
+            if (node.children[actionIndex] != null)
+                continue;
+
+            Types.ACTIONS action = state.getAvailableActions().get(actionIndex);
+            StateObservation nextState = store.copy(state);
+            Random randomState = store.isBounded() ? nextState.getRandomState() : null;
+            nextState.advance(action);
+            GTSNode child = store.add(new GTSNode(nextState, node, action, randomState), nextState);
+            node.children[actionIndex] = child;
+            nodes.add(child);
+            expected.put(child, signature(nextState));
+        }
+
+        for (GTSNode node : nodes) {
+            String what = game_file + " (checkpoints " + checkpointInterval + ", cache " + cacheSize
+                    + "), depth " + node.getDepth();
+            check(what + " keeps its state only at checkpoints",
+                    (node.thisState != null) == (node.getDepth() % checkpointInterval == 0));
+            checkEquals(what, expected.get(node), signature(store.getState(node)));
+        }
+    }
+
+    private static void rebuiltStatesMatch() {
+        int generator = CompetitionParameters.RANDOM_GENERATOR;
+        for (int rng : new int[]{CompetitionParameters.RNG_JAVA, CompetitionParameters.RNG_FAST}) {
+            CompetitionParameters.RANDOM_GENERATOR = rng;
+            checkRebuilds("examples/gridphysics/aliens.txt", "examples/gridphysics/aliens_lvl0.txt", 4, 0);
+            checkRebuilds("examples/gridphysics/aliens.txt", "examples/gridphysics/aliens_lvl0.txt", 3, 8);
+            checkRebuilds("examples/gridphysics/chase.txt", "examples/gridphysics/chase_lvl0.txt", 5, 0);
+        }
+        CompetitionParameters.RANDOM_GENERATOR = generator;
+    }
+
+    private static void unboundedStoreKeepsAllStates() {
+        checkRebuilds("examples/gridphysics/aliens.txt", "examples/gridphysics/aliens_lvl0.txt", 1, 0);
+    }
+}
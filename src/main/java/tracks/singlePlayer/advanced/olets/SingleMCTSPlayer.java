@@ -2,6 +2,7 @@ package tracks.singlePlayer.advanced.olets;
 
 import core.game.StateObservation;
 import ontology.Types;
+import tools.BudgetClock;
 import tools.ElapsedCpuTimer;
 import tools.Vector2d;
 
@@ -122,16 +123,16 @@ public class SingleMCTSPlayer {
      */
     private void mctsSearch(ElapsedCpuTimer elapsedTimer, StateObservation rootObservation) {
 
+        BudgetClock clock = new BudgetClock(elapsedTimer);
         double avgTimeTaken = 0;
         double acumTimeTaken = 0;
-        long remaining = elapsedTimer.remainingTimeMillis();
         int numIters = 0;
         StateObservation tempState;
 
         int remainingLimit = 5;
-        while (remaining > 2 * avgTimeTaken && remaining > remainingLimit) {
+        while (clock.canContinue(2 * avgTimeTaken, remainingLimit)) {
             tempState = rootObservation.copy();
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            long iterationStart = clock.elapsedNanos();
 
             // treepolicy: navigate from the root node until either we add a new node or we reach a final state
             SingleTreeNode selected = treePolicy(tempState);
@@ -143,10 +144,9 @@ public class SingleMCTSPlayer {
             selected.backUp(selected, delta);   //TODO : I should probably make the backup method cleaner
 
             numIters++;
-            acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+            acumTimeTaken += (clock.elapsedMillisSince(iterationStart));
 
             avgTimeTaken = acumTimeTaken / numIters;
-            remaining = elapsedTimer.remainingTimeMillis();
         }
     }
 
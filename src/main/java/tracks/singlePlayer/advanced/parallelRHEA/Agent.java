@@ -0,0 +1,275 @@
+package tracks.singlePlayer.advanced.parallelRHEA;
+
+import core.game.StateObservation;
+import core.player.AbstractPlayer;
+import ontology.Types;
+import tools.BudgetClock;
+import tools.ElapsedCpuTimer;
+import tracks.singlePlayer.tools.Heuristics.StateHeuristic;
+import tracks.singlePlayer.tools.Heuristics.WinScoreHeuristic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rolling Horizon Evolutionary Algorithm that evaluates the individuals of each generation
+ * in parallel, in the thread pool of the player (Player.getThreadPool(), with
+ * CompetitionParameters.AGENT_THREADS threads). Selection, crossover and mutation run in the
+ * thread of act(); only the rollouts are spread over the pool. While they run, the thread of
+ * act() watches the time budget, and tells the rollouts to stop when it runs out.
+ *
+ * The population is kept between calls to act(): the action sequences are shifted one step
+ * (dropping the action just played) and evaluated again from the new state, instead of
+ * evolving a random population from scratch at every tick.
+ *
+ * With CompetitionParameters.TIMER_TYPE set to CPU time, the time of all pool threads is
+ * charged to act(), so more threads only help when timing uses wall time.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public class Agent extends AbstractPlayer {
+
+    // Parameters
+    private int POPULATION_SIZE = 10;
+    private int SIMULATION_DEPTH = 10;
+    private int CROSSOVER_TYPE = UNIFORM_CROSS;
+    private boolean REEVALUATE = false;
+    private int MUTATION = 1;
+    private int TOURNAMENT_SIZE = 2;
+    private int ELITISM = 1;
+    private StateHeuristic heuristic;
+
+    // Constants
+    private final long BREAK_MS = 10;
+    public static final double epsilon = 1e-6;
+    static final int POINT1_CROSS = 0;
+    static final int UNIFORM_CROSS = 1;
+
+    // Class vars
+    private Individual[] population;
+    private int N_ACTIONS;
+    private HashMap<Integer, Types.ACTIONS> action_mapping;
+    private ArrayList<Types.ACTIONS> availableActions;
+    private Random randomGenerator;
+
+    // Budgets
+    private BudgetClock timer;
+    private double acumTimeTaken = 0, avgTimeTaken = 0;
+    private int numIters = 0;
+    private volatile boolean outOfTime;
+
+    // Statistics of the game: evaluations in each call to act()
+    private int numEvals = 0;
+    private long totalEvals = 0;
+    private int numActs = 0;
+
+    /**
+     * Public constructor with state observation and time due.
+     *
+     * @param stateObs     state observation of the current game.
+     * @param elapsedTimer Timer for the controller creation.
+     */
+    public Agent(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
+        randomGenerator = new Random();
+        heuristic = new WinScoreHeuristic(stateObs);
+        this.timer = new BudgetClock(elapsedTimer);
+    }
+
+    @Override
+    public Types.ACTIONS act(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
+        timer.start(elapsedTimer);
+        avgTimeTaken = 0;
+        acumTimeTaken = 0;
+        numIters = 0;
+        numEvals = 0;
+        outOfTime = false;
+
+        // SHIFT THE POPULATION OF THE LAST TICK, OR CREATE ONE
+        init_pop(stateObs);
+
+        // RUN EVOLUTION
+        while (!outOfTime && timer.canContinue(2 * avgTimeTaken, BREAK_MS)) {
+            runIteration(stateObs);
+        }
+
+        numActs++;
+        totalEvals += numEvals;
+
+        // RETURN ACTION
+        return get_best_action(population);
+    }
+
+    @Override
+    public void result(StateObservation stateObs, ElapsedCpuTimer elapsedCpuTimer) {
+        System.out.printf("Parallel RHEA: %d threads, %d acts, %.1f evaluations per act%n",
+                getThreadPool().getMaxThreads(), numActs, numActs == 0 ? 0 : (double) totalEvals / numActs);
+    }
+
+    /**
+     * Returns the number of individuals evaluated in the last call to act().
+     * @return evaluations in the last act().
+     */
+    public int getNumEvals() {
+        return numEvals;
+    }
+
+    /**
+     * Run evolutionary process for one generation
+     * @param stateObs - current game state
+     */
+    private void runIteration(StateObservation stateObs) {
+        long iterationStart = timer.elapsedNanos();
+
+        Individual[] nextPop = new Individual[POPULATION_SIZE];
+        ArrayList<Individual> toEvaluate = new ArrayList<>();
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            if (i < ELITISM) {
+                nextPop[i] = population[i];
+                if (REEVALUATE)
+                    toEvaluate.add(nextPop[i]);
+            } else {
+                nextPop[i] = crossover().mutate(MUTATION);
+                toEvaluate.add(nextPop[i]);
+            }
+        }
+
+        evaluate(toEvaluate, stateObs);
+        Arrays.sort(nextPop);
+        population = nextPop;
+
+        numIters++;
+        acumTimeTaken += (timer.elapsedMillisSince(iterationStart));
+        avgTimeTaken = acumTimeTaken / numIters;
+    }
+
+    /**
+     * Evaluates individuals in the thread pool of the player, each one by rolling a copy of
+     * the current state with its actions and valuing the resulting state. Returns when all
+     * are evaluated, or stopped because the time budget ran out.
+     * @param individuals - individuals to be valued
+     * @param state - current state, root of rollouts
+     */
+    private void evaluate(List<Individual> individuals, StateObservation state) {
+        ExecutorService executor = getThreadPool().getExecutor();
+        ArrayList<Future<?>> rollouts = new ArrayList<>(individuals.size());
+        for (Individual individual : individuals)
+            rollouts.add(executor.submit(() -> rollout(individual, state)));
+
+        try {
+            for (Future<?> f : rollouts) {
+                while (true) {
+                    try {
+                        f.get(1, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        if (!timer.canContinue(0, BREAK_MS))
+                            outOfTime = true;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // The game is over and the pool is being stopped.
+            outOfTime = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        for (Individual individual : individuals)
+            if (individual.value != Double.NEGATIVE_INFINITY)
+                numEvals++;
+    }
+
+    /**
+     * Rolls a copy of the state with the actions of an individual and sets its value to
+     * the value of the last state reached (a shorter rollout if the time runs out). Runs in
+     * a thread of the pool. Individuals not started before the time ran out get the lowest
+     * value; as sorting is stable, they keep their order at the end of the population.
+     * @param individual - individual to be valued
+     * @param state - current state, root of rollouts
+     */
+    private void rollout(Individual individual, StateObservation state) {
+        if (outOfTime) {
+            individual.value = Double.NEGATIVE_INFINITY;
+            return;
+        }
+
+        // Rollouts run at the same time, so each one needs its own key handlers and effects.
+        StateObservation st = state.copyDetached();
+        for (int i = 0; i < SIMULATION_DEPTH && !st.isGameOver() && !outOfTime; i++)
+            st.advance(action_mapping.get(individual.actions[i]));
+
+        individual.value = heuristic.evaluateState(st);
+    }
+
+    /**
+     * @return - the individual resulting from crossover applied to the specified population
+     */
+    private Individual crossover() {
+        Individual newind = new Individual(SIMULATION_DEPTH, N_ACTIONS, randomGenerator);
+        Individual[] tournament = new Individual[TOURNAMENT_SIZE];
+        ArrayList<Individual> list = new ArrayList<>(Arrays.asList(population));
+
+        //Select a number of random distinct individuals for tournament and sort them based on value
+        for (int i = 0; i < TOURNAMENT_SIZE; i++) {
+            int index = randomGenerator.nextInt(list.size());
+            tournament[i] = list.get(index);
+            list.remove(index);
+        }
+        Arrays.sort(tournament);
+
+        //get best individuals in tournament as parents
+        if (TOURNAMENT_SIZE >= 2) {
+            newind.crossover(tournament[0], tournament[1], CROSSOVER_TYPE);
+        } else {
+            System.out.println("WARNING: Number of parents must be LESS than tournament size.");
+        }
+        return newind;
+    }
+
+    /**
+     * Shifts the population evolved in the last tick, or creates a random one in the first
+     * tick (or if the available actions changed), and evaluates it from the current state.
+     * @param stateObs - current game state
+     */
+    private void init_pop(StateObservation stateObs) {
+        ArrayList<Types.ACTIONS> actions = stateObs.getAvailableActions();
+        if (population == null || !actions.equals(availableActions)) {
+            availableActions = new ArrayList<>(actions);
+            N_ACTIONS = actions.size() + 1;
+            action_mapping = new HashMap<>();
+            int k = 0;
+            for (Types.ACTIONS action : actions) {
+                action_mapping.put(k, action);
+                k++;
+            }
+            action_mapping.put(k, Types.ACTIONS.ACTION_NIL);
+
+            population = new Individual[POPULATION_SIZE];
+            for (int i = 0; i < POPULATION_SIZE; i++)
+                population[i] = new Individual(SIMULATION_DEPTH, N_ACTIONS, randomGenerator);
+        } else {
+            for (Individual individual : population)
+                individual.shift();
+        }
+
+        evaluate(Arrays.asList(population), stateObs);
+        Arrays.sort(population);
+    }
+
+    /**
+     * @param pop - last population obtained after evolution
+     * @return - first action of best individual in the population (found at index 0)
+     */
+    private Types.ACTIONS get_best_action(Individual[] pop) {
+        int bestAction = pop[0].actions[0];
+        return action_mapping.get(bestAction);
+    }
+
+}
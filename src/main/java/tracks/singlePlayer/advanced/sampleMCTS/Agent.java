@@ -2,6 +2,7 @@ package tracks.singlePlayer.advanced.sampleMCTS;
 
 import core.game.StateObservation;
 import core.player.AbstractPlayer;
+import core.player.Pondering;
 import ontology.Types;
 import tools.ElapsedCpuTimer;
 
@@ -65,4 +66,15 @@ public class Agent extends AbstractPlayer {
         return actions[action];
     }
 
+    /**
+     * Grows the tree of the next call to act() while the game runs (only if
+     * CompetitionParameters.PONDER is set).
+     * @param predicted state after the last action returned.
+     * @param pondering control of the background search.
+     */
+    @Override
+    public void ponder(StateObservation predicted, Pondering pondering) {
+        mctsPlayer.ponder(predicted, pondering);
+    }
+
 }
\ No newline at end of file
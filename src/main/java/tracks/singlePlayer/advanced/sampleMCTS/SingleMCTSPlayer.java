@@ -1,6 +1,7 @@
 package tracks.singlePlayer.advanced.sampleMCTS;
 
 import core.game.StateObservation;
+import core.player.Pondering;
 import ontology.Types;
 import tools.ElapsedCpuTimer;
 
@@ -29,6 +30,11 @@ public class SingleMCTSPlayer
     public int num_actions;
     public Types.ACTIONS[] actions;
 
+    /**
+     * True if the tree was grown while pondering, and not used yet.
+     */
+    private boolean pondered;
+
     public SingleMCTSPlayer(Random a_rnd, int num_actions, Types.ACTIONS[] actions)
     {
         this.num_actions = num_actions;
@@ -42,12 +48,52 @@ public class SingleMCTSPlayer
      */
     public void init(StateObservation a_gameState)
     {
+        //Keep the tree grown while pondering if it was grown from this state.
+        if (m_root != null && pondered && sameState(m_root.rootState, a_gameState)) {
+            pondered = false;
+            m_root.rootState = a_gameState;
+            return;
+        }
+        pondered = false;
+
         //Set the game observation to a newly root node.
         //System.out.println("learning_style = " + learning_style);
         m_root = new SingleTreeNode(m_rnd, num_actions, actions);
         m_root.rootState = a_gameState;
     }
 
+    /**
+     * Grows a new tree from the state predicted to follow the last action, until pondering
+     * tells to stop. The next call to init() keeps it if the prediction was right. The tree
+     * has its own random generator, and is only published if the search stops in time.
+     * @param predicted state after the last action.
+     * @param pondering control of the background search.
+     */
+    public void ponder(StateObservation predicted, Pondering pondering)
+    {
+        SingleTreeNode tree = new SingleTreeNode(new Random(), num_actions, actions);
+        tree.rootState = predicted;
+        tree.ponderSearch(pondering);
+        pondering.publish(() -> {
+            m_root = tree;
+            pondered = true;
+        });
+    }
+
+    /**
+     * Checks if the state predicted while pondering is the one received, as far as the
+     * avatar sees it. The search is open loop (the tree keeps actions, not states), so
+     * differences elsewhere only make the statistics of the tree less accurate.
+     */
+    private boolean sameState(StateObservation predicted, StateObservation real)
+    {
+        return predicted.getGameTick() == real.getGameTick()
+                && predicted.getGameScore() == real.getGameScore()
+                && predicted.getAvatarPosition().equals(real.getAvatarPosition())
+                && predicted.getAvatarOrientation().equals(real.getAvatarOrientation())
+                && predicted.getAvatarResources().equals(real.getAvatarResources());
+    }
+
     /**
      * Runs MCTS to decide the action to take. It does not reset the tree.
      * @param elapsedTimer Timer when the action returned is due.
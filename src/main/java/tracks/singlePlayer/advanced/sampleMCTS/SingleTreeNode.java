@@ -1,7 +1,9 @@
 package tracks.singlePlayer.advanced.sampleMCTS;
 
 import core.game.StateObservation;
+import core.player.Pondering;
 import ontology.Types;
+import tools.BudgetClock;
 import tools.ElapsedCpuTimer;
 import tools.Utils;
 
@@ -50,27 +52,39 @@ public class SingleTreeNode
 
     public void mctsSearch(ElapsedCpuTimer elapsedTimer) {
 
+        BudgetClock clock = new BudgetClock(elapsedTimer);
         double avgTimeTaken = 0;
         double acumTimeTaken = 0;
-        long remaining = elapsedTimer.remainingTimeMillis();
         int numIters = 0;
 
         int remainingLimit = 5;
-        while(remaining > 2*avgTimeTaken && remaining > remainingLimit){
+        while(clock.canContinue(2*avgTimeTaken, remainingLimit)){
         //while(numIters < Agent.MCTS_ITERATIONS){
 
             StateObservation state = rootState.copy();
 
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            long iterationStart = clock.elapsedNanos();
             SingleTreeNode selected = treePolicy(state);
             double delta = selected.rollOut(state);
             backUp(selected, delta);
 
             numIters++;
-            acumTimeTaken += (elapsedTimerIteration.elapsedMillis()) ;
+            acumTimeTaken += (clock.elapsedMillisSince(iterationStart)) ;
             //System.out.println(elapsedTimerIteration.elapsedMillis() + " --> " + acumTimeTaken + " (" + remaining + ")");
             avgTimeTaken  = acumTimeTaken/numIters;
-            remaining = elapsedTimer.remainingTimeMillis();
+        }
+    }
+
+    /**
+     * Grows the tree in the background, while pondering lets it (see Agent.ponder()).
+     * @param pondering control of the background search.
+     */
+    public void ponderSearch(Pondering pondering) {
+        while (pondering.proceed()) {
+            StateObservation state = rootState.copy();
+            SingleTreeNode selected = treePolicy(state);
+            double delta = selected.rollOut(state);
+            backUp(selected, delta);
         }
     }
 
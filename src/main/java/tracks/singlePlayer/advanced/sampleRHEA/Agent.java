@@ -3,6 +3,7 @@ package tracks.singlePlayer.advanced.sampleRHEA;
 import core.game.StateObservation;
 import core.player.AbstractPlayer;
 import ontology.Types;
+import tools.BudgetClock;
 import tools.ElapsedCpuTimer;
 import tracks.singlePlayer.tools.Heuristics.StateHeuristic;
 import tracks.singlePlayer.tools.Heuristics.WinScoreHeuristic;
@@ -39,7 +40,7 @@ public class Agent extends AbstractPlayer {
     private Random randomGenerator;
 
     // Budgets
-    private ElapsedCpuTimer timer;
+    private BudgetClock timer;
     private double acumTimeTakenEval = 0,avgTimeTakenEval = 0, avgTimeTaken = 0, acumTimeTaken = 0;
     private int numEvals = 0, numIters = 0;
     private boolean keepIterating = true;
@@ -54,12 +55,12 @@ public class Agent extends AbstractPlayer {
     public Agent(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
         randomGenerator = new Random();
         heuristic = new WinScoreHeuristic(stateObs);
-        this.timer = elapsedTimer;
+        this.timer = new BudgetClock(elapsedTimer);
     }
 
     @Override
     public Types.ACTIONS act(StateObservation stateObs, ElapsedCpuTimer elapsedTimer) {
-        this.timer = elapsedTimer;
+        timer.start(elapsedTimer);
         avgTimeTaken = 0;
         acumTimeTaken = 0;
         numEvals = 0;
@@ -88,7 +89,7 @@ public class Agent extends AbstractPlayer {
      * @param stateObs - current game state
      */
     private void runIteration(StateObservation stateObs) {
-        ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+        long iterationStart = timer.elapsedNanos();
 
         if (REEVALUATE) {
             for (int i = 0; i < ELITISM; i++) {
@@ -139,7 +140,7 @@ public class Agent extends AbstractPlayer {
         population = nextPop.clone();
 
         numIters++;
-        acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+        acumTimeTaken += (timer.elapsedMillisSince(iterationStart));
         avgTimeTaken = acumTimeTaken / numIters;
     }
 
@@ -153,17 +154,17 @@ public class Agent extends AbstractPlayer {
      */
     private double evaluate(Individual individual, StateHeuristic heuristic, StateObservation state) {
 
-        ElapsedCpuTimer elapsedTimerIterationEval = new ElapsedCpuTimer();
+        long evalStart = timer.elapsedNanos();
 
         StateObservation st = state.copy();
         int i;
         double acum = 0, avg;
         for (i = 0; i < SIMULATION_DEPTH; i++) {
             if (! st.isGameOver()) {
-                ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+                long iterationStart = timer.elapsedNanos();
                 st.advance(action_mapping.get(individual.actions[i]));
 
-                acum += elapsedTimerIteration.elapsedMillis();
+                acum += timer.elapsedMillisSince(iterationStart);
                 avg = acum / (i+1);
                 remaining = timer.remainingTimeMillis();
                 if (remaining < 2*avg || remaining < BREAK_MS) break;
@@ -175,7 +176,7 @@ public class Agent extends AbstractPlayer {
         individual.value = heuristic.evaluateState(st);
 
         numEvals++;
-        acumTimeTakenEval += (elapsedTimerIterationEval.elapsedMillis());
+        acumTimeTakenEval += (timer.elapsedMillisSince(evalStart));
         avgTimeTakenEval = acumTimeTakenEval / numEvals;
         remaining = timer.remainingTimeMillis();
 